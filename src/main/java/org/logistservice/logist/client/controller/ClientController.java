@@ -3,14 +3,22 @@ package org.logistservice.logist.client.controller;
 import jakarta.validation.Valid;
 import org.logistservice.logist.client.model.dto.ClientCreateUpdateRequest;
 import org.logistservice.logist.client.model.dto.ClientDto;
+import org.logistservice.logist.client.service.ClientImportService;
 import org.logistservice.logist.client.service.ClientService;
+import org.logistservice.logist.common.dto.ImportReportDto;
 import org.logistservice.logist.common.enums.ClientSortField;
 import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.common.web.JsonArrayStreamer;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -18,9 +26,14 @@ import java.util.List;
 public class ClientController {
     
     private final ClientService clientService;
+    private final ClientImportService clientImportService;
+    private final JsonArrayStreamer jsonArrayStreamer;
     
-    public ClientController(ClientService clientService) {
+    public ClientController(ClientService clientService, ClientImportService clientImportService,
+                            JsonArrayStreamer jsonArrayStreamer) {
         this.clientService = clientService;
+        this.clientImportService = clientImportService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
     }
     
     @GetMapping
@@ -34,6 +47,18 @@ public class ClientController {
         return ResponseEntity.ok(clientService.getAll(name, city, active, sortField, sortDirection));
     }
     
+    // Потоковый режим списка (stream=true): фильтры и сортировка выполняются в БД, строки пишутся по мере чтения
+    @GetMapping(params = "stream=true")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
+    public ResponseEntity<StreamingResponseBody> streamAllClients(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) ClientSortField sortField,
+            @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection) {
+        return jsonArrayStreamer.<ClientDto>stream(rows -> clientService.streamAll(name, city, active, sortField, sortDirection, rows));
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
     public ResponseEntity<ClientDto> getClientById(@PathVariable Long id) {
@@ -47,6 +72,19 @@ public class ClientController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    // Массовый импорт клиентов с upsert по ИНН (taxNumber): CSV с заголовком из имен полей запроса или NDJSON
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importClientsCsv(InputStream csv) {
+        return ResponseEntity.ok(clientImportService.importCsv(csv));
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importClientsNdjson(InputStream ndjson) {
+        return ResponseEntity.ok(clientImportService.importNdjson(ndjson));
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public ResponseEntity<ClientDto> updateClient(
@@ -61,6 +99,14 @@ public class ClientController {
         clientService.delete(id);
         return ResponseEntity.noContent().build();
     }
+    
+    // Фоновое удаление клиента с заказами; прогресс - GET /api/deletion-jobs/{jobId}
+    @PostMapping("/{id}/deletion-job")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<DeletionJobDto> startClientDeletion(@PathVariable Long id) {
+        DeletionJobDto job = clientService.startDeletion(id);
+        return ResponseEntity.accepted().location(URI.create("/api/deletion-jobs/" + job.getId())).body(job);
+    }
 }
 
 
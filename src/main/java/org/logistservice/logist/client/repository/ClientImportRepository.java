@@ -0,0 +1,10 @@
+package org.logistservice.logist.client.repository;
+
+import org.logistservice.logist.client.model.Client;
+
+import java.util.List;
+
+// Пакетная вставка импортируемых клиентов в обход сессии Hibernate
+public interface ClientImportRepository {
+    void insertClients(List<Client> clients);
+}
@@ -0,0 +1,38 @@
+package org.logistservice.logist.client.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.logistservice.logist.client.model.Client;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+// Id строк заранее зарезервированы через SequenceIdAllocator
+@Repository
+@RequiredArgsConstructor
+public class ClientImportRepositoryImpl implements ClientImportRepository {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insertClients(List<Client> clients) {
+        jdbcTemplate.batchUpdate("INSERT INTO clients (id, name, contact_person, phone, email, tax_number, city, address, " +
+                        "active, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                clients, BATCH_SIZE, (ps, client) -> {
+                    ps.setLong(1, client.getId());
+                    ps.setString(2, client.getName());
+                    ps.setString(3, client.getContactPerson());
+                    ps.setString(4, client.getPhone());
+                    ps.setString(5, client.getEmail());
+                    ps.setString(6, client.getTaxNumber());
+                    ps.setString(7, client.getCity());
+                    ps.setString(8, client.getAddress());
+                    ps.setObject(9, client.getActive(), Types.BOOLEAN);
+                    ps.setTimestamp(10, Timestamp.valueOf(client.getCreatedAt()));
+                });
+    }
+}
@@ -2,11 +2,28 @@ package org.logistservice.logist.client.repository;
 
 import org.logistservice.logist.client.model.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
-    // to-do
+    // Поиск по пачке ИНН (для импорта), по индексу tax_number
+    List<Client> findAllByTaxNumberIn(Collection<String> taxNumbers);
+    
+    // FOR UPDATE (а не FOR NO KEY UPDATE) конфликтует с проверкой внешнего ключа:
+    // до конца транзакции клиенту нельзя добавить заказ
+    @Query(value = "SELECT id FROM clients WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+    
+    // Чтение для заказа на другом шарде (OrderReferences): FOR KEY SHARE не мешает изменять строку,
+    // но конфликтует с lockById, так что до конца транзакции удаление ждет
+    @Query(value = "SELECT * FROM clients WHERE id IN (:ids) FOR KEY SHARE", nativeQuery = true)
+    List<Client> findAllForKeyShareByIdIn(@Param("ids") Collection<Long> ids);
 }
 
 
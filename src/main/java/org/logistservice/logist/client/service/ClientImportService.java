@@ -0,0 +1,10 @@
+package org.logistservice.logist.client.service;
+
+import org.logistservice.logist.common.dto.ImportReportDto;
+
+import java.io.InputStream;
+
+public interface ClientImportService {
+    ImportReportDto importCsv(InputStream csv);
+    ImportReportDto importNdjson(InputStream ndjson);
+}
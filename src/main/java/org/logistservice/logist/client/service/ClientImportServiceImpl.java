@@ -0,0 +1,145 @@
+package org.logistservice.logist.client.service;
+
+import org.logistservice.logist.client.model.Client;
+import org.logistservice.logist.client.model.dto.ClientCreateUpdateRequest;
+import org.logistservice.logist.client.repository.ClientImportRepository;
+import org.logistservice.logist.client.repository.ClientRepository;
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.logistservice.logist.common.imports.ImportReader;
+import org.logistservice.logist.common.imports.ImportRow;
+import org.logistservice.logist.common.imports.UpsertImporter;
+import org.logistservice.logist.common.repository.SequenceIdAllocator;
+import org.logistservice.logist.order.repository.OrderRepository;
+import org.logistservice.logist.order.service.OrderDetailsCache;
+import org.logistservice.logist.order.service.OrderShards;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Импорт клиентов с upsert по ИНН. Строки без ИНН всегда создают нового клиента;
+// ИНН, который в БД есть у нескольких клиентов, не позволяет выбрать запись и считается ошибкой строки
+@Service
+public class ClientImportServiceImpl implements ClientImportService {
+    
+    private final ClientRepository clientRepository;
+    private final ClientImportRepository clientImportRepository;
+    private final OrderRepository orderRepository;
+    private final SequenceIdAllocator idAllocator;
+    private final ImportReader importReader;
+    private final OrderDetailsCache orderDetailsCache;
+    private final UpsertImporter upsertImporter;
+    private final OrderShards orderShards;
+    
+    public ClientImportServiceImpl(ClientRepository clientRepository,
+                                   ClientImportRepository clientImportRepository,
+                                   OrderRepository orderRepository,
+                                   SequenceIdAllocator idAllocator,
+                                   ImportReader importReader,
+                                   OrderDetailsCache orderDetailsCache,
+                                   UpsertImporter upsertImporter,
+                                   OrderShards orderShards) {
+        this.clientRepository = clientRepository;
+        this.clientImportRepository = clientImportRepository;
+        this.orderRepository = orderRepository;
+        this.idAllocator = idAllocator;
+        this.importReader = importReader;
+        this.orderDetailsCache = orderDetailsCache;
+        this.upsertImporter = upsertImporter;
+        this.orderShards = orderShards;
+    }
+    
+    @Override
+    public ImportReportDto importCsv(InputStream csv) {
+        return importRows(importReader.csv(csv, ClientCreateUpdateRequest.class));
+    }
+    
+    @Override
+    public ImportReportDto importNdjson(InputStream ndjson) {
+        return importRows(importReader.ndjson(ndjson, ClientCreateUpdateRequest.class));
+    }
+    
+    private ImportReportDto importRows(Iterator<ImportRow<ClientCreateUpdateRequest>> rows) {
+        return upsertImporter.run(rows, "taxNumber", request -> keyOf(request.getTaxNumber()), this::upsertChunk);
+    }
+    
+    private void upsertChunk(List<ImportRow<ClientCreateUpdateRequest>> rows, UpsertImporter.ChunkResult result) {
+        Set<String> taxNumbers = rows.stream()
+                .map(row -> keyOf(row.getValue().getTaxNumber()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, List<Client>> existing = taxNumbers.isEmpty() ? Map.of() : clientRepository
+                .findAllByTaxNumberIn(taxNumbers).stream()
+                .collect(Collectors.groupingBy(client -> keyOf(client.getTaxNumber())));
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Client> created = new ArrayList<>();
+        Map<Long, String> renamed = new HashMap<>();
+        for (ImportRow<ClientCreateUpdateRequest> row : rows) {
+            ClientCreateUpdateRequest request = row.getValue();
+            String key = keyOf(request.getTaxNumber());
+            List<Client> matches = key != null ? existing.getOrDefault(key, List.of()) : List.of();
+            if (matches.size() > 1) {
+                result.failed(row.getNumber(), "Several clients have taxNumber " + key);
+                continue;
+            }
+            if (matches.isEmpty()) {
+                created.add(Client.builder()
+                        .name(request.getName())
+                        .contactPerson(request.getContactPerson())
+                        .phone(request.getPhone())
+                        .email(request.getEmail())
+                        .taxNumber(request.getTaxNumber())
+                        .city(request.getCity())
+                        .address(request.getAddress())
+                        .active(request.getActive() != null ? request.getActive() : true)
+                        .createdAt(now)
+                        .build());
+                continue;
+            }
+            Client client = matches.get(0);
+            if (!Objects.equals(client.getName(), request.getName())) {
+                renamed.put(client.getId(), request.getName());
+            }
+            client.setName(request.getName());
+            client.setContactPerson(request.getContactPerson());
+            client.setPhone(request.getPhone());
+            client.setEmail(request.getEmail());
+            client.setTaxNumber(request.getTaxNumber());
+            client.setCity(request.getCity());
+            client.setAddress(request.getAddress());
+            if (request.getActive() != null) {
+                client.setActive(request.getActive());
+            }
+            result.updated();
+        }
+        
+        if (!created.isEmpty()) {
+            List<Long> ids = idAllocator.allocate("clients", created.size());
+            for (int i = 0; i < created.size(); i++) {
+                created.get(i).setId(ids.get(i));
+            }
+            clientImportRepository.insertClients(created);
+            result.created(created.size());
+        }
+        // Название клиента входит в поисковую строку и в детали его заказов
+        if (!renamed.isEmpty()) {
+            clientRepository.flush();
+            orderShards.writeAllAfterCommit(shard -> renamed.forEach(orderRepository::refreshSearchTextByClientId));
+            orderDetailsCache.evictAll();
+        }
+    }
+    
+    private String keyOf(String taxNumber) {
+        return StringUtils.hasText(taxNumber) ? taxNumber.strip() : null;
+    }
+}
@@ -4,15 +4,20 @@ import org.logistservice.logist.client.model.dto.ClientCreateUpdateRequest;
 import org.logistservice.logist.client.model.dto.ClientDto;
 import org.logistservice.logist.common.enums.ClientSortField;
 import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ClientService {
     List<ClientDto> getAll(String nameFilter, String cityFilter, Boolean active, ClientSortField sortField, SortDirection sortDirection);
+    void streamAll(String nameFilter, String cityFilter, Boolean active, ClientSortField sortField, SortDirection sortDirection,
+                   Consumer<ClientDto> action);
     ClientDto getById(Long id);
     ClientDto create(ClientCreateUpdateRequest request);
     ClientDto update(Long id, ClientCreateUpdateRequest request);
     void delete(Long id);
+    DeletionJobDto startDeletion(Long id);
 }
 
 
@@ -7,21 +7,58 @@ import org.logistservice.logist.client.repository.ClientRepository;
 import org.logistservice.logist.common.enums.ClientSortField;
 import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.common.exception.NotFoundException;
+import org.logistservice.logist.common.repository.ListSpecifications;
+import org.logistservice.logist.common.repository.StreamingQueries;
+import org.logistservice.logist.deletion.model.DeletionProgress;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
+import org.logistservice.logist.deletion.service.DeletionJobService;
+import org.logistservice.logist.order.repository.OrderRepository;
+import org.logistservice.logist.order.service.OrderBulkDeleteService;
+import org.logistservice.logist.order.service.OrderDetailsCache;
+import org.logistservice.logist.order.service.OrderShards;
+import org.logistservice.logist.stats.service.StatsRollupService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ClientServiceImpl implements ClientService {
     
     private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+    private final OrderDetailsCache orderDetailsCache;
+    private final StatsRollupService statsRollupService;
+    private final OrderBulkDeleteService orderBulkDeleteService;
+    private final DeletionJobService deletionJobService;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShards orderShards;
+    private final StreamingQueries streamingQueries;
     
-    public ClientServiceImpl(ClientRepository clientRepository) {
+    public ClientServiceImpl(ClientRepository clientRepository, OrderRepository orderRepository,
+                             OrderDetailsCache orderDetailsCache, StatsRollupService statsRollupService,
+                             OrderBulkDeleteService orderBulkDeleteService, DeletionJobService deletionJobService,
+                             TransactionTemplate transactionTemplate, OrderShards orderShards,
+                             StreamingQueries streamingQueries) {
         this.clientRepository = clientRepository;
+        this.orderRepository = orderRepository;
+        this.orderDetailsCache = orderDetailsCache;
+        this.statsRollupService = statsRollupService;
+        this.orderBulkDeleteService = orderBulkDeleteService;
+        this.deletionJobService = deletionJobService;
+        this.transactionTemplate = transactionTemplate;
+        this.orderShards = orderShards;
+        this.streamingQueries = streamingQueries;
     }
     
     @Override
@@ -57,6 +94,31 @@ public class ClientServiceImpl implements ClientService {
         return result;
     }
     
+    // Те же фильтры и сортировка, что у getAll, но в БД: строки читаются курсором и сразу отдаются action
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(String nameFilter, String cityFilter, Boolean active, ClientSortField sortField, SortDirection sortDirection,
+                          Consumer<ClientDto> action) {
+        Specification<Client> spec = Specification.allOf(
+                ListSpecifications.containsIgnoreCase("name", nameFilter),
+                ListSpecifications.containsIgnoreCase("city", cityFilter),
+                ListSpecifications.equalTo("active", active));
+        try (Stream<ClientDto> rows = streamingQueries.stream(Client.class, spec, getClientSort(sortField, sortDirection), this::toDto)) {
+            rows.forEach(action);
+        }
+    }
+    
+    private Sort getClientSort(ClientSortField sortField, SortDirection sortDirection) {
+        if (sortField == null) {
+            return ListSpecifications.orderBy(null, false, sortDirection);
+        }
+        return switch (sortField) {
+            case NAME -> ListSpecifications.orderBy("name", true, sortDirection);
+            case CITY -> ListSpecifications.orderBy("city", true, sortDirection);
+            case CREATED_AT -> ListSpecifications.orderBy("createdAt", false, sortDirection);
+        };
+    }
+    
     private Comparator<ClientDto> getClientComparator(ClientSortField sortField) {
         return switch (sortField) {
             case NAME -> Comparator.comparing(
@@ -97,21 +159,52 @@ public class ClientServiceImpl implements ClientService {
     }
     
     @Override
+    @Transactional
     public ClientDto update(Long id, ClientCreateUpdateRequest request) {
         Client client = clientRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Client not found with id: " + id));
         
+        boolean nameChanged = !Objects.equals(client.getName(), request.getName());
         updateEntityFromRequest(client, request);
-        Client updated = clientRepository.save(client);
+        Client updated = clientRepository.saveAndFlush(client);
+        
+        // Название клиента входит в поисковую строку и в детали его заказов на всех шардах
+        if (nameChanged) {
+            orderShards.writeAllAfterCommit(shard -> orderRepository.refreshSearchTextByClientId(id, updated.getName()));
+            orderDetailsCache.evictAll();
+        }
         return toDto(updated);
     }
     
     @Override
     public void delete(Long id) {
+        delete(id, new DeletionProgress());
+    }
+    
+    @Override
+    public DeletionJobDto startDeletion(Long id) {
+        if (!clientRepository.existsById(id)) {
+            throw new NotFoundException("Client not found with id: " + id);
+        }
+        return deletionJobService.start("client", id, progress -> delete(id, progress));
+    }
+    
+    // Заказы клиента удаляются пачками, не загружаясь в контекст персистентности и не держа блокировки
+    // до конца всего удаления. Клиент удаляется последним под блокировкой, вместе с заказами,
+    // созданными за время удаления. Блокировка на шарде 0 закрывает и другие шарды: запись заказа на шард k
+    // держит FOR KEY SHARE на клиенте шарда 0 до своего коммита (OrderReferences)
+    private void delete(Long id, DeletionProgress progress) {
         if (!clientRepository.existsById(id)) {
             throw new NotFoundException("Client not found with id: " + id);
         }
-        clientRepository.deleteById(id);
+        orderBulkDeleteService.deleteOrdersOfClient(id, progress);
+        transactionTemplate.executeWithoutResult(status -> {
+            clientRepository.lockById(id)
+                    .orElseThrow(() -> new NotFoundException("Client not found with id: " + id));
+            orderBulkDeleteService.deleteOrdersOfClient(id, progress);
+            clientRepository.deleteById(id);
+            orderShards.writeAllAfterCommit(shard -> statsRollupService.clientDeleted(id));
+        });
     }
     
     private ClientDto toDto(Client entity) {
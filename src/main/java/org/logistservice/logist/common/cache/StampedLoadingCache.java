@@ -0,0 +1,68 @@
+package org.logistservice.logist.common.cache;
+
+import javax.cache.Cache;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// Загрузка в JCache-регион без блокировки: запрос к БД выполняется вне Cache.invoke, иначе Caffeine держит
+// блокировку корзины своей таблицы все время загрузки и задерживает чтения и сбросы других ключей той же корзины.
+// Чтобы загрузка, начатая до коммита изменения, не оставила в кэше прежнюю версию, сброс увеличивает метку
+// ключа, а загруженное значение публикуется, только если метка за время загрузки не изменилась.
+// Метки общие для групп ключей (STRIPES): сброс соседнего ключа лишь отменяет публикацию, значение вернется
+// вызывающему и загрузится снова при следующем чтении
+public class StampedLoadingCache<K, V> {
+
+    private static final int STRIPES = 1024;
+
+    private final Cache<K, V> cache;
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+    private final AtomicLong allStamp = new AtomicLong();
+
+    public StampedLoadingCache(Cache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    // Параллельные промахи по одному ключу загружают значение каждый сам, в кэш попадает первое
+    public V get(K key, Supplier<V> loader) {
+        V cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamp(key);
+        V loaded = loader.get();
+        // Повторная проверка после публикации: сброс мог пройти между первой проверкой и putIfAbsent,
+        // и тогда его remove мог выполниться раньше публикации
+        if (stamp(key) == stamp && cache.putIfAbsent(key, loaded) && stamp(key) != stamp) {
+            cache.remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    // Метка увеличивается до удаления: загрузка, которая удаление пропустит, увидит новую метку
+    public void evict(K key) {
+        stamps.incrementAndGet(stripe(key));
+        cache.remove(key);
+    }
+
+    public void evictAll(Set<? extends K> keys) {
+        keys.forEach(key -> stamps.incrementAndGet(stripe(key)));
+        cache.removeAll(keys);
+    }
+
+    public void evictAll() {
+        allStamp.incrementAndGet();
+        cache.removeAll();
+    }
+
+    // Обе метки только растут, поэтому сумма меняется после любого сброса
+    private long stamp(K key) {
+        return allStamp.get() + stamps.get(stripe(key));
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
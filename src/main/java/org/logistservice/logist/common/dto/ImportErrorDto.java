@@ -0,0 +1,14 @@
+package org.logistservice.logist.common.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportErrorDto {
+    // Номер строки данных, начиная с 1 (заголовок CSV и пустые строки не считаются)
+    private int row;
+    private String message;
+}
@@ -0,0 +1,33 @@
+package org.logistservice.logist.common.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Итог массового импорта: сколько строк создано, обновлено и пропущено с ошибкой
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportReportDto {
+    private int totalRows;
+    private int created;
+    private int updated;
+    private int failed;
+    @Builder.Default
+    private List<ImportErrorDto> errors = new ArrayList<>();
+    
+    public void addError(int row, String message) {
+        errors.add(new ImportErrorDto(row, message));
+    }
+    
+    // Ошибки собираются по мере обработки пачек, в ответе - по порядку строк
+    public ImportReportDto complete() {
+        errors.sort(Comparator.comparingInt(ImportErrorDto::getRow));
+        failed = errors.size();
+        return this;
+    }
+}
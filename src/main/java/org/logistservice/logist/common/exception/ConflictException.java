@@ -0,0 +1,16 @@
+package org.logistservice.logist.common.exception;
+
+public class ConflictException extends RuntimeException {
+    
+    public ConflictException() {
+        super();
+    }
+    
+    public ConflictException(String message) {
+        super(message);
+    }
+    
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,23 @@
+package org.logistservice.logist.common.exception;
+
+import java.time.Duration;
+
+// Временная перегрузка: ответ 503 с заголовком Retry-After
+public class ServiceUnavailableException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+    
+    // Значение заголовка Retry-After: целые секунды, не меньше одной
+    public String getRetryAfterHeader() {
+        return String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+}
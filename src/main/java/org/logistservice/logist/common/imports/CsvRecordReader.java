@@ -0,0 +1,70 @@
+package org.logistservice.logist.common.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Чтение CSV по записям (RFC 4180, разделитель - запятая). Поле в кавычках может содержать запятые,
+// переводы строк и удвоенные кавычки; пустые строки пропускаются
+class CsvRecordReader {
+    
+    private final Reader reader;
+    
+    CsvRecordReader(Reader reader) {
+        this.reader = reader.markSupported() ? reader : new BufferedReader(reader);
+    }
+    
+    // null - конец потока
+    List<String> read() {
+        try {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == '\uFEFF' && !any) {
+                    continue;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    any = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    any = true;
+                } else if (c == '\n') {
+                    if (!any && field.isEmpty()) {
+                        continue;
+                    }
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                    any = true;
+                }
+            }
+            if (!any && field.isEmpty()) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package org.logistservice.logist.common.imports;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.logistservice.logist.common.exception.BadRequestException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.exc.InvalidFormatException;
+
+import java.beans.PropertyDescriptor;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Потоковый разбор файлов импорта в запросы создания (CSV с заголовком из имен полей запроса
+// или NDJSON - по JSON-объекту на строку). Файл читается по одной строке, каждая строка
+// сразу проходит bean validation; ошибки разбора и проверки остаются в строке и не прерывают импорт
+@Component
+public class ImportReader {
+    
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    
+    public ImportReader(ObjectMapper objectMapper, Validator validator) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+    
+    public <T> Iterator<ImportRow<T>> csv(InputStream input, Class<T> type) {
+        return new CsvRows<>(input, type);
+    }
+    
+    public <T> Iterator<ImportRow<T>> ndjson(InputStream input, Class<T> type) {
+        return new NdjsonRows<>(input, type);
+    }
+    
+    // Уже разобранный JSON-массив
+    public <T> Iterator<ImportRow<T>> list(List<T> values) {
+        Iterator<T> iterator = values.iterator();
+        return new Iterator<>() {
+            private int number;
+            
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+            
+            @Override
+            public ImportRow<T> next() {
+                T value = iterator.next();
+                number++;
+                return value != null ? validated(number, value) : ImportRow.failed(number, "Row is empty");
+            }
+        };
+    }
+    
+    // Строки отдаются пачками, в памяти одновременно держится не больше одной пачки
+    public static <T> void forEachChunk(Iterator<ImportRow<T>> rows, int chunkSize, Consumer<List<ImportRow<T>>> handler) {
+        List<ImportRow<T>> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                handler.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            handler.accept(chunk);
+        }
+    }
+    
+    private <T> ImportRow<T> validated(int number, T value) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return ImportRow.of(number, value);
+        }
+        return ImportRow.failed(number, violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining("; ")));
+    }
+    
+    private String describe(RuntimeException e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof JacksonException)) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof InvalidFormatException invalid && !invalid.getPath().isEmpty()) {
+            return "Invalid value for " + invalid.getPath().get(invalid.getPath().size() - 1).getPropertyName()
+                    + ": '" + invalid.getValue() + "'";
+        }
+        if (cause instanceof JacksonException jackson) {
+            String field = jackson.getPath().isEmpty() ? null
+                    : jackson.getPath().get(jackson.getPath().size() - 1).getPropertyName();
+            return field != null ? "Invalid value for " + field + ": " + jackson.getOriginalMessage()
+                    : "Invalid row: " + jackson.getOriginalMessage();
+        }
+        return "Invalid row: " + e.getMessage();
+    }
+    
+    private static BufferedReader open(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+    
+    private abstract static class Rows<T> implements Iterator<ImportRow<T>> {
+        private ImportRow<T> next;
+        private boolean done;
+        
+        // null - конец потока
+        protected abstract ImportRow<T> read();
+        
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = read();
+                done = next == null;
+            }
+            return next != null;
+        }
+        
+        @Override
+        public ImportRow<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ImportRow<T> row = next;
+            next = null;
+            return row;
+        }
+    }
+    
+    private class CsvRows<T> extends Rows<T> {
+        private final Class<T> type;
+        private final CsvRecordReader reader;
+        private final List<String> header;
+        private int number;
+        
+        CsvRows(InputStream input, Class<T> type) {
+            this.type = type;
+            this.reader = new CsvRecordReader(open(input));
+            List<String> headerRecord = reader.read();
+            if (headerRecord == null) {
+                throw new BadRequestException("CSV header is missing");
+            }
+            this.header = resolveHeader(headerRecord, type);
+        }
+        
+        @Override
+        protected ImportRow<T> read() {
+            List<String> record = reader.read();
+            if (record == null) {
+                return null;
+            }
+            number++;
+            if (record.size() != header.size()) {
+                return ImportRow.failed(number, "Expected " + header.size() + " columns, got " + record.size());
+            }
+            // Пустое значение - null; остальное приводится к типам полей так же, как в JSON
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < record.size(); i++) {
+                String value = record.get(i).strip();
+                if (!value.isEmpty()) {
+                    values.put(header.get(i), value);
+                }
+            }
+            try {
+                return validated(number, objectMapper.convertValue(values, type));
+            } catch (RuntimeException e) {
+                return ImportRow.failed(number, describe(e));
+            }
+        }
+    }
+    
+    private class NdjsonRows<T> extends Rows<T> {
+        private final Class<T> type;
+        private final BufferedReader reader;
+        private int number;
+        
+        NdjsonRows(InputStream input, Class<T> type) {
+            this.type = type;
+            this.reader = open(input);
+        }
+        
+        @Override
+        protected ImportRow<T> read() {
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                } while (line.isBlank());
+                number++;
+                try {
+                    return validated(number, objectMapper.readValue(line, type));
+                } catch (RuntimeException e) {
+                    return ImportRow.failed(number, describe(e));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    // Имена колонок - свойства запроса без учета регистра; неизвестная колонка отклоняет весь файл
+    private static List<String> resolveHeader(List<String> record, Class<?> type) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+            if (descriptor.getWriteMethod() != null) {
+                properties.put(descriptor.getName().toLowerCase(Locale.ROOT), descriptor.getName());
+            }
+        }
+        List<String> columns = new ArrayList<>(record.size());
+        Set<String> seen = new HashSet<>();
+        for (String name : record) {
+            String property = properties.get(name.strip().toLowerCase(Locale.ROOT));
+            if (property == null) {
+                throw new BadRequestException("Unknown CSV column: " + name.strip());
+            }
+            if (!seen.add(property)) {
+                throw new BadRequestException("Duplicate CSV column: " + name.strip());
+            }
+            columns.add(property);
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,26 @@
+package org.logistservice.logist.common.imports;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Строка импорта: разобранный и проверенный запрос или причина, по которой строка пропускается
+@Getter
+@AllArgsConstructor
+public class ImportRow<T> {
+    // Номер строки данных, начиная с 1 (заголовок CSV и пустые строки не считаются)
+    private final int number;
+    private final T value;
+    private final String error;
+    
+    public static <T> ImportRow<T> of(int number, T value) {
+        return new ImportRow<>(number, value, null);
+    }
+    
+    public static <T> ImportRow<T> failed(int number, String error) {
+        return new ImportRow<>(number, null, error);
+    }
+    
+    public boolean isFailed() {
+        return error != null;
+    }
+}
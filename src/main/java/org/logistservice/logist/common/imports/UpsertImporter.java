@@ -0,0 +1,107 @@
+package org.logistservice.logist.common.imports;
+
+import org.logistservice.logist.common.dto.ImportErrorDto;
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Импорт справочника с upsert по естественному ключу (клиенты, водители, транспорт). Строки идут пачками,
+// ошибки разбора и повтор ключа в файле попадают в отчет, каждая пачка пишется в своей транзакции.
+// Откат пачки делает ошибочными все ее строки и не затрагивает остальные пачки
+@Component
+public class UpsertImporter {
+    
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    
+    public UpsertImporter(TransactionTemplate transactionTemplate,
+                          @Value("${app.import.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("app.import.chunk-size must be positive");
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+    
+    // keyName - поле ключа для сообщения о повторе; строки с ключом null между собой не сверяются
+    public <T> ImportReportDto run(Iterator<ImportRow<T>> rows, String keyName, Function<T, String> key,
+                                   ChunkUpsert<T> upsert) {
+        ImportReportDto report = new ImportReportDto();
+        // Ключ -> первая строка с ним: повтор в файле - ошибка, а не второе обновление
+        Map<String, Integer> seen = new HashMap<>();
+        ImportReader.forEachChunk(rows, chunkSize, chunk -> {
+            report.setTotalRows(report.getTotalRows() + chunk.size());
+            List<ImportRow<T>> valid = new ArrayList<>(chunk.size());
+            for (ImportRow<T> row : chunk) {
+                if (row.isFailed()) {
+                    report.addError(row.getNumber(), row.getError());
+                    continue;
+                }
+                String value = key.apply(row.getValue());
+                Integer first = value != null ? seen.putIfAbsent(value, row.getNumber()) : null;
+                if (first != null) {
+                    report.addError(row.getNumber(), "Duplicate " + keyName + ", first seen in row " + first);
+                    continue;
+                }
+                valid.add(row);
+            }
+            if (!valid.isEmpty()) {
+                upsertChunk(valid, upsert, report);
+            }
+        });
+        return report.complete();
+    }
+    
+    private <T> void upsertChunk(List<ImportRow<T>> rows, ChunkUpsert<T> upsert, ImportReportDto report) {
+        try {
+            ChunkResult result = transactionTemplate.execute(status -> {
+                ChunkResult chunkResult = new ChunkResult();
+                upsert.apply(rows, chunkResult);
+                return chunkResult;
+            });
+            report.setCreated(report.getCreated() + result.created);
+            report.setUpdated(report.getUpdated() + result.updated);
+            report.getErrors().addAll(result.errors);
+        } catch (DataAccessException e) {
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            rows.forEach(row -> report.addError(row.getNumber(), "Chunk rolled back: " + message));
+        }
+    }
+    
+    // Запись пачки внутри ее транзакции: строки уже без ошибок разбора и без повторов ключа.
+    // Найденные записи управляются сессией: изменения уйдут пакетными UPDATE при коммите,
+    // а кэш второго уровня обновится так же, как при обычном редактировании
+    @FunctionalInterface
+    public interface ChunkUpsert<T> {
+        void apply(List<ImportRow<T>> rows, ChunkResult result);
+    }
+    
+    // Итог пачки; попадает в отчет, только если транзакция пачки закоммичена
+    public static class ChunkResult {
+        private int created;
+        private int updated;
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+        
+        public void created(int count) {
+            created += count;
+        }
+        
+        public void updated() {
+            updated++;
+        }
+        
+        public void failed(int row, String message) {
+            errors.add(new ImportErrorDto(row, message));
+        }
+    }
+}
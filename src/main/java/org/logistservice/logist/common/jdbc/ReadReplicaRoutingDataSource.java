@@ -0,0 +1,136 @@
+package org.logistservice.logist.common.jdbc;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Выбор базы для соединения: read-only транзакции читают с реплик, все остальное идет на основную базу.
+// Решение принимается при получении соединения, поэтому источник должен стоять за LazyConnectionDataSourceProxy:
+// тогда соединение берется при первом операторе, когда признак read-only транзакции уже выставлен.
+// На основную базу read-only транзакция уходит, если:
+// - нет реплики, которая доступна и отстает не больше maxLag (реплики перебираются по кругу, отказавшая
+//   выводится из ротации до следующей проверки);
+// - тот же пользователь закоммитил запись меньше readYourWritesWindow назад и реплика может ее еще не видеть;
+// - чтение выполняется внутри onPrimary().
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+
+    // Сколько отметок о записи держать без очистки устаревших
+    private static final int RECENT_WRITERS_PRUNE_THRESHOLD = 10_000;
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<ReplicaPool> replicas;
+    private final Duration maxLag;
+    private final long readYourWritesWindowNanos;
+    private final Supplier<String> sessionKey;
+
+    // Ключ сессии -> System.nanoTime() последнего коммита записи. Только записи через этот узел:
+    // запись, сделанная на другом узле приложения, здесь не известна
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<ReplicaPool> replicas, Duration maxLag,
+                                        Duration readYourWritesWindow, Supplier<String> sessionKey) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        this.sessionKey = sessionKey;
+    }
+
+    // Чтения внутри выполняются на основной базе. Для данных, которые кладутся в кэш приложения:
+    // значение с отставшей реплики осталось бы там до следующего сброса
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            } else {
+                PRIMARY_ONLY.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String session = sessionKey.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriteOnCommit(session);
+            return primary.getConnection();
+        }
+        if (PRIMARY_ONLY.get() == null && !wroteRecently(session)) {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    private Connection replicaConnection() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            ReplicaPool replica = replicas.get((start + i) % size);
+            if (!replica.isAvailable(maxLag)) {
+                continue;
+            }
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replica.markDown();
+            }
+        }
+        return null;
+    }
+
+    private void rememberWriteOnCommit(String session) {
+        if (session == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long now = System.nanoTime();
+                recentWriters.put(session, now);
+                if (recentWriters.size() > RECENT_WRITERS_PRUNE_THRESHOLD) {
+                    recentWriters.values().removeIf(writtenAt -> now - writtenAt > readYourWritesWindowNanos);
+                }
+            }
+        });
+    }
+
+    private boolean wroteRecently(String session) {
+        if (session == null) {
+            return false;
+        }
+        Long writtenAt = recentWriters.get(session);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt > readYourWritesWindowNanos) {
+            recentWriters.remove(session, writtenAt);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package org.logistservice.logist.common.jdbc;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Периодическая проверка реплик в отдельном потоке: доступность и отставание.
+// Первая проверка выполняется при создании, чтобы реплики участвовали в чтении сразу после старта
+public class ReplicaHealthMonitor implements AutoCloseable {
+
+    private final List<ReplicaPool> replicas;
+    private final ScheduledExecutorService scheduler;
+
+    public ReplicaHealthMonitor(List<ReplicaPool> replicas, Duration interval) {
+        this.replicas = List.copyOf(replicas);
+        checkAll();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkAll, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public List<ReplicaPool> getReplicas() {
+        return replicas;
+    }
+
+    private void checkAll() {
+        replicas.forEach(ReplicaPool::check);
+    }
+
+    @Override
+    public void close() throws Exception {
+        scheduler.shutdownNow();
+        for (ReplicaPool replica : replicas) {
+            replica.close();
+        }
+    }
+}
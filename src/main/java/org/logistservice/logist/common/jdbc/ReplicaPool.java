@@ -0,0 +1,79 @@
+package org.logistservice.logist.common.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+// Пул соединений одной реплики и ее последнее известное состояние: доступность и отставание применения WAL.
+// До первой успешной проверки реплика считается недоступной, запросы идут на основную базу
+public class ReplicaPool implements AutoCloseable {
+
+    // Отставание в секундах. Если реплика применила все полученное и приемник WAL работает, отставания нет,
+    // даже если основная база давно ничего не писала; NULL - отставание неизвестно (еще ничего не применено).
+    // Не реплика (база для локальной проверки) отставания не имеет
+    private static final String LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() " +
+            "AND EXISTS (SELECT 1 FROM pg_stat_wal_receiver) THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final String name;
+    private final DataSource dataSource;
+
+    private volatile boolean up;
+    private volatile Duration lag;
+
+    public ReplicaPool(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    public Duration getLag() {
+        return lag;
+    }
+
+    public boolean isAvailable(Duration maxLag) {
+        Duration current = lag;
+        return up && current != null && current.compareTo(maxLag) <= 0;
+    }
+
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    // Ошибка соединения выводит реплику из ротации до следующей успешной проверки
+    public void markDown() {
+        up = false;
+    }
+
+    public void check() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            double seconds = resultSet.getDouble(1);
+            lag = resultSet.wasNull() ? null : Duration.ofMillis(Math.max(0, Math.round(seconds * 1000)));
+            up = true;
+        } catch (SQLException e) {
+            up = false;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
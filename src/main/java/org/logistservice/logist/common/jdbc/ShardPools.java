@@ -0,0 +1,43 @@
+package org.logistservice.logist.common.jdbc;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Пулы дополнительных шардов (1..n) и потоки для параллельных запросов ко всем шардам;
+// шард 0 - пул основной базы, которым управляет Spring Boot
+public class ShardPools implements AutoCloseable {
+
+    private final List<DataSource> dataSources;
+    private final ExecutorService queryExecutor;
+
+    public ShardPools(List<DataSource> dataSources, int queryThreads) {
+        this.dataSources = List.copyOf(dataSources);
+        AtomicInteger threads = new AtomicInteger();
+        this.queryExecutor = Executors.newFixedThreadPool(queryThreads, task -> {
+            Thread thread = new Thread(task, "shard-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    public ExecutorService getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    @Override
+    public void close() throws Exception {
+        queryExecutor.shutdown();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.logistservice.logist.common.jdbc;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Выбор шарда для соединения по шарду, установленному в текущем потоке через onShard(); без него - шард 0
+// (основная база со справочниками). Как и ReadReplicaRoutingDataSource, стоит за LazyConnectionDataSourceProxy:
+// транзакция получает соединение при первом операторе, поэтому шард нужно выбрать до него и не менять до конца транзакции
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    public static <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static int currentShard() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.get(currentShard()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return shards.get(currentShard()).getConnection(username, password);
+    }
+}
@@ -0,0 +1,30 @@
+package org.logistservice.logist.common.jdbc;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+// Отдает число JDBC-операторов запроса в заголовке ответа. Тело буферизуется, иначе
+// заголовок нельзя добавить после того, как контроллер начал писать ответ
+public class StatementCountFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "X-Statement-Count";
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StatementCounter.start();
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            wrapper.setHeader(HEADER, Long.toString(StatementCounter.stop()));
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.logistservice.logist.common.jdbc;
+
+// Счетчик выполненных в текущем потоке JDBC-операторов (execute*, executeBatch - один оператор на пакет).
+// Считает только между start() и stop(): фоновые потоки и запросы без включенного счетчика не затрагиваются
+public final class StatementCounter {
+    
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+    
+    private StatementCounter() {
+    }
+    
+    public static void start() {
+        COUNT.set(new long[1]);
+    }
+    
+    public static long stop() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+    
+    public static long current() {
+        long[] count = COUNT.get();
+        return count != null ? count[0] : 0;
+    }
+    
+    static void increment() {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.logistservice.logist.common.repository;
+
+import org.logistservice.logist.common.enums.SortDirection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+
+// Условия фильтров и сортировка справочников для выборок в БД; пустое значение фильтра условия не добавляет
+public final class ListSpecifications {
+
+    private ListSpecifications() {
+    }
+
+    // Подстрока без учета регистра, как фильтры списков в памяти
+    public static <T> Specification<T> containsIgnoreCase(String attribute, String text) {
+        if (!StringUtils.hasText(text)) {
+            return Specification.unrestricted();
+        }
+        String pattern = "%" + escapeLike(text.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(attribute)), pattern, '\\');
+    }
+
+    public static <T> Specification<T> equalTo(String attribute, Object value) {
+        if (value == null) {
+            return Specification.unrestricted();
+        }
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    // Сортировка с добором по id, чтобы порядок равных значений не менялся между запросами;
+    // без поля сортировки - по id. Строки сравниваются без учета регистра, как в списках в памяти
+    public static Sort orderBy(String property, boolean ignoreCase, SortDirection sortDirection) {
+        if (property == null) {
+            return Sort.by("id");
+        }
+        Sort.Order order = Sort.Order.by(property)
+                .with(sortDirection == SortDirection.DESC ? Sort.Direction.DESC : Sort.Direction.ASC);
+        if ("id".equals(property)) {
+            return Sort.by(order);
+        }
+        return Sort.by(ignoreCase ? order.ignoreCase() : order, Sort.Order.asc("id"));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
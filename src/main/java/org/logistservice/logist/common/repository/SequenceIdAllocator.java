@@ -0,0 +1,21 @@
+package org.logistservice.logist.common.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Резервирование id для пакетной вставки через JDBC. IDENTITY не дает Hibernate группировать вставки,
+// поэтому id берутся одним запросом из последовательности identity-столбца и пишутся явно
+@Repository
+@RequiredArgsConstructor
+public class SequenceIdAllocator {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public List<Long> allocate(String table, int count) {
+        return jdbcTemplate.queryForList("SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)",
+                Long.class, table, count);
+    }
+}
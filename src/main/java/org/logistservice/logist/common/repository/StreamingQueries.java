@@ -0,0 +1,67 @@
+package org.logistservice.logist.common.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Чтение больших выборок однонаправленным курсором: драйвер получает строки порциями по app.streaming.fetch-size,
+// и память не зависит от размера выборки. Работает только внутри транзакции - вне ее драйвер PostgreSQL
+// читает весь результат сразу. Поток нужно закрыть (try-with-resources), иначе курсор держится до конца транзакции
+@Repository
+public class StreamingQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int fetchSize;
+
+    public StreamingQueries(@Value("${app.streaming.fetch-size:500}") int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("app.streaming.fetch-size must be positive");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    // Прочитанное не попадает в кэш второго уровня, чтобы выгрузка не вытесняла из него рабочие записи
+    public <T> Stream<T> stream(TypedQuery<T> query) {
+        return query
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream();
+    }
+
+    // Сущности отсоединяются сразу после преобразования, контекст персистентности не растет;
+    // mapper не должен обращаться к ленивым связям
+    public <T, R> Stream<R> stream(Class<T> type, Specification<T> spec, Sort sort, Function<T, R> mapper) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return stream(entityManager.createQuery(query)).map(entity -> {
+            R result = mapper.apply(entity);
+            entityManager.detach(entity);
+            return result;
+        });
+    }
+}
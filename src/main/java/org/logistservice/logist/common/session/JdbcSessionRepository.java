@@ -0,0 +1,141 @@
+package org.logistservice.logist.common.session;
+
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Сессии в таблицах ui_sessions / ui_session_attributes (V5). Чтение сессии - одна строка по id,
+// атрибуты читаются одним запросом при первом обращении к ним. Сохранение - одна транзакция: строка
+// сессии и пакетами (batch) запись измененных и удаление удаленных атрибутов. Значения - сериализация Java.
+// Запись и чтение идут на основную базу: запрос без транзакции или в транзакции на запись
+public class JdbcSessionRepository implements SessionRepository, AutoCloseable {
+
+    private static final String SELECT_SESSION =
+            "SELECT creation_time, last_access_time, max_inactive_interval FROM ui_sessions WHERE id = ? AND expiry_time > ?";
+    private static final String SELECT_ATTRIBUTES =
+            "SELECT attribute_name, attribute_bytes FROM ui_session_attributes WHERE session_id = ?";
+    private static final String INSERT_SESSION =
+            "INSERT INTO ui_sessions (id, creation_time, last_access_time, max_inactive_interval, expiry_time) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SESSION =
+            "UPDATE ui_sessions SET id = ?, last_access_time = ?, max_inactive_interval = ?, expiry_time = ? WHERE id = ?";
+    private static final String UPSERT_ATTRIBUTE =
+            "INSERT INTO ui_session_attributes (session_id, attribute_name, attribute_bytes) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (session_id, attribute_name) DO UPDATE SET attribute_bytes = EXCLUDED.attribute_bytes";
+    private static final String DELETE_ATTRIBUTE =
+            "DELETE FROM ui_session_attributes WHERE session_id = ? AND attribute_name = ?";
+    private static final String DELETE_SESSION = "DELETE FROM ui_sessions WHERE id = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM ui_sessions WHERE expiry_time <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer;
+    private final ScheduledExecutorService scheduler;
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 Duration cleanupInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Загрузчик классов приложения, а не системный: иначе классы приложения не находятся при запуске с devtools
+        this.deserializer = new DeserializingConverter(getClass().getClassLoader());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = cleanupInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::deleteExpired, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public StoredSession find(String id) {
+        List<StoredSession> found = jdbcTemplate.query(SELECT_SESSION, (rs, rowNum) -> new StoredSession(id,
+                        rs.getLong("creation_time"),
+                        rs.getLong("last_access_time"),
+                        rs.getInt("max_inactive_interval"),
+                        () -> loadAttributes(id),
+                        this::deserialize),
+                id, System.currentTimeMillis());
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @Override
+    public void save(StoredSession session) {
+        if (!session.isNew() && !session.isChanged() && session.getChangedAttributes().isEmpty()) {
+            return;
+        }
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        session.getChangedAttributes().forEach((name, value) -> {
+            if (value != null) {
+                upserts.add(new Object[]{session.getId(), name, serializer.convert(value)});
+            } else {
+                deletes.add(new Object[]{session.getId(), name});
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            if (session.isNew()) {
+                jdbcTemplate.update(INSERT_SESSION, session.getId(), session.getCreationTime(),
+                        session.getLastAccessedTime(), session.getMaxInactiveInterval(), session.getExpiryTime());
+            } else if (jdbcTemplate.update(UPDATE_SESSION, session.getId(), session.getLastAccessedTime(),
+                    session.getMaxInactiveInterval(), session.getExpiryTime(), session.getStoredId()) == 0) {
+                // Сессию удалили (выход на другом узле, истечение) - ее атрибуты не восстанавливаются
+                return;
+            }
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_ATTRIBUTE, upserts);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_ATTRIBUTE, deletes);
+            }
+        });
+        session.markSaved();
+    }
+
+    @Override
+    public void delete(String id) {
+        jdbcTemplate.update(DELETE_SESSION, id);
+    }
+
+    private Map<String, byte[]> loadAttributes(String id) {
+        Map<String, byte[]> attributes = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_ATTRIBUTES,
+                rs -> {
+                    attributes.put(rs.getString("attribute_name"), rs.getBytes("attribute_bytes"));
+                },
+                id);
+        return attributes;
+    }
+
+    private Object deserialize(byte[] bytes) {
+        try {
+            return deserializer.convert(bytes);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void deleteExpired() {
+        try {
+            jdbcTemplate.update(DELETE_EXPIRED, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Повторится при следующей очистке; истекшие сессии и так не читаются
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,14 @@
+package org.logistservice.logist.common.session;
+
+// Хранилище HTTP-сессий веб-интерфейса вне контейнера сервлетов: сессия доступна на любом узле
+// и переживает перезапуск. Реализация выбирается в SessionStoreConfig (app.session.store)
+public interface SessionRepository {
+
+    // null, если сессии нет или она истекла. Атрибуты реализация может читать при первом обращении
+    StoredSession find(String id);
+
+    // Записывает только изменения с прошлого сохранения: поля сессии и измененные атрибуты
+    void save(StoredSession session);
+
+    void delete(String id);
+}
@@ -0,0 +1,208 @@
+package org.logistservice.logist.common.session;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Подменяет сессии контейнера сервлетов сессиями из SessionRepository; id сессии передается в cookie.
+// Запрос, который не обращается к сессии (API по JWT, статика), хранилище не читает. Изменения сохраняются
+// в конце запроса, а при перенаправлении и ошибке - до отправки ответа: следующий запрос браузера
+// может прийти на другой узел сразу после перенаправления
+public class SessionRepositoryFilter extends OncePerRequestFilter {
+
+    private final SessionRepository repository;
+    private final String cookieName;
+    private final Duration maxInactiveInterval;
+
+    public SessionRepositoryFilter(SessionRepository repository, String cookieName, Duration maxInactiveInterval) {
+        this.repository = repository;
+        this.cookieName = cookieName;
+        this.maxInactiveInterval = maxInactiveInterval;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SessionRequest sessionRequest = new SessionRequest(request, response);
+        try {
+            filterChain.doFilter(sessionRequest, new SessionResponse(response, sessionRequest));
+        } finally {
+            sessionRequest.commitSession();
+        }
+    }
+
+    // Страница ошибки выполняется отдельным проходом после завершения запроса и тоже работает с сессией
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    private final class SessionRequest extends HttpServletRequestWrapper {
+
+        private final HttpServletResponse response;
+        private boolean requestedSessionRead;
+        private boolean requestedSessionValid;
+        private StoredHttpSession current;
+
+        SessionRequest(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (current != null && !current.isInvalidated()) {
+                return current;
+            }
+            if (!requestedSessionRead) {
+                requestedSessionRead = true;
+                String requestedId = getRequestedSessionId();
+                StoredSession stored = requestedId != null ? repository.find(requestedId) : null;
+                if (stored != null) {
+                    stored.setLastAccessedTime(System.currentTimeMillis());
+                    requestedSessionValid = true;
+                    current = wrap(stored, false);
+                    return current;
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            StoredSession created = new StoredSession(maxInactiveInterval);
+            current = wrap(created, true);
+            writeCookie(created.getId(), false);
+            return current;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public String changeSessionId() {
+            if (getSession(false) == null) {
+                throw new IllegalStateException("Cannot change session id: no session associated with the request");
+            }
+            String id = current.getStoredSession().changeId();
+            writeCookie(id, false);
+            return id;
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            Cookie cookie = WebUtils.getCookie(this, cookieName);
+            return cookie != null && !cookie.getValue().isEmpty() ? cookie.getValue() : null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            getSession(false);
+            return requestedSessionValid;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return getRequestedSessionId() != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        void commitSession() {
+            if (current != null && !current.isInvalidated()) {
+                repository.save(current.getStoredSession());
+            }
+        }
+
+        private StoredHttpSession wrap(StoredSession stored, boolean created) {
+            return new StoredHttpSession(stored, getServletContext(), created, () -> {
+                if (!stored.isNew()) {
+                    repository.delete(stored.getStoredId());
+                }
+                requestedSessionValid = false;
+                writeCookie("", true);
+            });
+        }
+
+        // Новый Set-Cookie для той же cookie заменяет прежний: после выхода и нового входа
+        // в одном запросе браузер получит id новой сессии
+        private void writeCookie(String value, boolean expire) {
+            String contextPath = getContextPath();
+            ResponseCookie cookie = ResponseCookie.from(cookieName, value)
+                    .path(contextPath.isEmpty() ? "/" : contextPath)
+                    .httpOnly(true)
+                    .secure(isSecure())
+                    .sameSite("Lax")
+                    .maxAge(expire ? Duration.ZERO : Duration.ofSeconds(-1))
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+    }
+
+    private static final class SessionResponse extends HttpServletResponseWrapper {
+
+        private final SessionRequest request;
+
+        SessionResponse(HttpServletResponse response, SessionRequest request) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            request.commitSession();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendRedirect(String location, boolean clearBuffer) throws IOException {
+            request.commitSession();
+            super.sendRedirect(location, clearBuffer);
+        }
+
+        @Override
+        public void sendRedirect(String location, int sc) throws IOException {
+            request.commitSession();
+            super.sendRedirect(location, sc);
+        }
+
+        @Override
+        public void sendRedirect(String location, int sc, boolean clearBuffer) throws IOException {
+            request.commitSession();
+            super.sendRedirect(location, sc, clearBuffer);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            request.commitSession();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            request.commitSession();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            request.commitSession();
+            super.flushBuffer();
+        }
+    }
+}
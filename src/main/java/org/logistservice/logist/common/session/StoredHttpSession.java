@@ -0,0 +1,107 @@
+package org.logistservice.logist.common.session;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpSession;
+
+import java.util.Collections;
+import java.util.Enumeration;
+
+// HttpSession поверх StoredSession для кода приложения и Spring Security
+class StoredHttpSession implements HttpSession {
+
+    private final StoredSession session;
+    private final ServletContext servletContext;
+    private final boolean created;
+    private final Runnable onInvalidate;
+    private boolean invalidated;
+
+    StoredHttpSession(StoredSession session, ServletContext servletContext, boolean created, Runnable onInvalidate) {
+        this.session = session;
+        this.servletContext = servletContext;
+        this.created = created;
+        this.onInvalidate = onInvalidate;
+    }
+
+    StoredSession getStoredSession() {
+        return session;
+    }
+
+    boolean isInvalidated() {
+        return invalidated;
+    }
+
+    @Override
+    public long getCreationTime() {
+        checkValid();
+        return session.getCreationTime();
+    }
+
+    @Override
+    public String getId() {
+        return session.getId();
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        checkValid();
+        return session.getLastAccessedTime();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        session.setMaxInactiveInterval(interval);
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return session.getMaxInactiveInterval();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        checkValid();
+        return session.getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        checkValid();
+        return Collections.enumeration(session.getAttributeNames());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        checkValid();
+        session.setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        checkValid();
+        session.removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+        checkValid();
+        invalidated = true;
+        onInvalidate.run();
+    }
+
+    @Override
+    public boolean isNew() {
+        checkValid();
+        return created;
+    }
+
+    private void checkValid() {
+        if (invalidated) {
+            throw new IllegalStateException("Session " + session.getId() + " has been invalidated");
+        }
+    }
+}
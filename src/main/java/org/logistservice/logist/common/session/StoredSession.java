@@ -0,0 +1,173 @@
+package org.logistservice.logist.common.session;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Состояние сессии в пределах одного запроса с учетом изменений: SessionRepository.save пишет только то,
+// что изменилось. Атрибуты сохраненной сессии читаются из хранилища при первом обращении к любому из них,
+// а каждое значение десериализуется при первом чтении. Изменениями считаются setAttribute/removeAttribute:
+// объект, полученный из сессии и измененный на месте, нужно положить обратно.
+// Одновременные запросы одной сессии работают с разными экземплярами, при записи побеждает последний
+public class StoredSession {
+
+    private String id;
+    // Id в хранилище; null, пока новая сессия не сохранена
+    private String storedId;
+    private final long creationTime;
+    private long lastAccessedTime;
+    private int maxInactiveInterval;
+    private boolean changed;
+
+    private Supplier<Map<String, byte[]>> attributeLoader;
+    private final Function<byte[], Object> deserializer;
+    private Map<String, Object> attributes;
+    private final Map<String, Object> changedAttributes = new HashMap<>();
+
+    // Новая сессия, еще не сохраненная
+    public StoredSession(Duration maxInactiveInterval) {
+        this.id = UUID.randomUUID().toString();
+        this.creationTime = System.currentTimeMillis();
+        this.lastAccessedTime = creationTime;
+        this.maxInactiveInterval = (int) maxInactiveInterval.toSeconds();
+        this.deserializer = bytes -> null;
+        this.attributes = new LinkedHashMap<>();
+        this.changed = true;
+    }
+
+    // Сессия из хранилища; deserializer возвращает null для значения, которое не удалось прочитать
+    public StoredSession(String id, long creationTime, long lastAccessedTime, int maxInactiveInterval,
+                         Supplier<Map<String, byte[]>> attributeLoader, Function<byte[], Object> deserializer) {
+        this.id = id;
+        this.storedId = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.attributeLoader = attributeLoader;
+        this.deserializer = deserializer;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStoredId() {
+        return storedId;
+    }
+
+    public boolean isNew() {
+        return storedId == null;
+    }
+
+    // Новый id при входе (защита от фиксации сессии); в хранилище меняется при сохранении
+    public String changeId() {
+        id = UUID.randomUUID().toString();
+        changed = true;
+        return id;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    public void setLastAccessedTime(long lastAccessedTime) {
+        this.lastAccessedTime = lastAccessedTime;
+        changed = true;
+    }
+
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    public void setMaxInactiveInterval(int maxInactiveInterval) {
+        this.maxInactiveInterval = maxInactiveInterval;
+        changed = true;
+    }
+
+    // Интервал <= 0 - сессия не истекает
+    public long getExpiryTime() {
+        return maxInactiveInterval > 0 ? lastAccessedTime + maxInactiveInterval * 1000L : Long.MAX_VALUE;
+    }
+
+    public Object getAttribute(String name) {
+        Map<String, Object> loaded = attributes();
+        Object value = loaded.get(name);
+        if (value instanceof Serialized serialized) {
+            value = deserializer.apply(serialized.bytes());
+            if (value != null) {
+                loaded.put(name, value);
+            } else {
+                // Значение, которое не читается (например, класс изменился после обновления), удаляется
+                removeAttribute(name);
+            }
+        }
+        return value;
+    }
+
+    public Set<String> getAttributeNames() {
+        return Set.copyOf(attributes().keySet());
+    }
+
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        // Значение сериализуется при сохранении в конце запроса, когда ответ уже сформирован: такое значение
+        // отклоняется сразу, в коде, который его положил
+        if (!(value instanceof Serializable)) {
+            throw new IllegalArgumentException("Session attribute '" + name + "' is not Serializable: "
+                    + value.getClass().getName());
+        }
+        attributes().put(name, value);
+        changedAttributes.put(name, value);
+    }
+
+    public void removeAttribute(String name) {
+        if (attributes().remove(name) == null) {
+            return;
+        }
+        if (isNew()) {
+            changedAttributes.remove(name);
+        } else {
+            changedAttributes.put(name, null);
+        }
+    }
+
+    public boolean isChanged() {
+        return changed;
+    }
+
+    // Имя -> новое значение; null - атрибут удален
+    public Map<String, Object> getChangedAttributes() {
+        return changedAttributes;
+    }
+
+    public void markSaved() {
+        storedId = id;
+        changed = false;
+        changedAttributes.clear();
+    }
+
+    private Map<String, Object> attributes() {
+        if (attributes == null) {
+            attributes = new LinkedHashMap<>();
+            attributeLoader.get().forEach((name, bytes) -> attributes.put(name, new Serialized(bytes)));
+            attributeLoader = null;
+        }
+        return attributes;
+    }
+
+    private record Serialized(byte[] bytes) {
+    }
+}
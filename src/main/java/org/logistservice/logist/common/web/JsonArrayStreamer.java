@@ -0,0 +1,40 @@
+package org.logistservice.logist.common.web;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+
+import java.util.function.Consumer;
+
+// Ответ-массив JSON, который пишется по мере чтения строк: каждый элемент сериализуется генератором
+// прямо в поток ответа, весь список в памяти не собирается. Тело выполняется после выхода из контроллера,
+// в потоке асинхронной обработки запроса (spring.mvc.async.request-timeout), с тем же пользователем.
+// Ошибка после начала записи обрывает ответ: клиент получит незакрытый массив
+@Component
+public class JsonArrayStreamer {
+
+    private final ObjectWriter writer;
+
+    public JsonArrayStreamer(ObjectMapper objectMapper) {
+        // Сброс после каждого элемента отправлял бы по элементу на пакет; данные уходят по заполнении буфера ответа
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> rows) {
+        StreamingResponseBody body = output -> {
+            try (JsonGenerator generator = writer.createGenerator(output)) {
+                generator.writeStartArray();
+                rows.accept(row -> writer.writeValue(generator, row));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,64 @@
+package org.logistservice.logist.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+@Configuration
+@EnableConfigurationProperties(LocalCacheProperties.class)
+public class CacheConfig {
+
+    // Локальный JCache-менеджер на Caffeine: регионы второго уровня Hibernate и кэши приложения
+    @Bean(destroyMethod = "close")
+    public CacheManager jcacheManager(LocalCacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        LocalCacheProperties.Region defaults = properties.getDefaults();
+        properties.getRegions().forEach((name, region) -> {
+            if (cacheManager.getCache(name) == null) {
+                cacheManager.createCache(name, toConfiguration(region, defaults));
+            }
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager jcacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, jcacheManager);
+    }
+
+    private CaffeineConfiguration<Object, Object> toConfiguration(LocalCacheProperties.Region region,
+                                                                  LocalCacheProperties.Region defaults) {
+        Long maxSize = region.getMaxSize() != null ? region.getMaxSize() : defaults.getMaxSize();
+        Duration expireAfterWrite = region.getExpireAfterWrite() != null
+                ? region.getExpireAfterWrite() : defaults.getExpireAfterWrite();
+        Duration expireAfterAccess = region.getExpireAfterAccess() != null
+                ? region.getExpireAfterAccess() : defaults.getExpireAfterAccess();
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate кладёт в кэш неизменяемые разобранные состояния, копировать их при каждом чтении незачем
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (expireAfterWrite != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        if (expireAfterAccess != null) {
+            configuration.setExpireAfterAccess(OptionalLong.of(expireAfterAccess.toNanos()));
+        }
+        return configuration;
+    }
+}
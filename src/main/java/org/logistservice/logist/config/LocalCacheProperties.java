@@ -0,0 +1,30 @@
+package org.logistservice.logist.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.cache")
+@Getter
+@Setter
+public class LocalCacheProperties {
+
+    // Значения для регионов, у которых параметр не задан явно
+    private Region defaults = new Region();
+
+    // Регионы кэша по имени; Hibernate не стартует, если региона сущности здесь нет
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        // Максимальное число записей, сверх него Caffeine вытесняет по W-TinyLFU
+        private Long maxSize;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+    }
+}
@@ -0,0 +1,104 @@
+package org.logistservice.logist.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.logistservice.logist.common.jdbc.ReadReplicaRoutingDataSource;
+import org.logistservice.logist.common.jdbc.ReplicaHealthMonitor;
+import org.logistservice.logist.common.jdbc.ReplicaPool;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Чтение с реплик: app.read-replicas.enabled=true и хотя бы один app.read-replicas.nodes[i].url.
+// Пул основной базы по-прежнему создает Spring Boot, здесь он оборачивается маршрутизацией
+@Configuration
+@ConditionalOnProperty(name = "app.read-replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaHealthMonitor replicaHealthMonitor(ReadReplicaProperties properties) {
+        if (properties.getNodes().isEmpty()) {
+            throw new IllegalStateException("Read replicas are enabled but app.read-replicas.nodes is empty");
+        }
+        List<ReplicaPool> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            String name = "replica-" + i;
+            replicas.add(new ReplicaPool(name, replicaDataSource(name, properties.getNodes().get(i))));
+        }
+        return new ReplicaHealthMonitor(replicas, properties.getHealthCheckInterval());
+    }
+
+    // Раньше остальных обработчиков: счетчик обращений (StatementCounterConfig) оборачивает уже
+    // маршрутизирующий источник и видит запросы и к основной базе, и к репликам
+    @Bean
+    public static RoutingDataSourcePostProcessor readReplicaRoutingPostProcessor(
+            ObjectProvider<ReplicaHealthMonitor> monitor, ObjectProvider<ReadReplicaProperties> properties) {
+        return new RoutingDataSourcePostProcessor(monitor, properties);
+    }
+
+    private static HikariDataSource replicaDataSource(String name, ReadReplicaProperties.Node node) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(node.getUrl());
+        config.setUsername(node.getUsername());
+        config.setPassword(node.getPassword());
+        config.setMaximumPoolSize(node.getMaximumPoolSize());
+        config.setConnectionTimeout(node.getConnectionTimeout().toMillis());
+        config.setReadOnly(true);
+        // Недоступная при старте реплика не мешает запуску: она войдет в ротацию после успешной проверки
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    // Ключ сессии для чтения своих записей - имя пользователя из токена
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    public static class RoutingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReplicaHealthMonitor> monitor;
+        private final ObjectProvider<ReadReplicaProperties> properties;
+
+        RoutingDataSourcePostProcessor(ObjectProvider<ReplicaHealthMonitor> monitor,
+                                       ObjectProvider<ReadReplicaProperties> properties) {
+            this.monitor = monitor;
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof LazyConnectionDataSourceProxy) {
+                return bean;
+            }
+            ReadReplicaProperties settings = properties.getObject();
+            ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary,
+                    monitor.getObject().getReplicas(), settings.getMaxLag(), settings.getReadYourWritesWindow(),
+                    ReadReplicaConfig::currentUsername);
+            return new LazyConnectionDataSourceProxy(routing);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.logistservice.logist.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.read-replicas")
+@Getter
+@Setter
+public class ReadReplicaProperties {
+
+    // Реплика с большим отставанием не получает чтений, пока не догонит основную базу
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    // Сколько после коммита записи чтения того же пользователя идут на основную базу
+    private Duration readYourWritesWindow = Duration.ofSeconds(10);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        // Короткое ожидание соединения: при недоступной реплике чтение быстро уходит на основную базу
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+}
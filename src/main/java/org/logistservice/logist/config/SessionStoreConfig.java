@@ -0,0 +1,44 @@
+package org.logistservice.logist.config;
+
+import org.logistservice.logist.common.session.JdbcSessionRepository;
+import org.logistservice.logist.common.session.SessionRepository;
+import org.logistservice.logist.common.session.SessionRepositoryFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+// Сессии веб-интерфейса в общем хранилище: app.session.store=jdbc (по умолчанию). Любой узел обслуживает
+// любую сессию, вход переживает перезапуск. Другое хранилище - своя реализация SessionRepository здесь;
+// app.session.store=container возвращает сессии контейнера сервлетов
+@Configuration
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc", matchIfMissing = true)
+@EnableConfigurationProperties(SessionStoreProperties.class)
+public class SessionStoreConfig {
+
+    @Bean(destroyMethod = "close")
+    public JdbcSessionRepository jdbcSessionRepository(JdbcTemplate jdbcTemplate,
+                                                       PlatformTransactionManager transactionManager,
+                                                       SessionStoreProperties properties) {
+        return new JdbcSessionRepository(jdbcTemplate, transactionManager, properties.getCleanupInterval());
+    }
+
+    // Раньше фильтров безопасности, которые читают контекст из сессии, но после счетчика обращений к БД
+    // (StatementCounterConfig): чтение и запись сессии входят в счет запроса
+    @Bean
+    public FilterRegistrationBean<SessionRepositoryFilter> sessionRepositoryFilter(
+            SessionRepository sessionRepository, SessionStoreProperties properties,
+            @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        FilterRegistrationBean<SessionRepositoryFilter> registration = new FilterRegistrationBean<>(
+                new SessionRepositoryFilter(sessionRepository, properties.getCookieName(), timeout));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 50);
+        return registration;
+    }
+}
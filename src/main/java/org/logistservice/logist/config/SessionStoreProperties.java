@@ -0,0 +1,21 @@
+package org.logistservice.logist.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.session")
+@Getter
+@Setter
+public class SessionStoreProperties {
+
+    // jdbc - общее хранилище в БД; container - сессии в памяти узла (нужны sticky sessions)
+    private String store = "jdbc";
+
+    // Отличается от JSESSIONID, чтобы cookie старых сессий контейнера не принимались за id сессии хранилища
+    private String cookieName = "SESSION";
+
+    private Duration cleanupInterval = Duration.ofMinutes(5);
+}
@@ -0,0 +1,149 @@
+package org.logistservice.logist.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.logistservice.logist.common.jdbc.ShardPools;
+import org.logistservice.logist.common.jdbc.ShardRoutingDataSource;
+import org.logistservice.logist.order.service.OrderShards;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// Шардирование заказов по регионам: app.sharding.enabled=true и app.sharding.shards[i].url.
+// Шард 0 - основная база (spring.datasource, вместе с репликами, если они включены), шарды 1..n - отдельные базы
+// с той же схемой. Какие данные на каком шарде и как выбирается шард - в OrderShards
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    private static final String[] SHARDED_TABLES = {"orders", "order_assignments", "order_status_history"};
+
+    @Bean(destroyMethod = "close")
+    public ShardPools shardPools(ShardingProperties properties, Environment environment) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("Sharding is enabled but app.sharding.shards is empty");
+        }
+        if (properties.getShards().size() >= OrderShards.MAX_SHARDS) {
+            throw new IllegalStateException("At most " + (OrderShards.MAX_SHARDS - 1) + " shards are supported");
+        }
+        // Те же свойства драйвера, что у основного пула (reWriteBatchedInserts для пакетных вставок)
+        Map<String, String> driverProperties = Binder.get(environment)
+                .bind("spring.datasource.hikari.data-source-properties", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            dataSources.add(shardDataSource("shard-" + (i + 1), properties.getShards().get(i), driverProperties));
+        }
+        return new ShardPools(dataSources, properties.getQueryThreads());
+    }
+
+    // Схема шардов накатывается теми же миграциями, что и основная база; затем последовательности шарда k
+    // сдвигаются к k << OrderShards.ID_SHIFT (только вперед, повторный запуск ничего не меняет), а внешние ключи
+    // заказов на справочники снимаются: справочники ведутся на шарде 0, на шарде k - только их реплики для чтения,
+    // и ссылки записей на шард k проверяет приложение (OrderReferences)
+    @Bean
+    public InitializingBean shardSchemaMigration(Flyway flyway, ShardPools shardPools) {
+        return () -> {
+            List<DataSource> dataSources = shardPools.getDataSources();
+            for (int i = 0; i < dataSources.size(); i++) {
+                DataSource dataSource = dataSources.get(i);
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource)
+                        .load()
+                        .migrate();
+                JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+                moveIdSequences(jdbc, (long) (i + 1) << OrderShards.ID_SHIFT);
+                dropReferenceForeignKeys(jdbc);
+            }
+        };
+    }
+
+    // После обработчика реплик: маршрутизация по шардам оборачивает уже маршрутизирующий по репликам шард 0,
+    // а счетчик обращений (StatementCounterConfig) - всю конструкцию
+    @Bean
+    public static ShardRoutingPostProcessor shardRoutingPostProcessor(ObjectProvider<ShardPools> shardPools) {
+        return new ShardRoutingPostProcessor(shardPools);
+    }
+
+    private static void moveIdSequences(JdbcTemplate jdbc, long base) {
+        for (String table : SHARDED_TABLES) {
+            String sequence = jdbc.queryForObject("SELECT pg_get_serial_sequence(?, 'id')", String.class, table);
+            Long lastValue = jdbc.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+            if (lastValue == null || lastValue < base) {
+                jdbc.queryForObject("SELECT setval(?::regclass, ?, false)", Long.class, sequence, base);
+            }
+        }
+    }
+
+    // Ключи между таблицами заказов (назначение -> заказ) остаются. Снимаются и ключи, добавленные
+    // более поздними миграциями: шаг выполняется при каждом запуске
+    private static void dropReferenceForeignKeys(JdbcTemplate jdbc) {
+        String tables = "'" + String.join("', '", SHARDED_TABLES) + "'";
+        List<Map<String, Object>> foreignKeys = jdbc.queryForList(
+                "SELECT conrelid::regclass::text AS table_name, conname FROM pg_constraint " +
+                "WHERE contype = 'f' AND conrelid::regclass::text IN (" + tables + ") " +
+                "AND confrelid::regclass::text NOT IN (" + tables + ")");
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbc.execute("ALTER TABLE " + foreignKey.get("table_name") +
+                    " DROP CONSTRAINT IF EXISTS \"" + foreignKey.get("conname") + "\"");
+        }
+    }
+
+    private static HikariDataSource shardDataSource(String name, ShardingProperties.Shard shard,
+                                                    Map<String, String> driverProperties) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(shard.getUrl());
+        config.setUsername(shard.getUsername());
+        config.setPassword(shard.getPassword());
+        config.setMaximumPoolSize(shard.getMaximumPoolSize());
+        Properties dataSourceProperties = new Properties();
+        dataSourceProperties.putAll(driverProperties);
+        config.setDataSourceProperties(dataSourceProperties);
+        return new HikariDataSource(config);
+    }
+
+    public static class ShardRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ShardPools> shardPools;
+
+        ShardRoutingPostProcessor(ObjectProvider<ShardPools> shardPools) {
+            this.shardPools = shardPools;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary)) {
+                return bean;
+            }
+            List<DataSource> shards = new ArrayList<>();
+            shards.add(primary);
+            shards.addAll(shardPools.getObject().getDataSources());
+            return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.logistservice.logist.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.sharding")
+@Getter
+@Setter
+public class ShardingProperties {
+
+    // Регион -> города отправления (без учета регистра)
+    private Map<String, List<String>> regions = new LinkedHashMap<>();
+
+    // Дополнительные шарды, i-й элемент - шард i + 1. Шард 0 - основная база (spring.datasource):
+    // справочники и заказы регионов, не отнесенных ни к одному шарду
+    private List<Shard> shards = new ArrayList<>();
+
+    // Потоков для параллельных запросов ко всем шардам (списки, статистика)
+    private int queryThreads = 8;
+
+    // Сколько строк с каждого шарда может прочитать страница списка по номеру: страница page читает
+    // (page + 1) * size строк с каждого шарда, более глубокие страницы - только курсором
+    private int maxOffsetRows = 10000;
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        private List<String> regions = new ArrayList<>();
+    }
+}
@@ -0,0 +1,40 @@
+package org.logistservice.logist.config;
+
+import org.logistservice.logist.common.jdbc.StatementCountFilter;
+import org.logistservice.logist.common.jdbc.StatementCountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+// Диагностика числа обращений к БД на запрос: app.statement-counter.enabled=true.
+// Выключено по умолчанию - обертка добавляет прокси на каждый оператор и буферизует ответы
+@Configuration
+@ConditionalOnProperty(name = "app.statement-counter.enabled", havingValue = "true")
+public class StatementCounterConfig {
+    
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+    
+    // Раньше фильтров безопасности: в счет попадает и загрузка пользователя по токену
+    @Bean
+    public FilterRegistrationBean<StatementCountFilter> statementCountFilter() {
+        FilterRegistrationBean<StatementCountFilter> registration = new FilterRegistrationBean<>(new StatementCountFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,43 @@
+package org.logistservice.logist.config;
+
+import org.logistservice.logist.order.repository.OrderRepository;
+import org.logistservice.logist.order.service.OrderShards;
+import org.logistservice.logist.stats.service.StatsRollupService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Заполняет дневные агрегаты статистики при первом запуске и пересобирает их по аргументу
+// --rebuild-stats-rollups. Срабатывает после всех ApplicationRunner, в том числе DataInitializer.
+// Агрегаты хранятся на каждом шарде заказов и проверяются по отдельности
+@Component
+public class StatsRollupInitializer {
+    
+    public static final String REBUILD_OPTION = "rebuild-stats-rollups";
+    
+    private final StatsRollupService statsRollupService;
+    private final OrderRepository orderRepository;
+    private final OrderShards orderShards;
+    private final ApplicationArguments applicationArguments;
+    
+    public StatsRollupInitializer(StatsRollupService statsRollupService,
+                                  OrderRepository orderRepository,
+                                  OrderShards orderShards,
+                                  ApplicationArguments applicationArguments) {
+        this.statsRollupService = statsRollupService;
+        this.orderRepository = orderRepository;
+        this.orderShards = orderShards;
+        this.applicationArguments = applicationArguments;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void initRollups() {
+        boolean rebuild = applicationArguments.containsOption(REBUILD_OPTION);
+        orderShards.writeAll(shard -> {
+            if (rebuild || (statsRollupService.isEmpty() && orderRepository.count() > 0)) {
+                statsRollupService.rebuild();
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package org.logistservice.logist.deletion.controller;
+
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
+import org.logistservice.logist.deletion.service.DeletionJobService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/deletion-jobs")
+public class DeletionJobController {
+    
+    private final DeletionJobService deletionJobService;
+    
+    public DeletionJobController(DeletionJobService deletionJobService) {
+        this.deletionJobService = deletionJobService;
+    }
+    
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<DeletionJobDto> getDeletionJob(@PathVariable String id) {
+        return ResponseEntity.ok(deletionJobService.get(id));
+    }
+}
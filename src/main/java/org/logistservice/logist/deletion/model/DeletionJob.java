@@ -0,0 +1,40 @@
+package org.logistservice.logist.deletion.model;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Фоновое удаление клиента, транспорта или водителя вместе с зависимыми строками
+@Getter
+public class DeletionJob {
+    
+    private final String id = UUID.randomUUID().toString();
+    private final String targetType;
+    private final Long targetId;
+    private final DeletionProgress progress = new DeletionProgress();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile DeletionJobStatus status = DeletionJobStatus.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    
+    public DeletionJob(String targetType, Long targetId) {
+        this.targetType = targetType;
+        this.targetId = targetId;
+    }
+    
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        status = DeletionJobStatus.COMPLETED;
+    }
+    
+    public void fail(String message) {
+        error = message;
+        finishedAt = LocalDateTime.now();
+        status = DeletionJobStatus.FAILED;
+    }
+    
+    public boolean isFinished() {
+        return status != DeletionJobStatus.RUNNING;
+    }
+}
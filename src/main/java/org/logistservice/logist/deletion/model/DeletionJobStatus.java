@@ -0,0 +1,7 @@
+package org.logistservice.logist.deletion.model;
+
+public enum DeletionJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
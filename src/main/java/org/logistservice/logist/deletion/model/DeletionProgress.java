@@ -0,0 +1,36 @@
+package org.logistservice.logist.deletion.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Счетчики удаленных строк; читаются статусом задачи, пока удаление идет в другом потоке
+public class DeletionProgress {
+    
+    private final AtomicLong orders = new AtomicLong();
+    private final AtomicLong assignments = new AtomicLong();
+    private final AtomicLong statusHistory = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    
+    // Учитывается после коммита пачки, чтобы откаченная пачка не попала в прогресс
+    public void addChunk(long ordersDeleted, long assignmentsDeleted, long statusHistoryDeleted) {
+        orders.addAndGet(ordersDeleted);
+        assignments.addAndGet(assignmentsDeleted);
+        statusHistory.addAndGet(statusHistoryDeleted);
+        chunks.incrementAndGet();
+    }
+    
+    public long getOrders() {
+        return orders.get();
+    }
+    
+    public long getAssignments() {
+        return assignments.get();
+    }
+    
+    public long getStatusHistory() {
+        return statusHistory.get();
+    }
+    
+    public long getChunks() {
+        return chunks.get();
+    }
+}
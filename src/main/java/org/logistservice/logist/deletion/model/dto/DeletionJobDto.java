@@ -0,0 +1,25 @@
+package org.logistservice.logist.deletion.model.dto;
+
+import lombok.*;
+import org.logistservice.logist.deletion.model.DeletionJobStatus;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeletionJobDto {
+    private String id;
+    private String targetType;
+    private Long targetId;
+    private DeletionJobStatus status;
+    private Long ordersDeleted;
+    private Long assignmentsDeleted;
+    private Long statusHistoryDeleted;
+    private Long chunks;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
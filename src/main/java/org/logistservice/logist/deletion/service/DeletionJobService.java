@@ -0,0 +1,12 @@
+package org.logistservice.logist.deletion.service;
+
+import org.logistservice.logist.deletion.model.DeletionProgress;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
+
+import java.util.function.Consumer;
+
+public interface DeletionJobService {
+    // Запускает удаление в фоне; для объекта, который уже удаляется, возвращает текущую задачу
+    DeletionJobDto start(String targetType, Long targetId, Consumer<DeletionProgress> deletion);
+    DeletionJobDto get(String jobId);
+}
@@ -0,0 +1,94 @@
+package org.logistservice.logist.deletion.service;
+
+import org.logistservice.logist.common.exception.NotFoundException;
+import org.logistservice.logist.deletion.model.DeletionJob;
+import org.logistservice.logist.deletion.model.DeletionProgress;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Задачи хранятся в памяти узла: статус доступен на том узле, где удаление запущено,
+// завершенные задачи забываются через app.deletion-jobs.retention
+@Service
+public class DeletionJobServiceImpl implements DeletionJobService {
+    
+    private final TaskExecutor taskExecutor;
+    private final Duration retention;
+    private final Map<String, DeletionJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, DeletionJob> runningByTarget = new ConcurrentHashMap<>();
+    
+    public DeletionJobServiceImpl(TaskExecutor taskExecutor,
+                                  @Value("${app.deletion-jobs.retention:1h}") Duration retention) {
+        this.taskExecutor = taskExecutor;
+        this.retention = retention;
+    }
+    
+    @Override
+    public DeletionJobDto start(String targetType, Long targetId, Consumer<DeletionProgress> deletion) {
+        removeExpired();
+        String target = targetType + ":" + targetId;
+        DeletionJob job = new DeletionJob(targetType, targetId);
+        DeletionJob running = runningByTarget.putIfAbsent(target, job);
+        if (running != null) {
+            return toDto(running);
+        }
+        jobs.put(job.getId(), job);
+        try {
+            taskExecutor.execute(() -> run(job, target, deletion));
+        } catch (RuntimeException e) {
+            runningByTarget.remove(target, job);
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return toDto(job);
+    }
+    
+    @Override
+    public DeletionJobDto get(String jobId) {
+        DeletionJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException("Deletion job not found with id: " + jobId);
+        }
+        return toDto(job);
+    }
+    
+    private void run(DeletionJob job, String target, Consumer<DeletionProgress> deletion) {
+        try {
+            deletion.accept(job.getProgress());
+            job.complete();
+        } catch (RuntimeException e) {
+            job.fail(e.getMessage());
+        } finally {
+            runningByTarget.remove(target, job);
+        }
+    }
+    
+    private void removeExpired() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(threshold));
+    }
+    
+    private DeletionJobDto toDto(DeletionJob job) {
+        DeletionProgress progress = job.getProgress();
+        return DeletionJobDto.builder()
+                .id(job.getId())
+                .targetType(job.getTargetType())
+                .targetId(job.getTargetId())
+                .status(job.getStatus())
+                .ordersDeleted(progress.getOrders())
+                .assignmentsDeleted(progress.getAssignments())
+                .statusHistoryDeleted(progress.getStatusHistory())
+                .chunks(progress.getChunks())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .error(job.getError())
+                .build();
+    }
+}
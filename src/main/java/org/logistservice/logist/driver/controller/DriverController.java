@@ -1,16 +1,24 @@
 package org.logistservice.logist.driver.controller;
 
 import jakarta.validation.Valid;
+import org.logistservice.logist.common.dto.ImportReportDto;
 import org.logistservice.logist.common.enums.DriverSortField;
 import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.common.web.JsonArrayStreamer;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
 import org.logistservice.logist.driver.model.dto.DriverCreateUpdateRequest;
 import org.logistservice.logist.driver.model.dto.DriverDto;
+import org.logistservice.logist.driver.service.DriverImportService;
 import org.logistservice.logist.driver.service.DriverService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -18,9 +26,14 @@ import java.util.List;
 public class DriverController {
     
     private final DriverService driverService;
+    private final DriverImportService driverImportService;
+    private final JsonArrayStreamer jsonArrayStreamer;
     
-    public DriverController(DriverService driverService) {
+    public DriverController(DriverService driverService, DriverImportService driverImportService,
+                            JsonArrayStreamer jsonArrayStreamer) {
         this.driverService = driverService;
+        this.driverImportService = driverImportService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
     }
     
     @GetMapping
@@ -33,6 +46,17 @@ public class DriverController {
         return ResponseEntity.ok(driverService.getAll(name, active, sortField, sortDirection));
     }
     
+    // Потоковый режим списка (stream=true): фильтры и сортировка выполняются в БД, строки пишутся по мере чтения
+    @GetMapping(params = "stream=true")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
+    public ResponseEntity<StreamingResponseBody> streamAllDrivers(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) DriverSortField sortField,
+            @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection) {
+        return jsonArrayStreamer.<DriverDto>stream(rows -> driverService.streamAll(name, active, sortField, sortDirection, rows));
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
     public ResponseEntity<DriverDto> getDriverById(@PathVariable Long id) {
@@ -46,6 +70,19 @@ public class DriverController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    // Массовый импорт водителей с upsert по номеру удостоверения (drivingLicense): CSV с заголовком из имен полей запроса или NDJSON
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importDriversCsv(InputStream csv) {
+        return ResponseEntity.ok(driverImportService.importCsv(csv));
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importDriversNdjson(InputStream ndjson) {
+        return ResponseEntity.ok(driverImportService.importNdjson(ndjson));
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public ResponseEntity<DriverDto> updateDriver(
@@ -60,6 +97,14 @@ public class DriverController {
         driverService.delete(id);
         return ResponseEntity.noContent().build();
     }
+    
+    // Фоновое удаление водителя с назначениями; прогресс - GET /api/deletion-jobs/{jobId}
+    @PostMapping("/{id}/deletion-job")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<DeletionJobDto> startDriverDeletion(@PathVariable Long id) {
+        DeletionJobDto job = driverService.startDeletion(id);
+        return ResponseEntity.accepted().location(URI.create("/api/deletion-jobs/" + job.getId())).body(job);
+    }
 }
 
 
@@ -0,0 +1,10 @@
+package org.logistservice.logist.driver.repository;
+
+import org.logistservice.logist.driver.model.Driver;
+
+import java.util.List;
+
+// Пакетная вставка импортируемых водителей в обход сессии Hibernate
+public interface DriverImportRepository {
+    void insertDrivers(List<Driver> drivers);
+}
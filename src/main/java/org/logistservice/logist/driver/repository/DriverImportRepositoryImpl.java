@@ -0,0 +1,33 @@
+package org.logistservice.logist.driver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.logistservice.logist.driver.model.Driver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+// Id строк заранее зарезервированы через SequenceIdAllocator
+@Repository
+@RequiredArgsConstructor
+public class DriverImportRepositoryImpl implements DriverImportRepository {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insertDrivers(List<Driver> drivers) {
+        jdbcTemplate.batchUpdate("INSERT INTO drivers (id, full_name, phone, license_number, experience_years, active) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                drivers, BATCH_SIZE, (ps, driver) -> {
+                    ps.setLong(1, driver.getId());
+                    ps.setString(2, driver.getFullName());
+                    ps.setString(3, driver.getPhone());
+                    ps.setString(4, driver.getDrivingLicense());
+                    ps.setObject(5, driver.getExperienceYears(), Types.INTEGER);
+                    ps.setBoolean(6, driver.getActive());
+                });
+    }
+}
@@ -2,11 +2,33 @@ package org.logistservice.logist.driver.repository;
 
 import org.logistservice.logist.driver.model.Driver;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DriverRepository extends JpaRepository<Driver, Long> {
     long countByActive(Boolean active);
+    
+    // FOR UPDATE (а не FOR NO KEY UPDATE) конфликтует с проверкой внешнего ключа:
+    // до конца транзакции водителя нельзя назначить на заказ
+    @Query(value = "SELECT id FROM drivers WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+    
+    // Чтение для заказа на другом шарде (OrderReferences): FOR KEY SHARE не мешает изменять строку,
+    // но конфликтует с lockById, так что до конца транзакции удаление ждет
+    @Query(value = "SELECT * FROM drivers WHERE id IN (:ids) FOR KEY SHARE", nativeQuery = true)
+    List<Driver> findAllForKeyShareByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Поиск по пачке номеров водительских удостоверений без учета регистра (для импорта),
+    // по индексу upper(license_number)
+    @Query("SELECT d FROM Driver d WHERE upper(d.drivingLicense) IN :keys OR d.drivingLicense IN :licenses")
+    List<Driver> findAllByDrivingLicenses(@Param("keys") Collection<String> keys,
+                                          @Param("licenses") Collection<String> licenses);
 }
 
 
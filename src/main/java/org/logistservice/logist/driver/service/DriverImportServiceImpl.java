@@ -0,0 +1,123 @@
+package org.logistservice.logist.driver.service;
+
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.logistservice.logist.common.imports.ImportReader;
+import org.logistservice.logist.common.imports.ImportRow;
+import org.logistservice.logist.common.imports.UpsertImporter;
+import org.logistservice.logist.common.repository.SequenceIdAllocator;
+import org.logistservice.logist.driver.model.Driver;
+import org.logistservice.logist.driver.model.dto.DriverCreateUpdateRequest;
+import org.logistservice.logist.driver.repository.DriverImportRepository;
+import org.logistservice.logist.driver.repository.DriverRepository;
+import org.logistservice.logist.order.service.OrderDetailsCache;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Импорт водителей с upsert по номеру водительского удостоверения (без учета регистра).
+// Строки без номера удостоверения всегда создают нового водителя
+@Service
+public class DriverImportServiceImpl implements DriverImportService {
+    
+    private final DriverRepository driverRepository;
+    private final DriverImportRepository driverImportRepository;
+    private final SequenceIdAllocator idAllocator;
+    private final ImportReader importReader;
+    private final OrderDetailsCache orderDetailsCache;
+    private final UpsertImporter upsertImporter;
+    
+    public DriverImportServiceImpl(DriverRepository driverRepository,
+                                   DriverImportRepository driverImportRepository,
+                                   SequenceIdAllocator idAllocator,
+                                   ImportReader importReader,
+                                   OrderDetailsCache orderDetailsCache,
+                                   UpsertImporter upsertImporter) {
+        this.driverRepository = driverRepository;
+        this.driverImportRepository = driverImportRepository;
+        this.idAllocator = idAllocator;
+        this.importReader = importReader;
+        this.orderDetailsCache = orderDetailsCache;
+        this.upsertImporter = upsertImporter;
+    }
+    
+    @Override
+    public ImportReportDto importCsv(InputStream csv) {
+        return importRows(importReader.csv(csv, DriverCreateUpdateRequest.class));
+    }
+    
+    @Override
+    public ImportReportDto importNdjson(InputStream ndjson) {
+        return importRows(importReader.ndjson(ndjson, DriverCreateUpdateRequest.class));
+    }
+    
+    private ImportReportDto importRows(Iterator<ImportRow<DriverCreateUpdateRequest>> rows) {
+        return upsertImporter.run(rows, "drivingLicense", request -> keyOf(request.getDrivingLicense()),
+                this::upsertChunk);
+    }
+    
+    private void upsertChunk(List<ImportRow<DriverCreateUpdateRequest>> rows, UpsertImporter.ChunkResult result) {
+        Set<String> licenses = rows.stream()
+                .map(row -> row.getValue().getDrivingLicense())
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+        Map<String, Driver> existing = licenses.isEmpty() ? Map.of() : driverRepository
+                .findAllByDrivingLicenses(licenses.stream().map(this::keyOf).collect(Collectors.toSet()), licenses)
+                .stream()
+                .collect(Collectors.toMap(driver -> keyOf(driver.getDrivingLicense()), Function.identity(),
+                        (first, second) -> first));
+        
+        List<Driver> created = new ArrayList<>();
+        boolean nameChanged = false;
+        for (ImportRow<DriverCreateUpdateRequest> row : rows) {
+            DriverCreateUpdateRequest request = row.getValue();
+            String key = keyOf(request.getDrivingLicense());
+            Driver driver = key != null ? existing.get(key) : null;
+            if (driver == null) {
+                created.add(Driver.builder()
+                        .fullName(request.getFullName())
+                        .phone(request.getPhone())
+                        .drivingLicense(request.getDrivingLicense())
+                        .experienceYears(request.getExperienceYears())
+                        .active(request.getActive() != null ? request.getActive() : true)
+                        .build());
+                continue;
+            }
+            nameChanged |= !Objects.equals(driver.getFullName(), request.getFullName());
+            driver.setFullName(request.getFullName());
+            driver.setPhone(request.getPhone());
+            driver.setDrivingLicense(request.getDrivingLicense());
+            driver.setExperienceYears(request.getExperienceYears());
+            if (request.getActive() != null) {
+                driver.setActive(request.getActive());
+            }
+            result.updated();
+        }
+        
+        if (!created.isEmpty()) {
+            List<Long> ids = idAllocator.allocate("drivers", created.size());
+            for (int i = 0; i < created.size(); i++) {
+                created.get(i).setId(ids.get(i));
+            }
+            driverImportRepository.insertDrivers(created);
+            result.created(created.size());
+        }
+        // ФИО водителя показывается в назначениях заказов
+        if (nameChanged) {
+            orderDetailsCache.evictAll();
+        }
+    }
+    
+    private String keyOf(String drivingLicense) {
+        return StringUtils.hasText(drivingLicense) ? drivingLicense.strip().toUpperCase(Locale.ROOT) : null;
+    }
+}
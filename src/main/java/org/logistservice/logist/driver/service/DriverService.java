@@ -2,17 +2,22 @@ package org.logistservice.logist.driver.service;
 
 import org.logistservice.logist.common.enums.DriverSortField;
 import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
 import org.logistservice.logist.driver.model.dto.DriverCreateUpdateRequest;
 import org.logistservice.logist.driver.model.dto.DriverDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface DriverService {
     List<DriverDto> getAll(String nameFilter, Boolean active, DriverSortField sortField, SortDirection sortDirection);
+    void streamAll(String nameFilter, Boolean active, DriverSortField sortField, SortDirection sortDirection,
+                   Consumer<DriverDto> action);
     DriverDto getById(Long id);
     DriverDto create(DriverCreateUpdateRequest request);
     DriverDto update(Long id, DriverCreateUpdateRequest request);
     void delete(Long id);
+    DeletionJobDto startDeletion(Long id);
 }
 
 
@@ -3,24 +3,50 @@ package org.logistservice.logist.driver.service;
 import org.logistservice.logist.common.enums.DriverSortField;
 import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.common.exception.NotFoundException;
+import org.logistservice.logist.common.repository.ListSpecifications;
+import org.logistservice.logist.common.repository.StreamingQueries;
+import org.logistservice.logist.deletion.model.DeletionProgress;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
+import org.logistservice.logist.deletion.service.DeletionJobService;
 import org.logistservice.logist.driver.model.Driver;
 import org.logistservice.logist.driver.model.dto.DriverCreateUpdateRequest;
 import org.logistservice.logist.driver.model.dto.DriverDto;
 import org.logistservice.logist.driver.repository.DriverRepository;
+import org.logistservice.logist.order.service.OrderBulkDeleteService;
+import org.logistservice.logist.order.service.OrderDetailsCache;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class DriverServiceImpl implements DriverService {
     
     private final DriverRepository driverRepository;
+    private final OrderDetailsCache orderDetailsCache;
+    private final OrderBulkDeleteService orderBulkDeleteService;
+    private final DeletionJobService deletionJobService;
+    private final TransactionTemplate transactionTemplate;
+    private final StreamingQueries streamingQueries;
     
-    public DriverServiceImpl(DriverRepository driverRepository) {
+    public DriverServiceImpl(DriverRepository driverRepository, OrderDetailsCache orderDetailsCache,
+                             OrderBulkDeleteService orderBulkDeleteService, DeletionJobService deletionJobService,
+                             TransactionTemplate transactionTemplate, StreamingQueries streamingQueries) {
         this.driverRepository = driverRepository;
+        this.orderDetailsCache = orderDetailsCache;
+        this.orderBulkDeleteService = orderBulkDeleteService;
+        this.deletionJobService = deletionJobService;
+        this.transactionTemplate = transactionTemplate;
+        this.streamingQueries = streamingQueries;
     }
     
     @Override
@@ -52,6 +78,32 @@ public class DriverServiceImpl implements DriverService {
         return result;
     }
     
+    // Те же фильтры и сортировка, что у getAll, но в БД: строки читаются курсором и сразу отдаются action
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(String nameFilter, Boolean active, DriverSortField sortField, SortDirection sortDirection,
+                          Consumer<DriverDto> action) {
+        Specification<Driver> spec = Specification.allOf(
+                ListSpecifications.containsIgnoreCase("fullName", nameFilter),
+                ListSpecifications.equalTo("active", active));
+        try (Stream<DriverDto> rows = streamingQueries.stream(Driver.class, spec, getDriverSort(sortField, sortDirection), this::toDto)) {
+            rows.forEach(action);
+        }
+    }
+    
+    private Sort getDriverSort(DriverSortField sortField, SortDirection sortDirection) {
+        if (sortField == null) {
+            return ListSpecifications.orderBy(null, false, sortDirection);
+        }
+        return switch (sortField) {
+            case FULL_NAME -> ListSpecifications.orderBy("fullName", true, sortDirection);
+            case EXPERIENCE_YEARS -> ListSpecifications.orderBy("experienceYears", false, sortDirection);
+            case LICENSE_NUMBER -> ListSpecifications.orderBy("drivingLicense", true, sortDirection);
+            // У водителя нет даты создания, порядок создания - это порядок id
+            case CREATED_AT -> ListSpecifications.orderBy("id", false, sortDirection);
+        };
+    }
+    
     private Comparator<DriverDto> getDriverComparator(DriverSortField sortField) {
         return switch (sortField) {
             case FULL_NAME -> Comparator.comparing(
@@ -95,17 +147,43 @@ public class DriverServiceImpl implements DriverService {
         Driver driver = driverRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Driver not found with id: " + id));
         
+        // ФИО водителя показывается в назначениях заказов
+        boolean nameChanged = !Objects.equals(driver.getFullName(), request.getFullName());
         updateEntityFromRequest(driver, request);
         Driver updated = driverRepository.save(driver);
+        if (nameChanged) {
+            orderDetailsCache.evictAll();
+        }
         return toDto(updated);
     }
     
     @Override
     public void delete(Long id) {
+        delete(id, new DeletionProgress());
+    }
+    
+    @Override
+    public DeletionJobDto startDeletion(Long id) {
+        if (!driverRepository.existsById(id)) {
+            throw new NotFoundException("Driver not found with id: " + id);
+        }
+        return deletionJobService.start("driver", id, progress -> delete(id, progress));
+    }
+    
+    // Назначения водителя удаляются пачками с пересчетом загрузки машин в их дни;
+    // водитель удаляется последним под блокировкой, вместе с назначениями, добавленными за время удаления
+    // (на любом шарде, см. OrderReferences)
+    private void delete(Long id, DeletionProgress progress) {
         if (!driverRepository.existsById(id)) {
             throw new NotFoundException("Driver not found with id: " + id);
         }
-        driverRepository.deleteById(id);
+        orderBulkDeleteService.deleteAssignmentsOfDriver(id, progress);
+        transactionTemplate.executeWithoutResult(status -> {
+            driverRepository.lockById(id)
+                    .orElseThrow(() -> new NotFoundException("Driver not found with id: " + id));
+            orderBulkDeleteService.deleteAssignmentsOfDriver(id, progress);
+            driverRepository.deleteById(id);
+        });
     }
     
     private DriverDto toDto(Driver entity) {
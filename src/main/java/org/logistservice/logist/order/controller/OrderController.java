@@ -2,19 +2,28 @@ package org.logistservice.logist.order.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.logistservice.logist.common.dto.CursorPageResponse;
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.logistservice.logist.common.dto.PageResponse;
 import org.logistservice.logist.common.enums.OrderSortField;
 import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.common.exception.BadRequestException;
+import org.logistservice.logist.common.web.JsonArrayStreamer;
 import org.logistservice.logist.order.model.OrderStatus;
 import org.logistservice.logist.order.model.dto.*;
+import org.logistservice.logist.order.service.OrderImportService;
 import org.logistservice.logist.order.service.OrderService;
+import org.logistservice.logist.order.service.OrderStatusTransitionService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -24,35 +33,90 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
     
+    private static final int MAX_PAGE_SIZE = 500;
+    
     private final OrderService orderService;
+    private final OrderImportService orderImportService;
+    private final OrderStatusTransitionService statusTransitionService;
+    private final JsonArrayStreamer jsonArrayStreamer;
     
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
-    public ResponseEntity<List<OrderDto>> getAllOrders(
+    public ResponseEntity<PageResponse<OrderDto>> getAllOrders(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Long clientId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
             @RequestParam(required = false) OrderSortField sortField,
-            @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection) {
+            @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "20") int size) {
         
-        OrderStatus orderStatus = null;
-        if (status != null && !status.isEmpty()) {
-            try {
-                orderStatus = OrderStatus.valueOf(status.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                throw new BadRequestException("Invalid order status: " + status);
-            }
+        if (page < 0) {
+            throw new BadRequestException("page must not be negative");
         }
+        validatePageSize(size);
+        
+        return ResponseEntity.ok(orderService.getAll(search, parseStatus(status), clientId, fromDate, toDate,
+                sortField, sortDirection, page, size));
+    }
+    
+    // Keyset-режим списка: включается параметром cursor (пустое значение - первая страница)
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
+    public ResponseEntity<CursorPageResponse<OrderDto>> getAllOrdersByCursor(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) OrderSortField sortField,
+            @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection,
+            @RequestParam(required = false, defaultValue = "") String cursor,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        
+        validatePageSize(size);
         
-        return ResponseEntity.ok(orderService.getAll(search, orderStatus, clientId, fromDate, toDate, sortField, sortDirection));
+        return ResponseEntity.ok(orderService.getAllByCursor(search, parseStatus(status), clientId, fromDate, toDate,
+                sortField, sortDirection, cursor, size));
+    }
+    
+    // Потоковый режим списка (stream=true): все заказы по фильтру одним JSON-массивом, без страниц и total
+    @GetMapping(params = {"stream=true", "!cursor"})
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
+    public ResponseEntity<StreamingResponseBody> streamAllOrders(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) OrderSortField sortField,
+            @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection) {
+        
+        // Параметры проверяются до начала ответа, чтобы ошибка пришла обычным 400
+        OrderStatus statusFilter = parseStatus(status);
+        return jsonArrayStreamer.<OrderDto>stream(rows -> orderService.streamAll(search, statusFilter, clientId,
+                fromDate, toDate, sortField, sortDirection, rows));
     }
     
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
-    public ResponseEntity<OrderDetailsDto> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getById(id));
+    public ResponseEntity<OrderDetailsDto> getOrderById(
+            @PathVariable Long id,
+            @RequestParam(required = false, defaultValue = "0") int historyPage,
+            @RequestParam(required = false) Integer historySize) {
+        
+        // История статусов отдается целиком, если historySize не указан
+        if (historySize == null) {
+            return ResponseEntity.ok(orderService.getById(id));
+        }
+        if (historyPage < 0) {
+            throw new BadRequestException("historyPage must not be negative");
+        }
+        validatePageSize(historySize);
+        
+        return ResponseEntity.ok(orderService.getById(id, historyPage, historySize));
     }
     
     @PostMapping
@@ -62,6 +126,27 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    // Массовый импорт: JSON-массив запросов создания заказа; строки проверяются по отдельности,
+    // ошибочные пропускаются и перечисляются в ответе
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importOrders(@RequestBody List<OrderCreateUpdateRequest> requests) {
+        return ResponseEntity.ok(orderImportService.importOrders(requests));
+    }
+    
+    // То же потоком: CSV с заголовком из имен полей запроса или NDJSON
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importOrdersCsv(InputStream csv) {
+        return ResponseEntity.ok(orderImportService.importOrdersCsv(csv));
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importOrdersNdjson(InputStream ndjson) {
+        return ResponseEntity.ok(orderImportService.importOrdersNdjson(ndjson));
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public ResponseEntity<OrderDto> updateOrder(
@@ -82,7 +167,15 @@ public class OrderController {
     public ResponseEntity<OrderDto> updateOrderStatus(
             @PathVariable Long id,
             @Valid @RequestBody OrderStatusUpdateRequest request) {
-        return ResponseEntity.ok(orderService.updateStatus(id, request.getNewStatus()));
+        return ResponseEntity.ok(orderService.updateStatus(id, request.getExpectedStatus(), request.getNewStatus()));
+    }
+    
+    // Массовая смена статусов: JSON-массив переходов, результат по каждому заказу в порядке запроса
+    @PostMapping("/status-transitions")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<List<OrderStatusTransitionResultDto>> transitionOrderStatuses(
+            @RequestBody List<OrderStatusTransitionRequest> requests) {
+        return ResponseEntity.ok(statusTransitionService.transitionAll(requests));
     }
     
     @PostMapping("/{orderId}/assignments")
@@ -108,6 +201,21 @@ public class OrderController {
         orderService.deleteAssignment(assignmentId);
         return ResponseEntity.noContent().build();
     }
+    
+    private OrderStatus parseStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid order status: " + status);
+        }
+    }
+    
+    private void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
 }
-
-
@@ -13,7 +13,11 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Entity
 @Table(name = "orders")
@@ -89,6 +93,10 @@ public class Order {
     @JoinColumn(name = "manager_id")
     private User manager;
     
+    // Поисковая строка (номер, клиент, города, описание груза) в нижнем регистре под триграммный индекс
+    @Column(name = "search_text", length = 1000)
+    private String searchText;
+    
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private Set<OrderAssignment> assignments = new HashSet<>();
@@ -100,6 +108,16 @@ public class Order {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        refreshSearchText();
+    }
+    
+    // Должно совпадать с lower(concat_ws(' ', ...)) в OrderRepository.refreshSearchTextByClientId
+    public void refreshSearchText() {
+        searchText = Stream.of(orderNumber, client != null ? client.getName() : null,
+                        originCity, destinationCity, cargoDescription)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(" "))
+                .toLowerCase(Locale.ROOT);
     }
 }
 
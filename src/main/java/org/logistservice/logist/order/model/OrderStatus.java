@@ -4,10 +4,14 @@ public enum OrderStatus {
     NEW,
     IN_PROGRESS,
     DELIVERED,
-    CANCELED
+    CANCELED;
+    
+    // Таблица переходов: NEW -> IN_PROGRESS -> DELIVERED, отмена до доставки; DELIVERED и CANCELED конечные
+    public boolean canTransitionTo(OrderStatus next) {
+        return switch (this) {
+            case NEW -> next == IN_PROGRESS || next == CANCELED;
+            case IN_PROGRESS -> next == DELIVERED || next == CANCELED;
+            case DELIVERED, CANCELED -> false;
+        };
+    }
 }
-
-
-
-
-
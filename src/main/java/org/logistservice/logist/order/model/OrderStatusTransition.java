@@ -0,0 +1,13 @@
+package org.logistservice.logist.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Переход заказа из ожидаемого статуса в новый
+@Getter
+@AllArgsConstructor
+public class OrderStatusTransition {
+    private Long orderId;
+    private OrderStatus expectedStatus;
+    private OrderStatus newStatus;
+}
@@ -0,0 +1,13 @@
+package org.logistservice.logist.order.model;
+
+public enum OrderStatusTransitionOutcome {
+    // Статус изменен, история записана
+    APPLIED,
+    // Заказ уже в запрошенном статусе
+    UNCHANGED,
+    // Заказ не в ожидаемом статусе либо переход из текущего статуса запрещен
+    CONFLICT,
+    // Переход запрещен таблицей переходов или запрос некорректен
+    INVALID,
+    NOT_FOUND
+}
@@ -13,6 +13,7 @@ public class OrderDetailsDto {
     private OrderDto order;
     private List<OrderAssignmentDto> assignments;
     private List<OrderStatusHistoryDto> statusHistory;
+    private long statusHistoryTotal;
 }
 
 
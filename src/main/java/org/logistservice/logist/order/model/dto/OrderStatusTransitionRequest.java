@@ -0,0 +1,18 @@
+package org.logistservice.logist.order.model.dto;
+
+import lombok.*;
+import org.logistservice.logist.order.model.OrderStatus;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusTransitionRequest {
+    private Long orderId;
+    
+    // Не задан - переход из текущего статуса
+    private OrderStatus expectedStatus;
+    
+    private OrderStatus newStatus;
+}
@@ -0,0 +1,18 @@
+package org.logistservice.logist.order.model.dto;
+
+import lombok.*;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.OrderStatusTransitionOutcome;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusTransitionResultDto {
+    private Long orderId;
+    private OrderStatusTransitionOutcome outcome;
+    // Статус заказа после обработки (для CONFLICT - текущий)
+    private OrderStatus status;
+    private String message;
+}
@@ -10,6 +10,10 @@ import org.logistservice.logist.order.model.OrderStatus;
 @AllArgsConstructor
 @Builder
 public class OrderStatusUpdateRequest {
+    // Статус, из которого выполняется переход; если заказ уже в другом статусе - 409.
+    // Не задан - переход из текущего статуса
+    private OrderStatus expectedStatus;
+    
     @NotNull
     private OrderStatus newStatus;
 }
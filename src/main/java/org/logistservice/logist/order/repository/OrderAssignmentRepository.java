@@ -1,23 +1,29 @@
 package org.logistservice.logist.order.repository;
 
 import org.logistservice.logist.order.model.OrderAssignment;
+import org.logistservice.logist.order.model.dto.OrderAssignmentDto;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface OrderAssignmentRepository extends JpaRepository<OrderAssignment, Long> {
-    @EntityGraph(attributePaths = {"vehicle", "order", "driver"})
-    @Query("SELECT a FROM OrderAssignment a")
-    List<OrderAssignment> findAllWithRelations();
     
     @EntityGraph(attributePaths = {"vehicle", "order"})
     List<OrderAssignment> findByDriverId(Long driverId);
     
     List<OrderAssignment> findByOrderId(Long orderId);
+    
+    @Query("SELECT new org.logistservice.logist.order.model.dto.OrderAssignmentDto(" +
+            "a.id, a.order.id, v.id, v.registrationNumber, d.id, d.fullName, " +
+            "a.plannedStart, a.plannedEnd, a.actualStart, a.actualEnd) " +
+            "FROM OrderAssignment a JOIN a.vehicle v JOIN a.driver d " +
+            "WHERE a.order.id = :orderId ORDER BY a.plannedStart ASC NULLS LAST, a.id")
+    List<OrderAssignmentDto> findDtosByOrderId(@Param("orderId") Long orderId);
 }
 
 
@@ -0,0 +1,17 @@
+package org.logistservice.logist.order.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Удаление заказов и назначений пачками по id; строки пачки блокируются до удаления
+public interface OrderBulkDeleteRepository {
+    List<Long> lockOrderIdsByClientId(Long clientId, int limit);
+    // id назначения -> id заказа
+    Map<Long, Long> lockAssignmentsByVehicleId(Long vehicleId, int limit);
+    Map<Long, Long> lockAssignmentsByDriverId(Long driverId, int limit);
+    int deleteStatusHistoryByOrderIds(Collection<Long> orderIds);
+    int deleteAssignmentsByOrderIds(Collection<Long> orderIds);
+    int deleteOrdersByIds(Collection<Long> orderIds);
+    int deleteAssignmentsByIds(Collection<Long> assignmentIds);
+}
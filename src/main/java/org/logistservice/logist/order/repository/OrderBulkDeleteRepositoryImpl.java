@@ -0,0 +1,96 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class OrderBulkDeleteRepositoryImpl implements OrderBulkDeleteRepository {
+    
+    private static final String ORDERS = "orders";
+    private static final String ORDER_ASSIGNMENTS = "order_assignments";
+    private static final String ORDER_STATUS_HISTORY = "order_status_history";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // FOR UPDATE не дает конкурентным транзакциям менять заказы пачки и добавлять к ним назначения,
+    // пока пачка вычитается из агрегатов и удаляется
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> lockOrderIdsByClientId(Long clientId, int limit) {
+        List<Number> ids = entityManager.createNativeQuery(
+                        "SELECT id FROM orders WHERE client_id = :clientId ORDER BY id LIMIT :limit FOR UPDATE")
+                .setParameter("clientId", clientId)
+                .setParameter("limit", limit)
+                .getResultList();
+        return ids.stream().map(Number::longValue).toList();
+    }
+    
+    @Override
+    public Map<Long, Long> lockAssignmentsByVehicleId(Long vehicleId, int limit) {
+        return lockAssignments("vehicle_id", vehicleId, limit);
+    }
+    
+    @Override
+    public Map<Long, Long> lockAssignmentsByDriverId(Long driverId, int limit) {
+        return lockAssignments("driver_id", driverId, limit);
+    }
+    
+    @Override
+    public int deleteStatusHistoryByOrderIds(Collection<Long> orderIds) {
+        return update("DELETE FROM order_status_history WHERE order_id IN (:ids)", ORDER_STATUS_HISTORY)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+    }
+    
+    @Override
+    public int deleteAssignmentsByOrderIds(Collection<Long> orderIds) {
+        return update("DELETE FROM order_assignments WHERE order_id IN (:ids)", ORDER_ASSIGNMENTS)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+    }
+    
+    @Override
+    public int deleteOrdersByIds(Collection<Long> orderIds) {
+        return update("DELETE FROM orders WHERE id IN (:ids)", ORDERS)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+    }
+    
+    @Override
+    public int deleteAssignmentsByIds(Collection<Long> assignmentIds) {
+        return update("DELETE FROM order_assignments WHERE id IN (:ids)", ORDER_ASSIGNMENTS)
+                .setParameter("ids", assignmentIds)
+                .executeUpdate();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<Long, Long> lockAssignments(String column, Long id, int limit) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT id, order_id FROM order_assignments WHERE " + column + " = :id " +
+                        "ORDER BY id LIMIT :limit FOR UPDATE")
+                .setParameter("id", id)
+                .setParameter("limit", limit)
+                .getResultList();
+        Map<Long, Long> assignments = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            assignments.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return assignments;
+    }
+    
+    // Явные query spaces: без них Hibernate сбрасывает после native-запроса все регионы кэша второго уровня
+    private Query update(String sql, String table) {
+        Query query = entityManager.createNativeQuery(sql);
+        query.unwrap(NativeQuery.class).addSynchronizedQuerySpace(table);
+        return query;
+    }
+}
@@ -0,0 +1,12 @@
+package org.logistservice.logist.order.repository;
+
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.OrderAssignment;
+
+import java.util.List;
+
+// Пакетная запись импортируемых заказов в обход сессии Hibernate
+public interface OrderImportRepository {
+    void insertOrders(List<Order> orders);
+    void insertAssignments(List<OrderAssignment> assignments);
+}
@@ -0,0 +1,109 @@
+package org.logistservice.logist.order.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.OrderAssignment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// JdbcTemplate работает в той же транзакции, что и JPA (JpaTransactionManager отдает ему свое соединение).
+// Строки пишутся JDBC-пакетами с id, заранее зарезервированными через SequenceIdAllocator
+@Repository
+@RequiredArgsConstructor
+public class OrderImportRepositoryImpl implements OrderImportRepository {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insertOrders(List<Order> orders) {
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_number, client_id, status, created_at, " +
+                        "planned_pickup_date, planned_delivery_date, origin_city, origin_address, destination_city, " +
+                        "destination_address, cargo_description, cargo_weight, cargo_volume, price, manager_id, search_text) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                orders, BATCH_SIZE, (ps, order) -> {
+                    ps.setLong(1, order.getId());
+                    ps.setString(2, order.getOrderNumber());
+                    ps.setLong(3, order.getClient().getId());
+                    ps.setString(4, order.getStatus().name());
+                    ps.setTimestamp(5, Timestamp.valueOf(order.getCreatedAt()));
+                    setDate(ps, 6, order.getPlannedPickupDate());
+                    setDate(ps, 7, order.getPlannedDeliveryDate());
+                    ps.setString(8, order.getOriginCity());
+                    ps.setString(9, order.getOriginAddress());
+                    ps.setString(10, order.getDestinationCity());
+                    ps.setString(11, order.getDestinationAddress());
+                    ps.setString(12, order.getCargoDescription());
+                    setDouble(ps, 13, order.getCargoWeight());
+                    setDouble(ps, 14, order.getCargoVolume());
+                    setDecimal(ps, 15, order.getPrice());
+                    setLong(ps, 16, order.getManager() != null ? order.getManager().getId() : null);
+                    ps.setString(17, order.getSearchText());
+                });
+    }
+    
+    @Override
+    public void insertAssignments(List<OrderAssignment> assignments) {
+        jdbcTemplate.batchUpdate("INSERT INTO order_assignments (id, order_id, vehicle_id, driver_id, " +
+                        "planned_start, planned_end) VALUES (?, ?, ?, ?, ?, ?)",
+                assignments, BATCH_SIZE, (ps, assignment) -> {
+                    ps.setLong(1, assignment.getId());
+                    ps.setLong(2, assignment.getOrder().getId());
+                    ps.setLong(3, assignment.getVehicle().getId());
+                    ps.setLong(4, assignment.getDriver().getId());
+                    setTimestamp(ps, 5, assignment.getPlannedStart());
+                    setTimestamp(ps, 6, assignment.getPlannedEnd());
+                });
+    }
+    
+    private void setDate(PreparedStatement ps, int index, LocalDate value) throws SQLException {
+        if (value != null) {
+            ps.setDate(index, Date.valueOf(value));
+        } else {
+            ps.setNull(index, Types.DATE);
+        }
+    }
+    
+    private void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+    
+    private void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+    
+    private void setDecimal(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value != null) {
+            ps.setBigDecimal(index, value);
+        } else {
+            ps.setNull(index, Types.NUMERIC);
+        }
+    }
+    
+    private void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.logistservice.logist.order.repository;
+
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.dto.OrderDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+// Чтение списка заказов сразу в OrderDto: выбираются только нужные колонки, сущности не создаются
+public interface OrderListRepository {
+    Page<OrderDto> findOrderList(Specification<Order> spec, Specification<Order> countSpec, Pageable pageable);
+    List<OrderDto> findOrderList(Specification<Order> spec, Sort sort, int limit);
+    Stream<OrderDto> streamOrderList(Specification<Order> spec, Sort sort);
+}
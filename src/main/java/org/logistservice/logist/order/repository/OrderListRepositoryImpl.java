@@ -0,0 +1,115 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.logistservice.logist.client.model.Client;
+import org.logistservice.logist.common.repository.StreamingQueries;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.dto.OrderDto;
+import org.logistservice.logist.user.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class OrderListRepositoryImpl implements OrderListRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final StreamingQueries streamingQueries;
+    
+    public OrderListRepositoryImpl(StreamingQueries streamingQueries) {
+        this.streamingQueries = streamingQueries;
+    }
+    
+    @Override
+    public Page<OrderDto> findOrderList(Specification<Order> spec, Specification<Order> countSpec, Pageable pageable) {
+        TypedQuery<OrderDto> query = createListQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<OrderDto> content = query.getResultList();
+        
+        // count-запрос выполняется только если по размеру страницы нельзя определить общее число строк
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(countSpec));
+    }
+    
+    @Override
+    public List<OrderDto> findOrderList(Specification<Order> spec, Sort sort, int limit) {
+        return createListQuery(spec, sort)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    // Курсором внутри текущей транзакции; поток нужно закрыть
+    @Override
+    public Stream<OrderDto> streamOrderList(Specification<Order> spec, Sort sort) {
+        return streamingQueries.stream(createListQuery(spec, sort));
+    }
+    
+    private TypedQuery<OrderDto> createListQuery(Specification<Order> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderDto> query = cb.createQuery(OrderDto.class);
+        Root<Order> root = query.from(Order.class);
+        Join<Order, Client> client = root.join("client", JoinType.INNER);
+        Join<Order, User> manager = root.join("manager", JoinType.LEFT);
+        
+        // Порядок аргументов совпадает с порядком полей OrderDto (@AllArgsConstructor)
+        query.select(cb.construct(OrderDto.class,
+                root.get("id"),
+                root.get("orderNumber"),
+                client.get("id"),
+                client.get("name"),
+                root.get("status"),
+                root.get("createdAt"),
+                root.get("plannedPickupDate"),
+                root.get("plannedDeliveryDate"),
+                root.get("actualDeliveryDate"),
+                root.get("originCity"),
+                root.get("originAddress"),
+                root.get("destinationCity"),
+                root.get("destinationAddress"),
+                root.get("cargoDescription"),
+                root.get("cargoWeight"),
+                root.get("cargoVolume"),
+                root.get("price"),
+                manager.get("id"),
+                manager.get("fullName")));
+        
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+    
+    private long count(Specification<Order> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> root = query.from(Order.class);
+        query.select(cb.count(root));
+        
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,8 @@
+package org.logistservice.logist.order.repository;
+
+import java.time.LocalDate;
+
+public interface OrderNumberCounterRepository {
+    // Резервирует blockSize номеров дня и возвращает первый из них
+    long allocate(LocalDate day, int blockSize);
+}
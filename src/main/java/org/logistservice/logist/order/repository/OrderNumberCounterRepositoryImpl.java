@@ -0,0 +1,61 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Repository
+public class OrderNumberCounterRepositoryImpl implements OrderNumberCounterRepository {
+    
+    private static final String COUNTERS = "order_number_counters";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Отдельная транзакция: блокировка строки счетчика держится только на время резервирования,
+    // а выданный блок не вернется в счетчик при откате транзакции, создающей заказ
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long allocate(LocalDate day, int blockSize) {
+        Long next = reserve(day, blockSize);
+        if (next == null) {
+            // Первый блок дня: счетчик начинается после номеров, уже выданных за этот день
+            // (например, прежним генератором со случайной частью)
+            update("INSERT INTO order_number_counters (day, next_value) " +
+                    "SELECT :day, COALESCE(max(CAST(substring(o.order_number FROM 14) AS bigint)), 0) + 1 " +
+                    "FROM orders o WHERE o.order_number LIKE :prefix AND substring(o.order_number FROM 14) ~ '^[0-9]+$' " +
+                    "ON CONFLICT (day) DO NOTHING")
+                    .setParameter("day", day)
+                    .setParameter("prefix", "ORD-" + day.format(DATE_FORMATTER) + "-%")
+                    .executeUpdate();
+            next = reserve(day, blockSize);
+        }
+        return next - blockSize;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Long reserve(LocalDate day, int blockSize) {
+        List<Number> result = update("UPDATE order_number_counters SET next_value = next_value + :blockSize " +
+                "WHERE day = :day RETURNING next_value")
+                .setParameter("blockSize", blockSize)
+                .setParameter("day", day)
+                .getResultList();
+        return result.isEmpty() ? null : result.get(0).longValue();
+    }
+    
+    // Явный query space, чтобы запрос не сбрасывал регионы кэша второго уровня
+    private Query update(String sql) {
+        Query query = entityManager.createNativeQuery(sql);
+        query.unwrap(NativeQuery.class).addSynchronizedQuerySpace(COUNTERS);
+        return query;
+    }
+}
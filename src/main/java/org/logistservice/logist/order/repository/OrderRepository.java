@@ -1,23 +1,40 @@
 package org.logistservice.logist.order.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.logistservice.logist.order.model.Order;
 import org.logistservice.logist.order.model.OrderStatus;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderListRepository {
     Optional<Order> findByOrderNumber(String orderNumber);
     List<Order> findByStatus(OrderStatus status);
     List<Order> findByClientId(Long clientId);
     
-    @EntityGraph(attributePaths = {"client", "manager"})
-    @Query("SELECT o FROM Order o")
-    List<Order> findAllWithClientAndManager();
+    // Для изменения заказа: клиент, менеджер и назначения приходят тем же запросом
+    @EntityGraph(attributePaths = {"client", "manager", "assignments"})
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findWithAssignmentsById(@Param("id") Long id);
+    
+    // Пересчет поисковой строки заказов клиента после изменения его названия. Название передается параметром:
+    // на шардах заказов копия clients обновляется репликацией и может еще хранить старое.
+    // native-запрос затрагивает только orders, иначе Hibernate сбросит все регионы кэша второго уровня
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "orders"))
+    @Query(value = "UPDATE orders o SET search_text = lower(concat_ws(' ', o.order_number, CAST(:clientName AS varchar), " +
+            "o.origin_city, o.destination_city, o.cargo_description)) " +
+            "WHERE o.client_id = :clientId", nativeQuery = true)
+    int refreshSearchTextByClientId(@Param("clientId") Long clientId, @Param("clientName") String clientName);
 }
 
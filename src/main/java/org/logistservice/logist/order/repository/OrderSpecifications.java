@@ -0,0 +1,144 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.logistservice.logist.common.enums.OrderSortField;
+import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class OrderSpecifications {
+    
+    private OrderSpecifications() {
+    }
+    
+    public static Specification<Order> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+    
+    public static Specification<Order> filter(String search, OrderStatus status, Long clientId,
+                                              LocalDate fromDate, LocalDate toDate) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            
+            // LIKE по search_text обслуживается GIN-индексом gin_trgm_ops (db/migration/V1__baseline.sql)
+            if (StringUtils.hasText(search)) {
+                String pattern = "%" + escapeLike(normalizeSearch(search)) + "%";
+                predicates.add(cb.like(root.get("searchText"), pattern, '\\'));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (clientId != null) {
+                predicates.add(cb.equal(root.get("client").get("id"), clientId));
+            }
+            // Границы по дате создания: [fromDate 00:00, toDate + 1 день 00:00)
+            if (fromDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), fromDate.atStartOfDay()));
+            }
+            if (toDate != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), toDate.plusDays(1).atStartOfDay()));
+            }
+            
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    // Сортировка по релевантности поиска (pg_trgm word_similarity), только для выборки данных
+    public static Specification<Order> orderByRelevance(String search) {
+        return (root, query, cb) -> {
+            Expression<Double> rank = cb.function("word_similarity", Double.class,
+                    bind(cb, normalizeSearch(search)), root.get("searchText"));
+            query.orderBy(cb.desc(rank), cb.asc(root.get("id")));
+            return null;
+        };
+    }
+    
+    // Keyset-условия "строго после (lastKey, lastId)" в порядке сортировки списка, по участкам, которые
+    // выбираются по очереди, пока не наберется страница. Строки с ключом идут одним сравнением строк
+    // (key, id) > (lastKey, lastId): PostgreSQL читает его одним диапазоном индекса (key, id) с позиции курсора.
+    // NULL-значения ключа (последние при ASC и первые при DESC, как в PostgreSQL по умолчанию) - отдельный
+    // участок: условие с OR IS NULL индексом по диапазону не обслуживается. Для CLIENT_NAME индекса нет
+    // (ключ из соединения с clients), и каждая страница сортирует все подходящие строки
+    public static List<Specification<Order>> after(OrderSortField sortField, SortDirection sortDirection,
+                                                   Object lastKey, Long lastId) {
+        boolean desc = sortDirection == SortDirection.DESC;
+        if (sortField == null) {
+            return List.of((root, query, cb) -> idAfter(root, cb, desc, lastId));
+        }
+        Specification<Order> nullKeyAfter = (root, query, cb) ->
+                cb.and(cb.isNull(sortKey(root, cb, sortField)), idAfter(root, cb, desc, lastId));
+        Specification<Order> nullKey = (root, query, cb) -> cb.isNull(sortKey(root, cb, sortField));
+        Specification<Order> anyKey = (root, query, cb) -> cb.isNotNull(sortKey(root, cb, sortField));
+        if (lastKey == null) {
+            return desc ? List.of(nullKeyAfter, anyKey) : List.of(nullKeyAfter);
+        }
+        Specification<Order> keyAfter = (root, query, cb) -> rowAfter(root, cb, desc,
+                sortKey(root, cb, sortField), keyValue(cb, sortField, lastKey), lastId);
+        return desc ? List.of(keyAfter) : List.of(keyAfter, nullKey);
+    }
+    
+    private static Predicate idAfter(Root<Order> root, CriteriaBuilder cb, boolean desc, Long lastId) {
+        return desc ? cb.lessThan(root.get("id"), lastId) : cb.greaterThan(root.get("id"), lastId);
+    }
+    
+    // Сравнение значений строк (row constructor comparison) фрагментом SQL: в Criteria API кортежа-выражения
+    // нет (NodeBuilder.tuple устарел). Строки с NULL-ключом в сравнение не попадают
+    private static Predicate rowAfter(Root<Order> root, CriteriaBuilder cb, boolean desc,
+                                      Expression<?> key, Expression<?> value, Long lastId) {
+        String pattern = desc ? "(?, ?) < (?, ?)" : "(?, ?) > (?, ?)";
+        return cb.isTrue(((HibernateCriteriaBuilder) cb).sql(pattern, Boolean.class,
+                key, root.get("id"), value, bind(cb, lastId)));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Expression<Comparable<Object>> sortKey(Root<Order> root, CriteriaBuilder cb, OrderSortField sortField) {
+        Expression<?> key = switch (sortField) {
+            case ORDER_NUMBER -> cb.lower(root.get("orderNumber"));
+            case CLIENT_NAME -> cb.lower(root.get("client").get("name"));
+            case STATUS -> root.get("status");
+            case CREATED_AT -> root.get("createdAt");
+            case PLANNED_PICKUP_DATE -> root.get("plannedPickupDate");
+            case PLANNED_DELIVERY_DATE -> root.get("plannedDeliveryDate");
+        };
+        return (Expression<Comparable<Object>>) key;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Expression<Comparable<Object>> keyValue(CriteriaBuilder cb, OrderSortField sortField, Object lastKey) {
+        // Строковые ключи сортируются без учета регистра, поэтому значение приводится к нижнему регистру в БД.
+        // Тип параметра во фрагменте SQL берется из значения, а не из колонки: статус передается строкой,
+        // как он хранится (EnumType.STRING)
+        Expression<?> value = switch (sortField) {
+            case ORDER_NUMBER, CLIENT_NAME -> cb.lower(bind(cb, (String) lastKey));
+            case STATUS -> bind(cb, ((OrderStatus) lastKey).name());
+            default -> bind(cb, lastKey);
+        };
+        return (Expression<Comparable<Object>>) value;
+    }
+    
+    // Значение передается параметром запроса, а не встраивается в SQL как литерал
+    private static <T> Expression<T> bind(CriteriaBuilder cb, T value) {
+        return ((HibernateCriteriaBuilder) cb).value(value);
+    }
+    
+    private static String normalizeSearch(String search) {
+        return search.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
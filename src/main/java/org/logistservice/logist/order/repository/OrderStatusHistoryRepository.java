@@ -1,12 +1,22 @@
 package org.logistservice.logist.order.repository;
 
 import org.logistservice.logist.order.model.OrderStatusHistory;
+import org.logistservice.logist.order.model.dto.OrderStatusHistoryDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderStatusHistoryRepository extends JpaRepository<OrderStatusHistory, Long> {
-    // Custom query methods to be added
+    @Query(value = "SELECT new org.logistservice.logist.order.model.dto.OrderStatusHistoryDto(" +
+            "h.id, h.oldStatus, h.newStatus, h.changedAt, u.id, u.username) " +
+            "FROM OrderStatusHistory h LEFT JOIN h.changedBy u " +
+            "WHERE h.order.id = :orderId ORDER BY h.changedAt DESC, h.id DESC",
+            countQuery = "SELECT count(h) FROM OrderStatusHistory h WHERE h.order.id = :orderId")
+    Page<OrderStatusHistoryDto> findDtosByOrderId(@Param("orderId") Long orderId, Pageable pageable);
 }
 
 
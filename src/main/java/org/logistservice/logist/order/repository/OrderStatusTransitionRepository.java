@@ -0,0 +1,18 @@
+package org.logistservice.logist.order.repository;
+
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.OrderStatusTransition;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+// Смена статусов заказов без загрузки сущностей
+public interface OrderStatusTransitionRepository {
+    // Текущие статусы найденных заказов
+    Map<Long, OrderStatus> findStatuses(Collection<Long> orderIds);
+    // Переводит каждый заказ из expected в new, только если он все еще в expected, и пишет историю тем же запросом.
+    // Возвращает даты создания переведенных заказов по id (для агрегатов статистики)
+    Map<Long, LocalDateTime> compareAndSet(Collection<OrderStatusTransition> transitions,
+                                           LocalDateTime changedAt, Long changedByUserId);
+}
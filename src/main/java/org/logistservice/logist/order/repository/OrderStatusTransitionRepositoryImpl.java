@@ -0,0 +1,87 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.OrderStatusTransition;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class OrderStatusTransitionRepositoryImpl implements OrderStatusTransitionRepository {
+    
+    // Условие на статус в WHERE делает переход атомарным: из двух конкурентных переходов
+    // из одного статуса строку изменит только первый, второй не попадет в RETURNING.
+    // Строки пачки сначала блокируются по возрастанию id (порядок самого UPDATE ... FROM выбирает
+    // планировщик), поэтому пачки с пересекающимися заказами не ждут друг друга по кругу.
+    // История пишется из RETURNING того же запроса, только для примененных переходов.
+    // Пачка передается массивами, поэтому число запросов не зависит от ее размера
+    private static final String COMPARE_AND_SET =
+            "WITH locked AS MATERIALIZED (" +
+            "  SELECT id FROM orders WHERE id = ANY(CAST(:ids AS bigint[])) ORDER BY id FOR UPDATE), " +
+            "changed AS (" +
+            "  UPDATE orders o SET status = t.next, " +
+            "    actual_delivery_date = CASE WHEN t.next = '" + OrderStatus.DELIVERED.name() + "' " +
+            "      THEN :changedAt ELSE o.actual_delivery_date END " +
+            "  FROM unnest(CAST(:ids AS bigint[]), CAST(:expected AS varchar[]), CAST(:next AS varchar[])) " +
+            "    AS t(id, expected, next) " +
+            "  JOIN locked l ON l.id = t.id " +
+            "  WHERE o.id = t.id AND o.status = t.expected " +
+            "  RETURNING o.id, o.created_at, t.expected, t.next), " +
+            "history AS (" +
+            "  INSERT INTO order_status_history (order_id, old_status, new_status, changed_at, changed_by_user_id) " +
+            "  SELECT id, expected, next, :changedAt, :userId FROM changed ORDER BY id) " +
+            "SELECT id, created_at FROM changed";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, OrderStatus> findStatuses(Collection<Long> orderIds) {
+        Map<Long, OrderStatus> statuses = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return statuses;
+        }
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT id, status FROM orders WHERE id IN (:ids)")
+                .setParameter("ids", orderIds)
+                .getResultList();
+        for (Object[] row : rows) {
+            statuses.put(((Number) row[0]).longValue(), OrderStatus.valueOf((String) row[1]));
+        }
+        return statuses;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, LocalDateTime> compareAndSet(Collection<OrderStatusTransition> transitions,
+                                                  LocalDateTime changedAt, Long changedByUserId) {
+        Map<Long, LocalDateTime> createdAt = new HashMap<>();
+        if (transitions.isEmpty()) {
+            return createdAt;
+        }
+        List<Object[]> rows = entityManager.createNativeQuery(COMPARE_AND_SET)
+                .unwrap(NativeQuery.class)
+                .setParameter("ids", transitions.stream().map(OrderStatusTransition::getOrderId).toArray(Long[]::new))
+                .setParameter("expected", transitions.stream().map(t -> t.getExpectedStatus().name()).toArray(String[]::new))
+                .setParameter("next", transitions.stream().map(t -> t.getNewStatus().name()).toArray(String[]::new))
+                .setParameter("changedAt", changedAt)
+                .setParameter("userId", changedByUserId, Long.class)
+                .getResultList();
+        for (Object[] row : rows) {
+            createdAt.put(((Number) row[0]).longValue(), toLocalDateTime(row[1]));
+        }
+        return createdAt;
+    }
+    
+    private LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,11 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.deletion.model.DeletionProgress;
+
+// Удаление зависимых строк справочника пачками set-based запросами, каждая пачка в своей транзакции
+// (или в транзакции вызывающего кода, если она открыта)
+public interface OrderBulkDeleteService {
+    void deleteOrdersOfClient(Long clientId, DeletionProgress progress);
+    void deleteAssignmentsOfVehicle(Long vehicleId, DeletionProgress progress);
+    void deleteAssignmentsOfDriver(Long driverId, DeletionProgress progress);
+}
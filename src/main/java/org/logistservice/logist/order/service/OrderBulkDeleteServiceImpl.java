@@ -0,0 +1,100 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.deletion.model.DeletionProgress;
+import org.logistservice.logist.order.repository.OrderBulkDeleteRepository;
+import org.logistservice.logist.stats.model.VehicleDay;
+import org.logistservice.logist.stats.service.StatsRollupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Service
+public class OrderBulkDeleteServiceImpl implements OrderBulkDeleteService {
+    
+    private final OrderBulkDeleteRepository bulkDeleteRepository;
+    private final StatsRollupService statsRollupService;
+    private final OrderDetailsCache orderDetailsCache;
+    private final OrderShards shards;
+    private final int chunkSize;
+    
+    public OrderBulkDeleteServiceImpl(OrderBulkDeleteRepository bulkDeleteRepository,
+                                      StatsRollupService statsRollupService,
+                                      OrderDetailsCache orderDetailsCache,
+                                      OrderShards shards,
+                                      @Value("${app.bulk-delete.chunk-size:1000}") int chunkSize) {
+        this.bulkDeleteRepository = bulkDeleteRepository;
+        this.statsRollupService = statsRollupService;
+        this.orderDetailsCache = orderDetailsCache;
+        this.shards = shards;
+        this.chunkSize = chunkSize;
+    }
+    
+    // Заказы и назначения удаляются на каждом шарде по очереди; пачки шарда текущей транзакции идут в ней
+    @Override
+    public void deleteOrdersOfClient(Long clientId, DeletionProgress progress) {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int[] deleted;
+            do {
+                deleted = shards.write(shard, () -> deleteOrderChunk(clientId));
+                addChunk(progress, deleted);
+            } while (deleted[0] == chunkSize);
+        }
+    }
+    
+    @Override
+    public void deleteAssignmentsOfVehicle(Long vehicleId, DeletionProgress progress) {
+        deleteAssignments(limit -> bulkDeleteRepository.lockAssignmentsByVehicleId(vehicleId, limit), progress);
+    }
+    
+    @Override
+    public void deleteAssignmentsOfDriver(Long driverId, DeletionProgress progress) {
+        deleteAssignments(limit -> bulkDeleteRepository.lockAssignmentsByDriverId(driverId, limit), progress);
+    }
+    
+    private void deleteAssignments(Function<Integer, Map<Long, Long>> lockChunk, DeletionProgress progress) {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            int[] deleted;
+            do {
+                deleted = shards.write(shard, () -> deleteAssignmentChunk(lockChunk.apply(chunkSize)));
+                addChunk(progress, deleted);
+            } while (deleted[1] == chunkSize);
+        }
+    }
+    
+    // Возвращает число удаленных {заказов, назначений, записей истории статусов}
+    private int[] deleteOrderChunk(Long clientId) {
+        List<Long> orderIds = bulkDeleteRepository.lockOrderIdsByClientId(clientId, chunkSize);
+        if (orderIds.isEmpty()) {
+            return new int[3];
+        }
+        List<VehicleDay> vehicleDays = statsRollupService.vehicleDaysOfOrders(orderIds);
+        statsRollupService.ordersDeleted(orderIds);
+        int statusHistory = bulkDeleteRepository.deleteStatusHistoryByOrderIds(orderIds);
+        int assignments = bulkDeleteRepository.deleteAssignmentsByOrderIds(orderIds);
+        int orders = bulkDeleteRepository.deleteOrdersByIds(orderIds);
+        statsRollupService.refreshVehicleLoad(vehicleDays);
+        orderDetailsCache.evict(orderIds);
+        return new int[]{orders, assignments, statusHistory};
+    }
+    
+    // assignments: id назначения -> id заказа
+    private int[] deleteAssignmentChunk(Map<Long, Long> assignments) {
+        if (assignments.isEmpty()) {
+            return new int[3];
+        }
+        List<VehicleDay> vehicleDays = statsRollupService.vehicleDaysOfAssignments(assignments.keySet());
+        int deleted = bulkDeleteRepository.deleteAssignmentsByIds(assignments.keySet());
+        statsRollupService.refreshVehicleLoad(vehicleDays);
+        orderDetailsCache.evict(assignments.values());
+        return new int[]{0, deleted, 0};
+    }
+    
+    private void addChunk(DeletionProgress progress, int[] deleted) {
+        if (deleted[0] + deleted[1] + deleted[2] > 0) {
+            progress.addChunk(deleted[0], deleted[1], deleted[2]);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.logistservice.logist.order.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.logistservice.logist.common.enums.OrderSortField;
+import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.common.exception.BadRequestException;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.dto.OrderDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Позиция в списке заказов для keyset-пагинации: последний отданный (ключ сортировки, id).
+// Клиенту передается как непрозрачная base64url-строка.
+@Getter
+@AllArgsConstructor
+public class OrderCursor {
+    
+    private static final String SEPARATOR = "|";
+    private static final String ID_ONLY = "ID";
+    private static final String NULL_VALUE = "N";
+    private static final String PRESENT_VALUE = "V";
+    
+    private final OrderSortField sortField;
+    private final SortDirection sortDirection;
+    private final Object lastKey;
+    private final Long lastId;
+    
+    public static OrderCursor after(OrderDto last, OrderSortField sortField, SortDirection sortDirection) {
+        if (sortField == null) {
+            return new OrderCursor(null, SortDirection.ASC, null, last.getId());
+        }
+        Object key = switch (sortField) {
+            case ORDER_NUMBER -> last.getOrderNumber();
+            case CLIENT_NAME -> last.getClientName();
+            case STATUS -> last.getStatus();
+            case CREATED_AT -> last.getCreatedAt();
+            case PLANNED_PICKUP_DATE -> last.getPlannedPickupDate();
+            case PLANNED_DELIVERY_DATE -> last.getPlannedDeliveryDate();
+        };
+        return new OrderCursor(sortField, normalize(sortDirection), key, last.getId());
+    }
+    
+    public boolean matches(OrderSortField sortField, SortDirection sortDirection) {
+        if (sortField == null) {
+            return this.sortField == null;
+        }
+        return this.sortField == sortField && this.sortDirection == normalize(sortDirection);
+    }
+    
+    public String encode() {
+        String raw = (sortField != null ? sortField.name() : ID_ONLY) + SEPARATOR
+                + sortDirection.name() + SEPARATOR
+                + lastId + SEPARATOR
+                + (lastKey != null ? PRESENT_VALUE + keyToString(lastKey) : NULL_VALUE);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // Значение ключа идет последним и может само содержать разделитель
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            OrderSortField sortField = ID_ONLY.equals(parts[0]) ? null : OrderSortField.valueOf(parts[0]);
+            SortDirection sortDirection = SortDirection.valueOf(parts[1]);
+            Long lastId = Long.valueOf(parts[2]);
+            Object lastKey = null;
+            if (parts[3].startsWith(PRESENT_VALUE) && sortField != null) {
+                lastKey = keyFromString(sortField, parts[3].substring(PRESENT_VALUE.length()));
+            } else if (!NULL_VALUE.equals(parts[3])) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new OrderCursor(sortField, sortDirection, lastKey, lastId);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+    
+    private static SortDirection normalize(SortDirection sortDirection) {
+        return sortDirection == SortDirection.DESC ? SortDirection.DESC : SortDirection.ASC;
+    }
+    
+    private static String keyToString(Object key) {
+        return key instanceof OrderStatus status ? status.name() : key.toString();
+    }
+    
+    private static Object keyFromString(OrderSortField sortField, String value) {
+        return switch (sortField) {
+            case ORDER_NUMBER, CLIENT_NAME -> value;
+            case STATUS -> OrderStatus.valueOf(value);
+            case CREATED_AT -> LocalDateTime.parse(value);
+            case PLANNED_PICKUP_DATE, PLANNED_DELIVERY_DATE -> LocalDate.parse(value);
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.common.cache.StampedLoadingCache;
+import org.logistservice.logist.common.jdbc.ReadReplicaRoutingDataSource;
+import org.logistservice.logist.order.model.dto.OrderDetailsDto;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Кэш собранных деталей заказа (заказ + назначения + история) по id заказа.
+// Значения отдаются без копирования, вызывающий код не должен их изменять.
+@Component
+public class OrderDetailsCache {
+
+    public static final String CACHE_NAME = "order-details";
+
+    private final StampedLoadingCache<Long, OrderDetailsDto> cache;
+
+    public OrderDetailsCache(CacheManager jcacheManager) {
+        Cache<Long, OrderDetailsDto> configured = jcacheManager.getCache(CACHE_NAME);
+        if (configured == null) {
+            throw new IllegalStateException("Cache region is not configured: app.cache.regions." + CACHE_NAME);
+        }
+        this.cache = new StampedLoadingCache<>(configured);
+    }
+
+    // Загрузка читает с основной базы: значение с отставшей реплики осталось бы в кэше до следующего сброса
+    public OrderDetailsDto get(Long orderId, Supplier<OrderDetailsDto> loader) {
+        return cache.get(orderId, () -> ReadReplicaRoutingDataSource.onPrimary(loader));
+    }
+
+    public void evict(Long orderId) {
+        afterTransaction(() -> cache.evict(orderId));
+    }
+
+    public void evict(Collection<Long> orderIds) {
+        Set<Long> keys = new HashSet<>(orderIds);
+        afterTransaction(() -> cache.evictAll(keys));
+    }
+    
+    // Для изменений справочников (клиент, транспорт, водитель, пользователь), видимых в деталях многих заказов
+    public void evictAll() {
+        afterTransaction(cache::evictAll);
+    }
+
+    // До коммита читатели видят прежнюю закоммиченную версию, поэтому сбрасываем после завершения транзакции
+    private void afterTransaction(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.logistservice.logist.order.model.dto.OrderCreateUpdateRequest;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface OrderImportService {
+    ImportReportDto importOrders(List<OrderCreateUpdateRequest> requests);
+    ImportReportDto importOrdersCsv(InputStream csv);
+    ImportReportDto importOrdersNdjson(InputStream ndjson);
+}
@@ -0,0 +1,284 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.client.model.Client;
+import org.logistservice.logist.common.dto.ImportErrorDto;
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.logistservice.logist.common.imports.ImportReader;
+import org.logistservice.logist.common.imports.ImportRow;
+import org.logistservice.logist.common.repository.SequenceIdAllocator;
+import org.logistservice.logist.client.repository.ClientRepository;
+import org.logistservice.logist.driver.model.Driver;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.OrderAssignment;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.dto.OrderCreateUpdateRequest;
+import org.logistservice.logist.order.repository.OrderImportRepository;
+import org.logistservice.logist.security.CurrentUser;
+import org.logistservice.logist.stats.service.StatsRollupService;
+import org.logistservice.logist.user.model.User;
+import org.logistservice.logist.vehicle.model.Vehicle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Массовый импорт заказов. Строки обрабатываются пачками, каждая пачка - своя транзакция:
+// ссылки на клиентов, менеджеров, водителей и транспорт проверяются одним запросом на справочник,
+// заказы и назначения пишутся JDBC-пакетами. Ошибочные строки пропускаются и попадают в отчет
+@Service
+public class OrderImportServiceImpl implements OrderImportService {
+    
+    private final OrderImportRepository importRepository;
+    private final ClientRepository clientRepository;
+    private final OrderReferences references;
+    private final CurrentUser currentUser;
+    private final StatsRollupService statsRollupService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final SequenceIdAllocator idAllocator;
+    private final ImportReader importReader;
+    private final OrderShards shards;
+    private final int chunkSize;
+    
+    public OrderImportServiceImpl(OrderImportRepository importRepository,
+                                  ClientRepository clientRepository,
+                                  OrderReferences references,
+                                  CurrentUser currentUser,
+                                  StatsRollupService statsRollupService,
+                                  OrderNumberGenerator orderNumberGenerator,
+                                  SequenceIdAllocator idAllocator,
+                                  ImportReader importReader,
+                                  OrderShards shards,
+                                  @Value("${app.import.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("app.import.chunk-size must be positive");
+        }
+        this.importRepository = importRepository;
+        this.clientRepository = clientRepository;
+        this.references = references;
+        this.currentUser = currentUser;
+        this.statsRollupService = statsRollupService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.idAllocator = idAllocator;
+        this.importReader = importReader;
+        this.shards = shards;
+        this.chunkSize = chunkSize;
+    }
+    
+    @Override
+    public ImportReportDto importOrders(List<OrderCreateUpdateRequest> requests) {
+        return importRows(importReader.list(requests));
+    }
+    
+    @Override
+    public ImportReportDto importOrdersCsv(InputStream csv) {
+        return importRows(importReader.csv(csv, OrderCreateUpdateRequest.class));
+    }
+    
+    @Override
+    public ImportReportDto importOrdersNdjson(InputStream ndjson) {
+        return importRows(importReader.ndjson(ndjson, OrderCreateUpdateRequest.class));
+    }
+    
+    private ImportReportDto importRows(Iterator<ImportRow<OrderCreateUpdateRequest>> rows) {
+        Long currentUserId = currentUser.getId();
+        ImportReportDto report = new ImportReportDto();
+        ImportReader.forEachChunk(rows, chunkSize, chunk -> importChunk(chunk, currentUserId, report));
+        return report.complete();
+    }
+    
+    private void importChunk(List<ImportRow<OrderCreateUpdateRequest>> chunk, Long currentUserId, ImportReportDto report) {
+        report.setTotalRows(report.getTotalRows() + chunk.size());
+        
+        List<ImportRow<OrderCreateUpdateRequest>> valid = new ArrayList<>(chunk.size());
+        for (ImportRow<OrderCreateUpdateRequest> row : chunk) {
+            if (row.isFailed()) {
+                report.addError(row.getNumber(), row.getError());
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        
+        // Строки пачки раскладываются по шардам заказов, часть пачки для каждого шарда - своя транзакция
+        groupByShard(valid).forEach((shard, rows) -> importShardChunk(shard, rows, currentUserId, report));
+    }
+    
+    private Map<Integer, List<ImportRow<OrderCreateUpdateRequest>>> groupByShard(
+            List<ImportRow<OrderCreateUpdateRequest>> rows) {
+        if (shards.count() == 1) {
+            return Map.of(0, rows);
+        }
+        Map<Long, Client> clients = findAll(rows, OrderCreateUpdateRequest::getClientId,
+                clientRepository::findAllById, Client::getId);
+        return rows.stream().collect(Collectors.groupingBy(row -> {
+            OrderCreateUpdateRequest request = row.getValue();
+            return shards.ofNewOrder(request.getOriginCity(), () -> {
+                Client client = clients.get(request.getClientId());
+                return client != null ? client.getCity() : null;
+            });
+        }, TreeMap::new, Collectors.toList()));
+    }
+    
+    private void importShardChunk(int shard, List<ImportRow<OrderCreateUpdateRequest>> valid, Long currentUserId,
+                                  ImportReportDto report) {
+        // Номера резервируются до начала транзакции, как и при создании одного заказа
+        List<String> orderNumbers = orderNumberGenerator.next(valid.size());
+        try {
+            List<ImportErrorDto> errors = new ArrayList<>();
+            Integer created = shards.writeReferencing(shard, () -> referencesOf(shard, valid, currentUserId),
+                    refs -> insertChunk(valid, refs, orderNumbers, currentUserId, errors));
+            report.setCreated(report.getCreated() + (created != null ? created : 0));
+            report.getErrors().addAll(errors);
+        } catch (DataAccessException e) {
+            // Пачка откатывается целиком, например если справочник удалили во время импорта
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            valid.forEach(row -> report.addError(row.getNumber(), "Chunk rolled back: " + message));
+        }
+    }
+    
+    // Справочники пачки читаются на шарде 0 (см. OrderReferences); заказы пишутся мимо Hibernate,
+    // поэтому от них нужны только id и название клиента
+    private ChunkReferences referencesOf(int shard, List<ImportRow<OrderCreateUpdateRequest>> rows, Long currentUserId) {
+        Map<Long, Client> clients = findAll(rows, OrderCreateUpdateRequest::getClientId,
+                ids -> references.clients(shard, ids), Client::getId);
+        Set<Long> managerIds = new HashSet<>();
+        rows.forEach(row -> managerIds.add(row.getValue().getManagerId()));
+        managerIds.add(currentUserId);
+        managerIds.remove(null);
+        Map<Long, User> managers = references.managers(managerIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Driver> drivers = findAll(rows, OrderCreateUpdateRequest::getDriverId,
+                ids -> references.drivers(shard, ids), Driver::getId);
+        Map<Long, Vehicle> vehicles = findAll(rows, OrderCreateUpdateRequest::getVehicleId,
+                ids -> references.vehicles(shard, ids), Vehicle::getId);
+        return new ChunkReferences(clients, managers, drivers, vehicles);
+    }
+    
+    private int insertChunk(List<ImportRow<OrderCreateUpdateRequest>> rows, ChunkReferences refs, List<String> orderNumbers,
+                            Long currentUserId, List<ImportErrorDto> errors) {
+        Map<Long, Client> clients = refs.clients();
+        Map<Long, User> managers = refs.managers();
+        Map<Long, Driver> drivers = refs.drivers();
+        Map<Long, Vehicle> vehicles = refs.vehicles();
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(rows.size());
+        List<OrderAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow<OrderCreateUpdateRequest> row = rows.get(i);
+            OrderCreateUpdateRequest request = row.getValue();
+            
+            Client client = clients.get(request.getClientId());
+            if (client == null) {
+                errors.add(new ImportErrorDto(row.getNumber(), "Client not found with id: " + request.getClientId()));
+                continue;
+            }
+            User manager = managers.get(request.getManagerId() != null ? request.getManagerId() : currentUserId);
+            if (request.getManagerId() != null && manager == null) {
+                errors.add(new ImportErrorDto(row.getNumber(), "User not found with id: " + request.getManagerId()));
+                continue;
+            }
+            
+            // Как и при создании одного заказа, назначение создается, только если указаны и водитель, и транспорт
+            Driver driver = null;
+            Vehicle vehicle = null;
+            if (request.getDriverId() != null && request.getVehicleId() != null) {
+                driver = drivers.get(request.getDriverId());
+                if (driver == null) {
+                    errors.add(new ImportErrorDto(row.getNumber(), "Driver not found with id: " + request.getDriverId()));
+                    continue;
+                }
+                vehicle = vehicles.get(request.getVehicleId());
+                if (vehicle == null) {
+                    errors.add(new ImportErrorDto(row.getNumber(), "Vehicle not found with id: " + request.getVehicleId()));
+                    continue;
+                }
+            }
+            
+            Order order = Order.builder()
+                    .orderNumber(orderNumbers.get(i))
+                    .client(client)
+                    .status(OrderStatus.NEW)
+                    .createdAt(now)
+                    .plannedPickupDate(request.getPlannedPickupDate())
+                    .plannedDeliveryDate(request.getPlannedDeliveryDate())
+                    .originCity(request.getOriginCity())
+                    .originAddress(request.getOriginAddress())
+                    .destinationCity(request.getDestinationCity())
+                    .destinationAddress(request.getDestinationAddress())
+                    .cargoDescription(request.getCargoDescription())
+                    .cargoWeight(request.getCargoWeight())
+                    .cargoVolume(request.getCargoVolume())
+                    .price(request.getPrice())
+                    .manager(manager)
+                    .build();
+            // Строка пишется мимо Hibernate, поэтому @PrePersist не сработает
+            order.refreshSearchText();
+            orders.add(order);
+            
+            if (driver != null) {
+                assignments.add(OrderAssignment.builder()
+                        .order(order)
+                        .driver(driver)
+                        .vehicle(vehicle)
+                        .plannedStart(request.getPlannedPickupDate() != null
+                                ? request.getPlannedPickupDate().atStartOfDay() : null)
+                        .plannedEnd(request.getPlannedDeliveryDate() != null
+                                ? request.getPlannedDeliveryDate().atTime(23, 59, 59) : null)
+                        .build());
+            }
+        }
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        
+        List<Long> orderIds = idAllocator.allocate("orders", orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(orderIds.get(i));
+        }
+        importRepository.insertOrders(orders);
+        
+        if (!assignments.isEmpty()) {
+            List<Long> assignmentIds = idAllocator.allocate("order_assignments", assignments.size());
+            for (int i = 0; i < assignments.size(); i++) {
+                assignments.get(i).setId(assignmentIds.get(i));
+            }
+            importRepository.insertAssignments(assignments);
+        }
+        
+        statsRollupService.ordersImported(orderIds);
+        return orders.size();
+    }
+    
+    private <T> Map<Long, T> findAll(List<ImportRow<OrderCreateUpdateRequest>> rows, Function<OrderCreateUpdateRequest, Long> idOf,
+                                     Function<Set<Long>, List<T>> loader, Function<T, Long> idOfEntity) {
+        Set<Long> ids = rows.stream()
+                .map(row -> idOf.apply(row.getValue()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return loader.apply(ids).stream()
+                .collect(Collectors.toMap(idOfEntity, Function.identity()));
+    }
+    
+    private record ChunkReferences(Map<Long, Client> clients, Map<Long, User> managers,
+                                   Map<Long, Driver> drivers, Map<Long, Vehicle> vehicles) {
+    }
+}
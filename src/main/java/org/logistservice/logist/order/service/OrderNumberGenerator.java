@@ -0,0 +1,96 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.common.jdbc.ShardRoutingDataSource;
+import org.logistservice.logist.order.repository.OrderNumberCounterRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+// Номера заказов ORD-yyyyMMdd-NNNNN из дневного счетчика в БД. Каждый узел резервирует блок номеров
+// одной транзакцией и выдает его из памяти без блокировок; номера уникальны, но могут идти с пропусками
+@Component
+public class OrderNumberGenerator {
+    
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    private final OrderNumberCounterRepository counterRepository;
+    private final int blockSize;
+    
+    private volatile Block block = new Block(null, 0, 0);
+    
+    public OrderNumberGenerator(OrderNumberCounterRepository counterRepository,
+                                @Value("${app.order-number.block-size:50}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("app.order-number.block-size must be positive");
+        }
+        this.counterRepository = counterRepository;
+        this.blockSize = blockSize;
+    }
+    
+    public String next() {
+        LocalDate today = LocalDate.now();
+        while (true) {
+            Block current = block;
+            if (today.equals(current.day)) {
+                long value = current.next.getAndIncrement();
+                if (value < current.end) {
+                    return format(today, value);
+                }
+            }
+            refill(current, today);
+        }
+    }
+    
+    // Номера для пачки заказов (импорт): большая пачка резервирует в счетчике собственный диапазон,
+    // не расходуя общий блок узла
+    public List<String> next(int count) {
+        if (count < blockSize) {
+            List<String> numbers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                numbers.add(next());
+            }
+            return numbers;
+        }
+        LocalDate today = LocalDate.now();
+        long first = allocate(today, count);
+        return LongStream.range(first, first + count)
+                .mapToObj(value -> format(today, value))
+                .toList();
+    }
+    
+    private String format(LocalDate day, long value) {
+        return "ORD-" + day.format(DATE_FORMATTER) + "-" + String.format("%05d", value);
+    }
+    
+    // Блок резервирует один поток, остальные после выхода из монитора берут номера из нового блока
+    private synchronized void refill(Block exhausted, LocalDate day) {
+        if (block != exhausted) {
+            return;
+        }
+        long first = allocate(day, blockSize);
+        block = new Block(day, first, first + blockSize);
+    }
+    
+    // Счетчик один на все шарды заказов и живет на шарде 0, даже если номер нужен внутри транзакции другого шарда
+    private long allocate(LocalDate day, int count) {
+        return ShardRoutingDataSource.onShard(0, () -> counterRepository.allocate(day, count));
+    }
+    
+    private static final class Block {
+        private final LocalDate day;
+        private final AtomicLong next;
+        private final long end;
+        
+        private Block(LocalDate day, long first, long end) {
+            this.day = day;
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.client.model.Client;
+import org.logistservice.logist.client.repository.ClientRepository;
+import org.logistservice.logist.common.exception.NotFoundException;
+import org.logistservice.logist.driver.model.Driver;
+import org.logistservice.logist.driver.repository.DriverRepository;
+import org.logistservice.logist.security.CurrentUser;
+import org.logistservice.logist.user.model.User;
+import org.logistservice.logist.user.repository.UserRepository;
+import org.logistservice.logist.vehicle.model.Vehicle;
+import org.logistservice.logist.vehicle.repository.VehicleRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Справочники, на которые ссылаются заказы и назначения. Справочники ведутся на шарде 0; на остальных шардах
+// лежат их реплики для чтения, без внешних ключей (ShardingConfig). Поэтому ссылки записи на шард k проверяются
+// здесь, в транзакции шарда 0 (OrderShards.writeReferencing), а клиент, водитель и транспорт читаются
+// с FOR KEY SHARE: их удаление берет lockById на шарде 0, ждет коммита такой записи и затем удаляет и ее строки.
+// Для шарда 0 ссылки, как и раньше, проверяет внешний ключ. Вызывать в транзакции шарда 0
+@Component
+public class OrderReferences {
+
+    private final ClientRepository clientRepository;
+    private final UserRepository userRepository;
+    private final DriverRepository driverRepository;
+    private final VehicleRepository vehicleRepository;
+    private final CurrentUser currentUser;
+
+    public OrderReferences(ClientRepository clientRepository,
+                           UserRepository userRepository,
+                           DriverRepository driverRepository,
+                           VehicleRepository vehicleRepository,
+                           CurrentUser currentUser) {
+        this.clientRepository = clientRepository;
+        this.userRepository = userRepository;
+        this.driverRepository = driverRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.currentUser = currentUser;
+    }
+
+    // Название клиента нужно для поисковой строки и ответа; на шарде 0 клиент обычно уже в кэше второго уровня
+    public Client client(int shard, Long id) {
+        Optional<Client> client = shard == 0
+                ? clientRepository.findById(id)
+                : clientRepository.findAllForKeyShareByIdIn(List.of(id)).stream().findFirst();
+        return client.orElseThrow(() -> new NotFoundException("Client not found with id: " + id));
+    }
+
+    public List<Client> clients(int shard, Collection<Long> ids) {
+        return shard == 0 ? clientRepository.findAllById(ids) : clientRepository.findAllForKeyShareByIdIn(ids);
+    }
+
+    // Без id - текущий пользователь: на шарде 0 прокси без запроса, для другого шарда он читается здесь,
+    // чтобы сессия шарда k не загружала его из реплики
+    public User manager(int shard, Long id) {
+        if (id == null) {
+            Long currentUserId = currentUser.getId();
+            if (shard == 0 || currentUserId == null) {
+                return currentUser.getReference();
+            }
+            return userRepository.findById(currentUserId).orElse(null);
+        }
+        return userRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
+    }
+
+    public List<User> managers(Collection<Long> ids) {
+        return userRepository.findAllById(ids);
+    }
+
+    public Driver driver(int shard, Long id) {
+        Optional<Driver> driver = shard == 0
+                ? driverRepository.findById(id)
+                : driverRepository.findAllForKeyShareByIdIn(List.of(id)).stream().findFirst();
+        return driver.orElseThrow(() -> new NotFoundException("Driver not found with id: " + id));
+    }
+
+    public List<Driver> drivers(int shard, Collection<Long> ids) {
+        return shard == 0 ? driverRepository.findAllById(ids) : driverRepository.findAllForKeyShareByIdIn(ids);
+    }
+
+    public Vehicle vehicle(int shard, Long id) {
+        Optional<Vehicle> vehicle = shard == 0
+                ? vehicleRepository.findById(id)
+                : vehicleRepository.findAllForKeyShareByIdIn(List.of(id)).stream().findFirst();
+        return vehicle.orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + id));
+    }
+
+    public List<Vehicle> vehicles(int shard, Collection<Long> ids) {
+        return shard == 0 ? vehicleRepository.findAllById(ids) : vehicleRepository.findAllForKeyShareByIdIn(ids);
+    }
+
+    // Ссылка только для внешнего ключа: на шарде 0 - прокси без чтения, существование проверит БД при сбросе
+    public Driver driverReference(int shard, Long id) {
+        return shard == 0 ? driverRepository.getReferenceById(id) : driver(shard, id);
+    }
+
+    public Vehicle vehicleReference(int shard, Long id) {
+        return shard == 0 ? vehicleRepository.getReferenceById(id) : vehicle(shard, id);
+    }
+}
@@ -1,21 +1,28 @@
 package org.logistservice.logist.order.service;
 
+import org.logistservice.logist.common.dto.CursorPageResponse;
+import org.logistservice.logist.common.dto.PageResponse;
 import org.logistservice.logist.common.enums.OrderSortField;
 import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.order.model.OrderStatus;
 import org.logistservice.logist.order.model.dto.*;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderService {
-    List<OrderDto> getAll(String search, OrderStatus status, Long clientId, LocalDate fromDate, LocalDate toDate, 
-                          OrderSortField sortField, SortDirection sortDirection);
+    PageResponse<OrderDto> getAll(String search, OrderStatus status, Long clientId, LocalDate fromDate, LocalDate toDate, 
+                                  OrderSortField sortField, SortDirection sortDirection, int page, int size);
+    CursorPageResponse<OrderDto> getAllByCursor(String search, OrderStatus status, Long clientId, LocalDate fromDate, LocalDate toDate,
+                                                OrderSortField sortField, SortDirection sortDirection, String cursor, int size);
+    void streamAll(String search, OrderStatus status, Long clientId, LocalDate fromDate, LocalDate toDate,
+                   OrderSortField sortField, SortDirection sortDirection, Consumer<OrderDto> action);
     OrderDetailsDto getById(Long id);
+    OrderDetailsDto getById(Long id, int historyPage, int historySize);
     OrderDto create(OrderCreateUpdateRequest request);
     OrderDto update(Long id, OrderCreateUpdateRequest request);
     void delete(Long id);
-    OrderDto updateStatus(Long id, OrderStatus newStatus);
+    OrderDto updateStatus(Long id, OrderStatus expectedStatus, OrderStatus newStatus);
     OrderAssignmentDto addAssignment(Long orderId, OrderAssignmentCreateUpdateRequest request);
     OrderAssignmentDto updateAssignment(Long assignmentId, OrderAssignmentCreateUpdateRequest request);
     void deleteAssignment(Long assignmentId);
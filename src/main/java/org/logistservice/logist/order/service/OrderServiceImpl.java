@@ -2,38 +2,46 @@ package org.logistservice.logist.order.service;
 
 import org.logistservice.logist.client.model.Client;
 import org.logistservice.logist.client.repository.ClientRepository;
+import org.logistservice.logist.common.dto.CursorPageResponse;
+import org.logistservice.logist.common.dto.PageResponse;
 import org.logistservice.logist.common.enums.OrderSortField;
 import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.common.exception.BadRequestException;
 import org.logistservice.logist.common.exception.NotFoundException;
 import org.logistservice.logist.driver.model.Driver;
-import org.logistservice.logist.driver.repository.DriverRepository;
 import org.logistservice.logist.order.model.Order;
 import org.logistservice.logist.order.model.OrderAssignment;
 import org.logistservice.logist.order.model.OrderStatus;
-import org.logistservice.logist.order.model.OrderStatusHistory;
 import org.logistservice.logist.order.model.dto.*;
 import org.logistservice.logist.order.repository.OrderAssignmentRepository;
 import org.logistservice.logist.order.repository.OrderRepository;
+import org.logistservice.logist.order.repository.OrderSpecifications;
 import org.logistservice.logist.order.repository.OrderStatusHistoryRepository;
-import org.logistservice.logist.security.CustomUserDetails;
+import org.logistservice.logist.stats.model.VehicleDay;
+import org.logistservice.logist.stats.service.StatsRollupService;
 import org.logistservice.logist.user.model.User;
-import org.logistservice.logist.user.repository.UserRepository;
-import org.springframework.util.StringUtils;
 import org.logistservice.logist.vehicle.model.Vehicle;
-import org.logistservice.logist.vehicle.repository.VehicleRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -42,131 +50,232 @@ public class OrderServiceImpl implements OrderService {
     private final OrderAssignmentRepository assignmentRepository;
     private final OrderStatusHistoryRepository statusHistoryRepository;
     private final ClientRepository clientRepository;
-    private final VehicleRepository vehicleRepository;
-    private final DriverRepository driverRepository;
-    private final UserRepository userRepository;
-    
-    private static final Random random = new Random();
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private final OrderReferences references;
+    private final OrderDetailsCache orderDetailsCache;
+    private final StatsRollupService statsRollupService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderStatusTransitionService statusTransitionService;
+    private final OrderShards shards;
     
     public OrderServiceImpl(OrderRepository orderRepository,
                            OrderAssignmentRepository assignmentRepository,
                            OrderStatusHistoryRepository statusHistoryRepository,
                            ClientRepository clientRepository,
-                           VehicleRepository vehicleRepository,
-                           DriverRepository driverRepository,
-                           UserRepository userRepository) {
+                           OrderReferences references,
+                           OrderDetailsCache orderDetailsCache,
+                           StatsRollupService statsRollupService,
+                           OrderNumberGenerator orderNumberGenerator,
+                           OrderStatusTransitionService statusTransitionService,
+                           OrderShards shards) {
         this.orderRepository = orderRepository;
         this.assignmentRepository = assignmentRepository;
         this.statusHistoryRepository = statusHistoryRepository;
         this.clientRepository = clientRepository;
-        this.vehicleRepository = vehicleRepository;
-        this.driverRepository = driverRepository;
-        this.userRepository = userRepository;
+        this.references = references;
+        this.orderDetailsCache = orderDetailsCache;
+        this.statsRollupService = statsRollupService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.statusTransitionService = statusTransitionService;
+        this.shards = shards;
     }
     
     @Override
-    @Transactional(readOnly = true)
-    public List<OrderDto> getAll(String search, OrderStatus status, Long clientId, LocalDate fromDate, LocalDate toDate,
-                                 OrderSortField sortField, SortDirection sortDirection) {
-        List<Order> orders = orderRepository.findAllWithClientAndManager();
-        
-        List<OrderDto> result = orders.stream()
-                .filter(order -> {
-                    boolean searchMatch = !StringUtils.hasText(search) || 
-                            (order.getOrderNumber() != null && order.getOrderNumber().toLowerCase().contains(search.toLowerCase())) ||
-                            (order.getClient() != null && order.getClient().getName() != null && 
-                             order.getClient().getName().toLowerCase().contains(search.toLowerCase())) ||
-                            (order.getOriginCity() != null && order.getOriginCity().toLowerCase().contains(search.toLowerCase())) ||
-                            (order.getDestinationCity() != null && order.getDestinationCity().toLowerCase().contains(search.toLowerCase()));
-                    boolean statusMatch = status == null || order.getStatus() == status;
-                    boolean clientMatch = clientId == null || 
-                            (order.getClient() != null && order.getClient().getId().equals(clientId));
-                    boolean dateMatch = true;
-                    if (fromDate != null || toDate != null) {
-                        LocalDate orderDate = order.getCreatedAt() != null ? 
-                                order.getCreatedAt().toLocalDate() : null;
-                        if (orderDate != null) {
-                            if (fromDate != null && orderDate.isBefore(fromDate)) {
-                                dateMatch = false;
-                            }
-                            if (toDate != null && orderDate.isAfter(toDate)) {
-                                dateMatch = false;
-                            }
-                        } else {
-                            dateMatch = false;
-                        }
-                    }
-                    return searchMatch && statusMatch && clientMatch && dateMatch;
-                })
-                .map(this::toOrderDto)
-                .collect(Collectors.toList());
+    public PageResponse<OrderDto> getAll(String search, OrderStatus status, Long clientId, LocalDate fromDate, LocalDate toDate,
+                                         OrderSortField sortField, SortDirection sortDirection, int page, int size) {
+        Specification<Order> filter = OrderSpecifications.filter(search, status, clientId, fromDate, toDate);
+        
+        // Без явной сортировки результаты поиска упорядочиваются по релевантности
+        boolean byRelevance = sortField == null && StringUtils.hasText(search);
+        Specification<Order> spec = byRelevance ? filter.and(OrderSpecifications.orderByRelevance(search)) : filter;
+        Sort sort = byRelevance ? Sort.unsorted() : toSort(sortField, sortDirection);
+        
+        // Строки списка читаются проекцией прямо в OrderDto, count-запрос строится только по фильтру
+        if (shards.count() == 1) {
+            return shards.read(0, () -> PageResponse.of(orderRepository.findOrderList(spec, filter, PageRequest.of(page, size, sort))));
+        }
         
-        // Применяем сортировку
-        if (sortField != null) {
-            Comparator<OrderDto> comparator = getOrderComparator(sortField);
-            if (sortDirection == SortDirection.DESC) {
-                comparator = comparator.reversed();
+        // С нескольких шардов: каждый отдает первые (page + 1) * size строк, из слияния берется нужная страница.
+        // Стоимость растет с номером страницы, поэтому глубже app.sharding.max-offset-rows листают курсором
+        if ((long) (page + 1) * size > shards.maxOffsetRows()) {
+            throw new BadRequestException("Page " + page + " is too deep for the sharded order list, use cursor pagination");
+        }
+        int limit = (page + 1) * size;
+        List<Page<OrderDto>> shardPages = shards.readAll(shard ->
+                orderRepository.findOrderList(spec, filter, PageRequest.of(0, limit, sort)));
+        List<List<OrderDto>> shardLists = shardPages.stream().map(Page::getContent).toList();
+        List<OrderDto> merged = byRelevance
+                ? ShardedOrderLists.interleave(shardLists, limit)
+                : ShardedOrderLists.merge(shardLists, sortField, sortDirection, limit);
+        List<OrderDto> content = merged.subList(Math.min(page * size, merged.size()), merged.size());
+        long total = shardPages.stream().mapToLong(Page::getTotalElements).sum();
+        return PageResponse.of(new PageImpl<>(content, PageRequest.of(page, size), total));
+    }
+    
+    @Override
+    public CursorPageResponse<OrderDto> getAllByCursor(String search, OrderStatus status, Long clientId,
+                                                       LocalDate fromDate, LocalDate toDate,
+                                                       OrderSortField sortField, SortDirection sortDirection,
+                                                       String cursor, int size) {
+        Specification<Order> filter = OrderSpecifications.filter(search, status, clientId, fromDate, toDate);
+        
+        // Пустой курсор означает начало списка
+        List<Specification<Order>> legs;
+        if (StringUtils.hasText(cursor)) {
+            OrderCursor position = OrderCursor.decode(cursor);
+            if (!position.matches(sortField, sortDirection)) {
+                throw new BadRequestException("Cursor does not match sortField/sortDirection");
             }
-            result = result.stream()
-                    .sorted(comparator)
-                    .collect(Collectors.toList());
+            legs = OrderSpecifications.after(position.getSortField(), position.getSortDirection(),
+                    position.getLastKey(), position.getLastId());
+        } else {
+            legs = List.of(Specification.unrestricted());
         }
         
-        return result;
-    }
-    
-    private Comparator<OrderDto> getOrderComparator(OrderSortField sortField) {
-        return switch (sortField) {
-            case ORDER_NUMBER -> Comparator.comparing(
-                    order -> order.getOrderNumber() != null ? order.getOrderNumber() : "",
-                    Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
-            case CLIENT_NAME -> Comparator.comparing(
-                    order -> order.getClientName() != null ? order.getClientName() : "",
-                    Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
-            case STATUS -> Comparator.comparing(
-                    OrderDto::getStatus,
-                    Comparator.nullsLast(Comparator.naturalOrder()));
-            case CREATED_AT -> Comparator.comparing(
-                    OrderDto::getCreatedAt,
-                    Comparator.nullsLast(Comparator.naturalOrder()));
-            case PLANNED_PICKUP_DATE -> Comparator.comparing(
-                    OrderDto::getPlannedPickupDate,
-                    Comparator.nullsLast(Comparator.naturalOrder()));
-            case PLANNED_DELIVERY_DATE -> Comparator.comparing(
-                    OrderDto::getPlannedDeliveryDate,
-                    Comparator.nullsLast(Comparator.naturalOrder()));
+        // Запрашиваем на одну строку больше, чтобы узнать, есть ли следующая страница, без count-запроса.
+        // Курсор - позиция в общем порядке, поэтому с каждого шарда достаточно size + 1 строк после него.
+        // Следующий участок (строки с NULL-ключом) читается, только если страница не набралась на предыдущем
+        Sort sort = toSort(sortField, sortDirection);
+        List<OrderDto> orders = new ArrayList<>();
+        for (Specification<Order> leg : legs) {
+            int limit = size + 1 - orders.size();
+            Specification<Order> spec = filter.and(leg);
+            List<List<OrderDto>> shardLists = shards.readAll(shard -> orderRepository.findOrderList(spec, sort, limit));
+            orders.addAll(shardLists.size() == 1
+                    ? shardLists.get(0)
+                    : ShardedOrderLists.merge(shardLists, sortField, sortDirection, limit));
+            if (orders.size() > size) {
+                break;
+            }
+        }
+        boolean hasNext = orders.size() > size;
+        
+        List<OrderDto> content = hasNext ? orders.subList(0, size) : orders;
+        String nextCursor = hasNext
+                ? OrderCursor.after(content.get(content.size() - 1), sortField, sortDirection).encode()
+                : null;
+        
+        return CursorPageResponse.<OrderDto>builder()
+                .content(content)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+    
+    // Весь список в порядке getAll без постраничного деления: строки читаются курсором и сразу отдаются action
+    @Override
+    public void streamAll(String search, OrderStatus status, Long clientId, LocalDate fromDate, LocalDate toDate,
+                          OrderSortField sortField, SortDirection sortDirection, Consumer<OrderDto> action) {
+        Specification<Order> filter = OrderSpecifications.filter(search, status, clientId, fromDate, toDate);
+        boolean byRelevance = sortField == null && StringUtils.hasText(search);
+        Specification<Order> spec = byRelevance ? filter.and(OrderSpecifications.orderByRelevance(search)) : filter;
+        Sort sort = byRelevance ? Sort.unsorted() : toSort(sortField, sortDirection);
+        
+        streamShards(0, spec, sort, new ArrayList<>(), shardRows -> {
+            if (shardRows.size() == 1) {
+                shardRows.get(0).forEachRemaining(action);
+            } else if (byRelevance) {
+                ShardedOrderLists.interleave(shardRows, action);
+            } else {
+                ShardedOrderLists.merge(shardRows, sortField, sortDirection, action);
+            }
+        });
+    }
+    
+    // Курсор каждого шарда открывается в своей read-only транзакции; транзакции вложены друг в друга,
+    // и все курсоры остаются открытыми (по соединению на шард), пока их строки сливаются в общий порядок
+    private void streamShards(int shard, Specification<Order> spec, Sort sort, List<Iterator<OrderDto>> shardRows,
+                              Consumer<List<Iterator<OrderDto>>> consumer) {
+        if (shard == shards.count()) {
+            consumer.accept(shardRows);
+            return;
+        }
+        shards.read(shard, () -> {
+            try (Stream<OrderDto> rows = orderRepository.streamOrderList(spec, sort)) {
+                shardRows.add(rows.iterator());
+                streamShards(shard + 1, spec, sort, shardRows, consumer);
+            }
+            return null;
+        });
+    }
+    
+    private Sort toSort(OrderSortField sortField, SortDirection sortDirection) {
+        // id добавляется последним ключом, чтобы порядок строк между страницами был стабильным
+        if (sortField == null) {
+            return Sort.by(Sort.Direction.ASC, "id");
+        }
+        Sort.Direction direction = sortDirection == SortDirection.DESC ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort.Order order = switch (sortField) {
+            case ORDER_NUMBER -> new Sort.Order(direction, "orderNumber").ignoreCase();
+            case CLIENT_NAME -> new Sort.Order(direction, "client.name").ignoreCase();
+            case STATUS -> new Sort.Order(direction, "status");
+            case CREATED_AT -> new Sort.Order(direction, "createdAt");
+            case PLANNED_PICKUP_DATE -> new Sort.Order(direction, "plannedPickupDate");
+            case PLANNED_DELIVERY_DATE -> new Sort.Order(direction, "plannedDeliveryDate");
         };
+        return Sort.by(order, new Sort.Order(direction, "id"));
     }
     
     @Override
-    @Transactional(readOnly = true)
     public OrderDetailsDto getById(Long id) {
-        Order order = orderRepository.findById(id)
+        return shards.read(shards.ofId(id), () -> orderDetailsCache.get(id, () -> loadDetails(id, Pageable.unpaged())));
+    }
+    
+    @Override
+    public OrderDetailsDto getById(Long id, int historyPage, int historySize) {
+        return shards.read(shards.ofId(id), () -> loadDetails(id, PageRequest.of(historyPage, historySize)));
+    }
+    
+    // Детали заказа собираются тремя запросами (заказ, назначения, история) независимо от их количества
+    private OrderDetailsDto loadDetails(Long id, Pageable historyPageable) {
+        OrderDto order = orderRepository.findOrderList(OrderSpecifications.hasId(id), Sort.unsorted(), 1).stream()
+                .findFirst()
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + id));
         
-        return toDetailsDto(order);
+        List<OrderAssignmentDto> assignments = assignmentRepository.findDtosByOrderId(id);
+        Page<OrderStatusHistoryDto> statusHistory = statusHistoryRepository.findDtosByOrderId(id, historyPageable);
+        
+        return OrderDetailsDto.builder()
+                .order(order)
+                .assignments(assignments)
+                .statusHistory(statusHistory.getContent())
+                .statusHistoryTotal(statusHistory.getTotalElements())
+                .build();
     }
     
+    // Номер резервируется до начала транзакции: пополнение блока номеров идет в своей транзакции,
+    // и поток, ожидающий его, не должен держать соединение из пула.
+    // Шард выбирается по городу отправления (или городу клиента) один раз: при изменении городов заказ остается на нем
     @Override
-    @Transactional
     public OrderDto create(OrderCreateUpdateRequest request) {
-        Client client = clientRepository.findById(request.getClientId())
-                .orElseThrow(() -> new NotFoundException("Client not found with id: " + request.getClientId()));
-        
-        User manager = null;
-        if (request.getManagerId() != null) {
-            manager = userRepository.findById(request.getManagerId())
-                    .orElseThrow(() -> new NotFoundException("User not found with id: " + request.getManagerId()));
-        } else {
-            manager = getCurrentUser();
+        String orderNumber = orderNumberGenerator.next();
+        int shard = shards.ofNewOrder(request.getOriginCity(), () -> clientRepository.findById(request.getClientId())
+                .map(Client::getCity)
+                .orElse(null));
+        return shards.writeReferencing(shard, () -> referencesOf(shard, request, true),
+                refs -> createOrder(request, refs, orderNumber));
+    }
+    
+    // Справочники запроса читаются на шарде 0 (см. OrderReferences); менеджер без id в запросе
+    // при создании - текущий пользователь, при изменении - прежний
+    private RequestReferences referencesOf(int shard, OrderCreateUpdateRequest request, boolean creating) {
+        Client client = references.client(shard, request.getClientId());
+        User manager = request.getManagerId() != null || creating
+                ? references.manager(shard, request.getManagerId())
+                : null;
+        Driver driver = null;
+        Vehicle vehicle = null;
+        if (request.getDriverId() != null && request.getVehicleId() != null) {
+            driver = references.driverReference(shard, request.getDriverId());
+            vehicle = references.vehicleReference(shard, request.getVehicleId());
         }
-        
-        String orderNumber = generateOrderNumber();
-        
+        return new RequestReferences(client, manager, driver, vehicle);
+    }
+    
+    private OrderDto createOrder(OrderCreateUpdateRequest request, RequestReferences refs, String orderNumber) {
         Order order = Order.builder()
                 .orderNumber(orderNumber)
-                .client(client)
+                .client(refs.client())
                 .status(OrderStatus.NEW)
                 .createdAt(LocalDateTime.now())
                 .plannedPickupDate(request.getPlannedPickupDate())
@@ -179,54 +288,44 @@ public class OrderServiceImpl implements OrderService {
                 .cargoWeight(request.getCargoWeight())
                 .cargoVolume(request.getCargoVolume())
                 .price(request.getPrice())
-                .manager(manager)
+                .manager(refs.manager())
                 .build();
         
-        Order saved = orderRepository.save(order);
-        
-        // Если указаны водитель и транспорт, создаем назначение
-        if (request.getDriverId() != null && request.getVehicleId() != null) {
-            Driver driver = driverRepository.findById(request.getDriverId())
-                    .orElseThrow(() -> new NotFoundException("Driver not found with id: " + request.getDriverId()));
-            Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
-                    .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + request.getVehicleId()));
-            
-            // Преобразуем даты в LocalDateTime для назначения
-            LocalDateTime plannedStart = request.getPlannedPickupDate() != null ? 
-                    request.getPlannedPickupDate().atStartOfDay() : null;
-            LocalDateTime plannedEnd = request.getPlannedDeliveryDate() != null ? 
-                    request.getPlannedDeliveryDate().atTime(23, 59, 59) : null;
-            
-            OrderAssignment assignment = OrderAssignment.builder()
-                    .order(saved)
-                    .driver(driver)
-                    .vehicle(vehicle)
-                    .plannedStart(plannedStart)
-                    .plannedEnd(plannedEnd)
-                    .build();
-            
-            assignmentRepository.save(assignment);
+        // Если указаны водитель и транспорт, создаем назначение; оно сохраняется каскадом вместе с заказом
+        if (refs.driver() != null) {
+            OrderAssignment assignment = OrderAssignment.builder().order(order).build();
+            assignTo(assignment, refs, request);
+            order.getAssignments().add(assignment);
         }
         
-        return toOrderDto(saved);
+        saveAndFlush(order, request);
+        
+        statsRollupService.orderCreated(order);
+        statsRollupService.refreshVehicleLoad(vehicleDaysOf(order));
+        return toOrderDto(order);
     }
     
     @Override
-    @Transactional
     public OrderDto update(Long id, OrderCreateUpdateRequest request) {
-        Order order = orderRepository.findById(id)
+        int shard = shards.ofId(id);
+        return shards.writeReferencing(shard, () -> referencesOf(shard, request, false),
+                refs -> updateOrder(id, request, refs));
+    }
+    
+    private OrderDto updateOrder(Long id, OrderCreateUpdateRequest request, RequestReferences refs) {
+        Order order = orderRepository.findWithAssignmentsById(id)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + id));
         
+        Long previousClientId = order.getClient().getId();
+        BigDecimal previousPrice = order.getPrice();
+        Set<VehicleDay> vehicleDays = vehicleDaysOf(order);
+        
         if (!request.getClientId().equals(order.getClient().getId())) {
-            Client newClient = clientRepository.findById(request.getClientId())
-                    .orElseThrow(() -> new NotFoundException("Client not found with id: " + request.getClientId()));
-            order.setClient(newClient);
+            order.setClient(refs.client());
         }
         
-        if (request.getManagerId() != null) {
-            User manager = userRepository.findById(request.getManagerId())
-                    .orElseThrow(() -> new NotFoundException("User not found with id: " + request.getManagerId()));
-            order.setManager(manager);
+        if (refs.manager() != null && !refs.manager().getId().equals(idOf(order.getManager()))) {
+            order.setManager(refs.manager());
         }
         
         order.setPlannedPickupDate(request.getPlannedPickupDate());
@@ -243,102 +342,135 @@ public class OrderServiceImpl implements OrderService {
         order.setCargoWeight(request.getCargoWeight());
         order.setCargoVolume(request.getCargoVolume());
         order.setPrice(request.getPrice());
+        order.refreshSearchText();
+        
+        // Обновляем первое назначение заказа или создаем новое, если указаны водитель и транспорт
+        if (refs.driver() != null) {
+            OrderAssignment assignment = order.getAssignments().stream()
+                    .min(Comparator.comparing(OrderAssignment::getId))
+                    .orElseGet(() -> {
+                        OrderAssignment created = OrderAssignment.builder().order(order).build();
+                        order.getAssignments().add(created);
+                        return created;
+                    });
+            assignTo(assignment, refs, request);
+        }
         
-        Order updated = orderRepository.save(order);
+        saveAndFlush(order, request);
+        vehicleDays.addAll(vehicleDaysOf(order));
         
-        // Обновляем или создаем назначение, если указаны водитель и транспорт
-        if (request.getDriverId() != null && request.getVehicleId() != null) {
-            Driver driver = driverRepository.findById(request.getDriverId())
-                    .orElseThrow(() -> new NotFoundException("Driver not found with id: " + request.getDriverId()));
-            Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
-                    .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + request.getVehicleId()));
-            
-            // Преобразуем даты в LocalDateTime для назначения
-            LocalDateTime plannedStart = request.getPlannedPickupDate() != null ? 
-                    request.getPlannedPickupDate().atStartOfDay() : null;
-            LocalDateTime plannedEnd = request.getPlannedDeliveryDate() != null ? 
-                    request.getPlannedDeliveryDate().atTime(23, 59, 59) : null;
-            
-            // Ищем существующее назначение для этого заказа
-            List<OrderAssignment> existingAssignments = assignmentRepository.findByOrderId(updated.getId());
-            OrderAssignment assignment;
-            
-            if (!existingAssignments.isEmpty()) {
-                // Обновляем первое назначение
-                assignment = existingAssignments.get(0);
-                assignment.setDriver(driver);
-                assignment.setVehicle(vehicle);
-                assignment.setPlannedStart(plannedStart);
-                assignment.setPlannedEnd(plannedEnd);
-            } else {
-                // Создаем новое назначение
-                assignment = OrderAssignment.builder()
-                        .order(updated)
-                        .driver(driver)
-                        .vehicle(vehicle)
-                        .plannedStart(plannedStart)
-                        .plannedEnd(plannedEnd)
-                        .build();
+        statsRollupService.orderUpdated(order, previousClientId, previousPrice);
+        statsRollupService.refreshVehicleLoad(vehicleDays);
+        orderDetailsCache.evict(id);
+        return toOrderDto(order);
+    }
+    
+    // Водитель и транспорт нужны назначению только как внешние ключи: на шарде 0 это прокси без чтения,
+    // их существование проверит сама БД при сбросе (см. flush)
+    private void assignTo(OrderAssignment assignment, RequestReferences refs, OrderCreateUpdateRequest request) {
+        if (!request.getDriverId().equals(idOf(assignment.getDriver()))) {
+            assignment.setDriver(refs.driver());
+        }
+        if (!request.getVehicleId().equals(idOf(assignment.getVehicle()))) {
+            assignment.setVehicle(refs.vehicle());
+        }
+        assignment.setPlannedStart(request.getPlannedPickupDate() != null
+                ? request.getPlannedPickupDate().atStartOfDay() : null);
+        assignment.setPlannedEnd(request.getPlannedDeliveryDate() != null
+                ? request.getPlannedDeliveryDate().atTime(23, 59, 59) : null);
+    }
+    
+    // Заказ и его назначения пишутся вместе, до запросов к агрегатам: новый заказ сохраняется с каскадом
+    // на назначение, у измененного сбрасывается сессия. Нарушение внешнего ключа здесь (только на шарде 0)
+    // означает, что водителя или транспорта из запроса нет (клиент и менеджер прочитаны выше)
+    private void saveAndFlush(Order order, OrderCreateUpdateRequest request) {
+        try {
+            if (order.getId() == null) {
+                orderRepository.save(order);
+            }
+            orderRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (cause.contains("(driver_id)")) {
+                throw new NotFoundException("Driver not found with id: " + request.getDriverId());
+            }
+            if (cause.contains("(vehicle_id)")) {
+                throw new NotFoundException("Vehicle not found with id: " + request.getVehicleId());
             }
-            
-            assignmentRepository.save(assignment);
+            throw e;
         }
-        
-        return toOrderDto(updated);
     }
     
-    @Override
-    @Transactional
-    public void delete(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new NotFoundException("Order not found with id: " + id);
+    private Set<VehicleDay> vehicleDaysOf(Order order) {
+        Set<VehicleDay> keys = new LinkedHashSet<>();
+        for (OrderAssignment assignment : order.getAssignments()) {
+            VehicleDay key = VehicleDay.of(idOf(assignment.getVehicle()), assignment.getPlannedStart());
+            if (key != null) {
+                keys.add(key);
+            }
         }
-        orderRepository.deleteById(id);
+        return keys;
+    }
+    
+    // id прокси читается без его инициализации
+    private Long idOf(User user) {
+        return user != null ? user.getId() : null;
+    }
+    
+    private Long idOf(Driver driver) {
+        return driver != null ? driver.getId() : null;
+    }
+    
+    private Long idOf(Vehicle vehicle) {
+        return vehicle != null ? vehicle.getId() : null;
     }
     
     @Override
-    @Transactional
-    public OrderDto updateStatus(Long id, OrderStatus newStatus) {
+    public void delete(Long id) {
+        shards.write(shards.ofId(id), () -> {
+            deleteOrder(id);
+            return null;
+        });
+    }
+    
+    private void deleteOrder(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + id));
+        List<VehicleDay> previousVehicleDays = statsRollupService.vehicleDaysOfOrder(id);
         
-        if (order.getStatus() == newStatus) {
-            return toOrderDto(order);
-        }
-        
-        OrderStatus oldStatus = order.getStatus();
-        
-        OrderStatusHistory history = OrderStatusHistory.builder()
-                .order(order)
-                .oldStatus(oldStatus)
-                .newStatus(newStatus)
-                .changedAt(LocalDateTime.now())
-                .changedBy(getCurrentUser())
-                .build();
-        
-        order.setStatus(newStatus);
-        if (newStatus == OrderStatus.DELIVERED) {
-            order.setActualDeliveryDate(LocalDateTime.now());
-        }
-        
-        orderRepository.save(order);
-        statusHistoryRepository.save(history);
-        
-        return toOrderDto(order);
+        orderRepository.delete(order);
+        statsRollupService.orderDeleted(order);
+        statsRollupService.refreshVehicleLoad(previousVehicleDays);
+        orderDetailsCache.evict(id);
     }
     
     @Override
-    @Transactional
+    public OrderDto updateStatus(Long id, OrderStatus expectedStatus, OrderStatus newStatus) {
+        // Переход - в своей короткой транзакции, заказ для ответа читается уже после коммита
+        statusTransitionService.transition(id, expectedStatus, newStatus);
+        return shards.write(shards.ofId(id), () -> toOrderDto(orderRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Order not found with id: " + id))));
+    }
+    
+    // Назначения живут на шарде своего заказа и получают id из его диапазона
+    @Override
     public OrderAssignmentDto addAssignment(Long orderId, OrderAssignmentCreateUpdateRequest request) {
+        int shard = shards.ofId(orderId);
+        return shards.writeReferencing(shard, () -> referencesOf(shard, request),
+                refs -> createAssignment(orderId, request, refs));
+    }
+    
+    private RequestReferences referencesOf(int shard, OrderAssignmentCreateUpdateRequest request) {
+        Vehicle vehicle = references.vehicle(shard, request.getVehicleId());
+        Driver driver = references.driver(shard, request.getDriverId());
+        return new RequestReferences(null, null, driver, vehicle);
+    }
+    
+    private OrderAssignmentDto createAssignment(Long orderId, OrderAssignmentCreateUpdateRequest request,
+                                                RequestReferences refs) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + orderId));
         
-        Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
-                .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + request.getVehicleId()));
-        
-        Driver driver = driverRepository.findById(request.getDriverId())
-                .orElseThrow(() -> new NotFoundException("Driver not found with id: " + request.getDriverId()));
-        
         if (request.getPlannedStart() != null && request.getPlannedEnd() != null) {
             if (request.getPlannedEnd().isBefore(request.getPlannedStart()) || 
                 request.getPlannedEnd().equals(request.getPlannedStart())) {
@@ -348,32 +480,38 @@ public class OrderServiceImpl implements OrderService {
         
         OrderAssignment assignment = OrderAssignment.builder()
                 .order(order)
-                .vehicle(vehicle)
-                .driver(driver)
+                .vehicle(refs.vehicle())
+                .driver(refs.driver())
                 .plannedStart(request.getPlannedStart())
                 .plannedEnd(request.getPlannedEnd())
                 .build();
         
         OrderAssignment saved = assignmentRepository.save(assignment);
+        statsRollupService.refreshVehicleLoadOfOrder(orderId, List.of());
+        orderDetailsCache.evict(orderId);
         return toAssignmentDto(saved);
     }
     
     @Override
-    @Transactional
     public OrderAssignmentDto updateAssignment(Long assignmentId, OrderAssignmentCreateUpdateRequest request) {
+        int shard = shards.ofId(assignmentId);
+        return shards.writeReferencing(shard, () -> referencesOf(shard, request),
+                refs -> changeAssignment(assignmentId, request, refs));
+    }
+    
+    private OrderAssignmentDto changeAssignment(Long assignmentId, OrderAssignmentCreateUpdateRequest request,
+                                                RequestReferences refs) {
         OrderAssignment assignment = assignmentRepository.findById(assignmentId)
                 .orElseThrow(() -> new NotFoundException("Assignment not found with id: " + assignmentId));
+        Long orderId = assignment.getOrder().getId();
+        List<VehicleDay> previousVehicleDays = statsRollupService.vehicleDaysOfOrder(orderId);
         
         if (!request.getVehicleId().equals(assignment.getVehicle().getId())) {
-            Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
-                    .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + request.getVehicleId()));
-            assignment.setVehicle(vehicle);
+            assignment.setVehicle(refs.vehicle());
         }
         
         if (!request.getDriverId().equals(assignment.getDriver().getId())) {
-            Driver driver = driverRepository.findById(request.getDriverId())
-                    .orElseThrow(() -> new NotFoundException("Driver not found with id: " + request.getDriverId()));
-            assignment.setDriver(driver);
+            assignment.setDriver(refs.driver());
         }
         
         if (request.getPlannedStart() != null && request.getPlannedEnd() != null) {
@@ -389,32 +527,28 @@ public class OrderServiceImpl implements OrderService {
         assignment.setActualEnd(request.getActualEnd());
         
         OrderAssignment updated = assignmentRepository.save(assignment);
+        statsRollupService.refreshVehicleLoadOfOrder(orderId, previousVehicleDays);
+        orderDetailsCache.evict(orderId);
         return toAssignmentDto(updated);
     }
     
     @Override
-    @Transactional
     public void deleteAssignment(Long assignmentId) {
-        if (!assignmentRepository.existsById(assignmentId)) {
-            throw new NotFoundException("Assignment not found with id: " + assignmentId);
-        }
-        assignmentRepository.deleteById(assignmentId);
+        shards.write(shards.ofId(assignmentId), () -> {
+            removeAssignment(assignmentId);
+            return null;
+        });
     }
     
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails) {
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            return userRepository.findById(userDetails.getId())
-                    .orElse(null);
-        }
-        return null;
-    }
-    
-    private String generateOrderNumber() {
-        String datePart = LocalDate.now().format(DATE_FORMATTER);
-        int randomPart = 10000 + random.nextInt(90000);
-        return "ORD-" + datePart + "-" + randomPart;
+    private void removeAssignment(Long assignmentId) {
+        OrderAssignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new NotFoundException("Assignment not found with id: " + assignmentId));
+        Long orderId = assignment.getOrder().getId();
+        List<VehicleDay> previousVehicleDays = statsRollupService.vehicleDaysOfOrder(orderId);
+        
+        assignmentRepository.delete(assignment);
+        statsRollupService.refreshVehicleLoadOfOrder(orderId, previousVehicleDays);
+        orderDetailsCache.evict(orderId);
     }
     
     private OrderDto toOrderDto(Order order) {
@@ -441,25 +575,6 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
     
-    private OrderDetailsDto toDetailsDto(Order order) {
-        List<OrderAssignmentDto> assignments = order.getAssignments().stream()
-                .map(this::toAssignmentDto)
-                .sorted(Comparator.comparing(OrderAssignmentDto::getPlannedStart, 
-                        Comparator.nullsLast(Comparator.naturalOrder())))
-                .collect(Collectors.toList());
-        
-        List<OrderStatusHistoryDto> statusHistory = order.getStatusHistory().stream()
-                .map(this::toStatusHistoryDto)
-                .sorted(Comparator.comparing(OrderStatusHistoryDto::getChangedAt).reversed())
-                .collect(Collectors.toList());
-        
-        return OrderDetailsDto.builder()
-                .order(toOrderDto(order))
-                .assignments(assignments)
-                .statusHistory(statusHistory)
-                .build();
-    }
-    
     private OrderAssignmentDto toAssignmentDto(OrderAssignment assignment) {
         return OrderAssignmentDto.builder()
                 .id(assignment.getId())
@@ -476,14 +591,7 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
     
-    private OrderStatusHistoryDto toStatusHistoryDto(OrderStatusHistory history) {
-        return OrderStatusHistoryDto.builder()
-                .id(history.getId())
-                .oldStatus(history.getOldStatus())
-                .newStatus(history.getNewStatus())
-                .changedAt(history.getChangedAt())
-                .changedByUserId(history.getChangedBy() != null ? history.getChangedBy().getId() : null)
-                .changedByUsername(history.getChangedBy() != null ? history.getChangedBy().getUsername() : null)
-                .build();
+    // Справочники записи, прочитанные на шарде 0; null - не указан в запросе
+    private record RequestReferences(Client client, User manager, Driver driver, Vehicle vehicle) {
     }
 }
@@ -0,0 +1,198 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.common.jdbc.ShardPools;
+import org.logistservice.logist.common.jdbc.ShardRoutingDataSource;
+import org.logistservice.logist.config.ShardingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Шарды заказов (orders, order_assignments, order_status_history). Шард заказа определяется при создании
+// по региону города отправления, а если город не отнесен ни к одному региону - по городу клиента;
+// остальные заказы живут на шарде 0. Дальше шард читается из id: шард k выдает id заказов, назначений
+// и записей истории начиная с k << ID_SHIFT, поэтому id уникальны между шардами и заказ не переезжает.
+// Без app.sharding.enabled шард один, и все операции выполняются как обычные транзакции основной базы
+@Component
+public class OrderShards {
+
+    // До 32 шардов: id остаются меньше 2^53 и точно представимы в JSON-клиентах
+    public static final int ID_SHIFT = 48;
+    public static final int MAX_SHARDS = 32;
+
+    private final int count;
+    private final int maxOffsetRows;
+    private final Map<String, Integer> shardByCity = new HashMap<>();
+    private final Executor executor;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+
+    public OrderShards(PlatformTransactionManager transactionManager,
+                       ObjectProvider<ShardingProperties> shardingProperties,
+                       ObjectProvider<ShardPools> shardPools) {
+        ShardingProperties properties = shardingProperties.getIfAvailable();
+        this.count = properties != null ? properties.getShards().size() + 1 : 1;
+        this.maxOffsetRows = properties != null ? properties.getMaxOffsetRows() : Integer.MAX_VALUE;
+        if (properties != null) {
+            for (int i = 0; i < properties.getShards().size(); i++) {
+                for (String region : properties.getShards().get(i).getRegions()) {
+                    List<String> cities = properties.getRegions().get(region);
+                    if (cities == null) {
+                        throw new IllegalStateException("Region is not configured: app.sharding.regions." + region);
+                    }
+                    for (String city : cities) {
+                        shardByCity.put(normalize(city), i + 1);
+                    }
+                }
+            }
+        }
+        // Параллельные запросы выполняются от имени того же пользователя (чтение своих записей с реплик)
+        ShardPools pools = shardPools.getIfAvailable();
+        this.executor = pools != null ? new DelegatingSecurityContextExecutor(pools.getQueryExecutor()) : null;
+
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTemplate.setReadOnly(true);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int maxOffsetRows() {
+        return maxOffsetRows;
+    }
+
+    // Работает для id заказов, назначений и записей истории. Id вне диапазонов шардов не существует,
+    // запрос с ним уходит на шард 0 и ничего не находит
+    public int ofId(Long id) {
+        if (count == 1 || id == null) {
+            return 0;
+        }
+        long shard = id >>> ID_SHIFT;
+        return shard < count ? (int) shard : 0;
+    }
+
+    public int ofNewOrder(String originCity, Supplier<String> clientCity) {
+        if (count == 1) {
+            return 0;
+        }
+        Integer shard = shardByCity.get(normalize(originCity));
+        if (shard == null) {
+            shard = shardByCity.get(normalize(clientCity.get()));
+        }
+        return shard != null ? shard : 0;
+    }
+
+    public <T> T read(int shard, Supplier<T> action) {
+        return inShard(shard, readTemplate, action);
+    }
+
+    public <T> T write(int shard, Supplier<T> action) {
+        return inShard(shard, writeTemplate, action);
+    }
+
+    // Запись на шард заказа, ссылающаяся на справочники: справочники читаются в транзакции шарда 0
+    // (OrderReferences), которая остается открытой до коммита записи на шард заказа, поэтому их блокировки
+    // держатся до конца записи. Для шарда 0 это одна транзакция
+    public <R, T> T writeReferencing(int shard, Supplier<R> references, Function<R, T> action) {
+        return write(0, () -> {
+            R loaded = references.get();
+            return write(shard, () -> action.apply(loaded));
+        });
+    }
+
+    // Запрос к каждому шарду в своей read-only транзакции, параллельно; результаты - в порядке шардов
+    public <T> List<T> readAll(IntFunction<T> query) {
+        if (count == 1) {
+            return List.of(read(0, () -> query.apply(0)));
+        }
+        List<CompletableFuture<T>> results = IntStream.range(0, count)
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> read(shard, () -> query.apply(shard)), executor))
+                .toList();
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Изменение на каждом шарде по очереди, каждый шард - своя транзакция (шард текущей транзакции - в ней).
+    // Атомарности между шардами нет: при ошибке уже закоммиченные шарды не откатываются
+    public void writeAll(IntConsumer action) {
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            write(shard, () -> {
+                action.accept(current);
+                return null;
+            });
+        }
+    }
+
+    // Изменение на шарде текущей транзакции - в ней, на остальных шардах - после ее коммита, каждый шард
+    // своей транзакцией: другие шарды не увидят изменения, которое затем откатится вместе с текущей транзакцией.
+    // Ошибка на другом шарде вернется вызывающему уже после коммита. Вне транзакции - то же, что writeAll
+    public void writeAllAfterCommit(IntConsumer action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeAll(action);
+            return;
+        }
+        int current = ShardRoutingDataSource.currentShard();
+        write(current, () -> {
+            action.accept(current);
+            return null;
+        });
+        if (count == 1) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (int shard = 0; shard < count; shard++) {
+                    if (shard != current) {
+                        int other = shard;
+                        write(other, () -> {
+                            action.accept(other);
+                            return null;
+                        });
+                    }
+                }
+            }
+        });
+    }
+
+    // Транзакция на том же шарде продолжается, транзакция другого шарда приостанавливается на время новой
+    private <T> T inShard(int shard, TransactionTemplate template, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && ShardRoutingDataSource.currentShard() == shard) {
+            return action.get();
+        }
+        return ShardRoutingDataSource.onShard(shard, () -> template.execute(status -> action.get()));
+    }
+
+    private static String normalize(String city) {
+        return city != null ? city.trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
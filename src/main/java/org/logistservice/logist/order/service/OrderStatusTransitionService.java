@@ -0,0 +1,14 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.dto.OrderStatusTransitionRequest;
+import org.logistservice.logist.order.model.dto.OrderStatusTransitionResultDto;
+
+import java.util.List;
+
+public interface OrderStatusTransitionService {
+    // expectedStatus == null - переход из текущего статуса заказа
+    void transition(Long orderId, OrderStatus expectedStatus, OrderStatus newStatus);
+    // Каждый переход обрабатывается независимо, ошибки не прерывают пачку; результаты - в порядке запроса
+    List<OrderStatusTransitionResultDto> transitionAll(List<OrderStatusTransitionRequest> requests);
+}
@@ -0,0 +1,203 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.common.exception.BadRequestException;
+import org.logistservice.logist.common.exception.ConflictException;
+import org.logistservice.logist.common.exception.NotFoundException;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.OrderStatusTransition;
+import org.logistservice.logist.order.model.OrderStatusTransitionOutcome;
+import org.logistservice.logist.order.model.dto.OrderStatusTransitionRequest;
+import org.logistservice.logist.order.model.dto.OrderStatusTransitionResultDto;
+import org.logistservice.logist.order.repository.OrderStatusTransitionRepository;
+import org.logistservice.logist.security.CurrentUser;
+import org.logistservice.logist.stats.model.OrderStatusChange;
+import org.logistservice.logist.stats.service.StatsRollupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Переходы применяются условным UPDATE с записью истории, без загрузки заказов и блокировки
+// строк на время проверок: проверка статуса и его смена - один оператор в БД на всю пачку
+@Service
+public class OrderStatusTransitionServiceImpl implements OrderStatusTransitionService {
+    
+    private final OrderStatusTransitionRepository transitionRepository;
+    private final StatsRollupService statsRollupService;
+    private final OrderDetailsCache orderDetailsCache;
+    private final CurrentUser currentUser;
+    private final OrderShards shards;
+    private final int chunkSize;
+    
+    public OrderStatusTransitionServiceImpl(OrderStatusTransitionRepository transitionRepository,
+                                            StatsRollupService statsRollupService,
+                                            OrderDetailsCache orderDetailsCache,
+                                            CurrentUser currentUser,
+                                            OrderShards shards,
+                                            @Value("${app.status-transitions.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("app.status-transitions.chunk-size must be positive");
+        }
+        this.transitionRepository = transitionRepository;
+        this.statsRollupService = statsRollupService;
+        this.orderDetailsCache = orderDetailsCache;
+        this.currentUser = currentUser;
+        this.shards = shards;
+        this.chunkSize = chunkSize;
+    }
+    
+    @Override
+    public void transition(Long orderId, OrderStatus expectedStatus, OrderStatus newStatus) {
+        Long userId = currentUser.getId();
+        OrderStatusTransitionResultDto result = shards.write(shards.ofId(orderId), () -> apply(
+                List.of(new OrderStatusTransition(orderId, expectedStatus, newStatus)), userId)).get(0);
+        switch (result.getOutcome()) {
+            case APPLIED, UNCHANGED -> {
+            }
+            case NOT_FOUND -> throw new NotFoundException(result.getMessage());
+            case CONFLICT -> throw new ConflictException(result.getMessage());
+            case INVALID -> throw new BadRequestException(result.getMessage());
+        }
+    }
+    
+    // Каждая пачка - своя транзакция: блокировки строк заказов держатся не дольше одного запроса пачки.
+    // Пачки собираются из заказов одного шарда
+    @Override
+    public List<OrderStatusTransitionResultDto> transitionAll(List<OrderStatusTransitionRequest> requests) {
+        Long userId = currentUser.getId();
+        OrderStatusTransitionResultDto[] results = new OrderStatusTransitionResultDto[requests.size()];
+        
+        // Порядок применения повторов одного заказа внутри пачки не определен, поэтому они отклоняются
+        List<Integer> pending = new ArrayList<>(requests.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            OrderStatusTransitionRequest request = requests.get(i);
+            if (request == null || request.getOrderId() == null || request.getNewStatus() == null) {
+                results[i] = result(request != null ? request.getOrderId() : null, OrderStatusTransitionOutcome.INVALID,
+                        null, "orderId and newStatus are required");
+            } else if (!seen.add(request.getOrderId())) {
+                results[i] = result(request.getOrderId(), OrderStatusTransitionOutcome.INVALID, null,
+                        "Duplicate orderId in request: " + request.getOrderId());
+            } else {
+                pending.add(i);
+            }
+        }
+        
+        Map<Integer, List<Integer>> pendingByShard = pending.stream()
+                .collect(Collectors.groupingBy(i -> shards.ofId(requests.get(i).getOrderId()), TreeMap::new,
+                        Collectors.toList()));
+        pendingByShard.forEach((shard, shardPending) -> {
+            for (int from = 0; from < shardPending.size(); from += chunkSize) {
+                List<Integer> chunk = shardPending.subList(from, Math.min(from + chunkSize, shardPending.size()));
+                List<OrderStatusTransition> transitions = chunk.stream()
+                        .map(requests::get)
+                        .map(r -> new OrderStatusTransition(r.getOrderId(), r.getExpectedStatus(), r.getNewStatus()))
+                        .toList();
+                List<OrderStatusTransitionResultDto> chunkResults = shards.write(shard, () -> apply(transitions, userId));
+                for (int j = 0; j < chunk.size(); j++) {
+                    results[chunk.get(j)] = chunkResults.get(j);
+                }
+            }
+        });
+        return Arrays.asList(results);
+    }
+    
+    // Заказы пачки различны. Запросы к БД: текущие статусы для переходов без ожидаемого статуса,
+    // один условный UPDATE с историей, статусы неудавшихся переходов и одна запись в агрегаты
+    private List<OrderStatusTransitionResultDto> apply(List<OrderStatusTransition> transitions, Long userId) {
+        OrderStatusTransitionResultDto[] results = new OrderStatusTransitionResultDto[transitions.size()];
+        
+        Map<Long, OrderStatus> currentStatuses = transitionRepository.findStatuses(transitions.stream()
+                .filter(t -> t.getExpectedStatus() == null)
+                .map(OrderStatusTransition::getOrderId)
+                .toList());
+        List<OrderStatusTransition> candidates = new ArrayList<>();
+        List<Integer> unresolved = new ArrayList<>();
+        for (int i = 0; i < transitions.size(); i++) {
+            OrderStatusTransition transition = transitions.get(i);
+            Long orderId = transition.getOrderId();
+            OrderStatus expected = transition.getExpectedStatus();
+            OrderStatus next = transition.getNewStatus();
+            OrderStatus from = expected != null ? expected : currentStatuses.get(orderId);
+            if (from == null) {
+                results[i] = notFound(orderId);
+            } else if (from == next) {
+                if (expected == null) {
+                    results[i] = result(orderId, OrderStatusTransitionOutcome.UNCHANGED, next, null);
+                } else {
+                    unresolved.add(i);
+                }
+            } else if (!from.canTransitionTo(next)) {
+                String message = "Status transition " + from + " -> " + next + " is not allowed";
+                results[i] = expected != null
+                        ? result(orderId, OrderStatusTransitionOutcome.INVALID, null, message)
+                        : result(orderId, OrderStatusTransitionOutcome.CONFLICT, from, "Order " + orderId + ": " + message);
+            } else {
+                candidates.add(new OrderStatusTransition(orderId, from, next));
+                unresolved.add(i);
+            }
+        }
+        
+        Map<Long, LocalDateTime> applied = transitionRepository.compareAndSet(candidates, LocalDateTime.now(), userId);
+        List<OrderStatusChange> changes = new ArrayList<>(applied.size());
+        for (OrderStatusTransition candidate : candidates) {
+            LocalDateTime createdAt = applied.get(candidate.getOrderId());
+            if (createdAt != null) {
+                changes.add(new OrderStatusChange(createdAt.toLocalDate(), candidate.getExpectedStatus(),
+                        candidate.getNewStatus()));
+            }
+        }
+        statsRollupService.orderStatusesChanged(changes);
+        if (!applied.isEmpty()) {
+            orderDetailsCache.evict(applied.keySet());
+        }
+        
+        // Заказ не в ожидаемом статусе: повтор уже примененного перехода не ошибка,
+        // иначе статус успели изменить другим запросом
+        Map<Long, OrderStatus> actualStatuses = transitionRepository.findStatuses(unresolved.stream()
+                .map(i -> transitions.get(i).getOrderId())
+                .filter(orderId -> !applied.containsKey(orderId))
+                .toList());
+        for (int i : unresolved) {
+            OrderStatusTransition transition = transitions.get(i);
+            Long orderId = transition.getOrderId();
+            OrderStatus next = transition.getNewStatus();
+            OrderStatus current = actualStatuses.get(orderId);
+            if (applied.containsKey(orderId)) {
+                results[i] = result(orderId, OrderStatusTransitionOutcome.APPLIED, next, null);
+            } else if (current == null) {
+                results[i] = notFound(orderId);
+            } else if (current == next) {
+                results[i] = result(orderId, OrderStatusTransitionOutcome.UNCHANGED, next, null);
+            } else {
+                OrderStatus from = transition.getExpectedStatus() != null
+                        ? transition.getExpectedStatus() : currentStatuses.get(orderId);
+                results[i] = result(orderId, OrderStatusTransitionOutcome.CONFLICT, current,
+                        "Order " + orderId + " is in status " + current + ", expected " + from);
+            }
+        }
+        return Arrays.asList(results);
+    }
+    
+    private OrderStatusTransitionResultDto notFound(Long orderId) {
+        return result(orderId, OrderStatusTransitionOutcome.NOT_FOUND, null, "Order not found with id: " + orderId);
+    }
+    
+    private OrderStatusTransitionResultDto result(Long orderId, OrderStatusTransitionOutcome outcome,
+                                                  OrderStatus status, String message) {
+        return OrderStatusTransitionResultDto.builder()
+                .orderId(orderId)
+                .outcome(outcome)
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package org.logistservice.logist.order.service;
+
+import org.logistservice.logist.common.enums.OrderSortField;
+import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.order.model.dto.OrderDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Слияние страниц списка заказов, прочитанных с каждого шарда в одном и том же порядке.
+// Порядок повторяет toSort() в OrderServiceImpl и правила PostgreSQL: NULL больше любого значения
+// (в конце при ASC, в начале при DESC), строки сравниваются в нижнем регистре, последним ключом - id.
+// Строки сравниваются по кодам символов, а не по правилам сортировки базы, поэтому на границе шардов
+// порядок строк с разным регистром или знаками препинания может немного отличаться от порядка одной базы
+final class ShardedOrderLists {
+
+    private ShardedOrderLists() {
+    }
+
+    static List<OrderDto> merge(List<List<OrderDto>> shardLists, OrderSortField sortField,
+                                SortDirection sortDirection, int limit) {
+        return shardLists.stream()
+                .flatMap(List::stream)
+                .sorted(comparator(sortField, sortDirection))
+                .limit(limit)
+                .toList();
+    }
+
+    // Порядок по релевантности не сравним между шардами: строки берутся по очереди с каждого шарда
+    static List<OrderDto> interleave(List<List<OrderDto>> shardLists, int limit) {
+        List<OrderDto> merged = new ArrayList<>();
+        for (int position = 0; merged.size() < limit; position++) {
+            boolean found = false;
+            for (List<OrderDto> shardList : shardLists) {
+                if (position < shardList.size() && merged.size() < limit) {
+                    merged.add(shardList.get(position));
+                    found = true;
+                }
+            }
+            if (!found) {
+                break;
+            }
+        }
+        return merged;
+    }
+
+    // Слияние курсоров шардов без чтения их целиком: в очереди по одной текущей строке с каждого шарда
+    static void merge(List<Iterator<OrderDto>> shardRows, OrderSortField sortField,
+                      SortDirection sortDirection, Consumer<OrderDto> action) {
+        Comparator<OrderDto> comparator = comparator(sortField, sortDirection);
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.row(), b.row()));
+        for (Iterator<OrderDto> rows : shardRows) {
+            if (rows.hasNext()) {
+                heads.add(new Head(rows.next(), rows));
+            }
+        }
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            action.accept(head.row());
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
+    }
+
+    static void interleave(List<Iterator<OrderDto>> shardRows, Consumer<OrderDto> action) {
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (Iterator<OrderDto> rows : shardRows) {
+                if (rows.hasNext()) {
+                    action.accept(rows.next());
+                    found = true;
+                }
+            }
+        }
+    }
+
+    private static Comparator<OrderDto> comparator(OrderSortField sortField, SortDirection sortDirection) {
+        if (sortField == null) {
+            return Comparator.comparing(OrderDto::getId);
+        }
+        Comparator<OrderDto> ascending = switch (sortField) {
+            case ORDER_NUMBER -> byKey(order -> lower(order.getOrderNumber()));
+            case CLIENT_NAME -> byKey(order -> lower(order.getClientName()));
+            case STATUS -> byKey(order -> order.getStatus() != null ? order.getStatus().name() : null);
+            case CREATED_AT -> byKey(OrderDto::getCreatedAt);
+            case PLANNED_PICKUP_DATE -> byKey(OrderDto::getPlannedPickupDate);
+            case PLANNED_DELIVERY_DATE -> byKey(OrderDto::getPlannedDeliveryDate);
+        };
+        ascending = ascending.thenComparing(OrderDto::getId);
+        return sortDirection == SortDirection.DESC ? ascending.reversed() : ascending;
+    }
+
+    private static <K extends Comparable<? super K>> Comparator<OrderDto> byKey(Function<OrderDto, K> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private record Head(OrderDto row, Iterator<OrderDto> rest) {
+    }
+}
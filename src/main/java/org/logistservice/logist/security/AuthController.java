@@ -1,5 +1,6 @@
 package org.logistservice.logist.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.validation.Valid;
 import org.logistservice.logist.common.exception.BadRequestException;
 import org.logistservice.logist.security.model.JwtAuthenticationResponse;
@@ -32,17 +33,20 @@ public class AuthController {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationStore revocationStore;
     
     public AuthController(AuthenticationManager authenticationManager,
                          UserRepository userRepository,
                          RoleRepository roleRepository,
                          PasswordEncoder passwordEncoder,
-                         JwtTokenProvider tokenProvider) {
+                         JwtTokenProvider tokenProvider,
+                         TokenRevocationStore revocationStore) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenProvider = tokenProvider;
+        this.revocationStore = revocationStore;
     }
     
     @PostMapping("/register")
@@ -113,9 +117,22 @@ public class AuthController {
         
         return ResponseEntity.ok(response);
     }
+    
+    // Отзыв токена из заголовка Authorization: до истечения срока он больше не принимается ни на одном узле.
+    // Токены без jti (выданные до отзыва) отозвать нельзя, они действуют до истечения срока
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        Claims claims = authorization != null && authorization.startsWith("Bearer ")
+                ? tokenProvider.verify(authorization.substring(7))
+                : null;
+        if (claims == null || claims.getId() == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        revocationStore.revoke(claims.getId(), claims.getExpiration());
+        return ResponseEntity.noContent().build();
+    }
 }
 
 
 
 
-
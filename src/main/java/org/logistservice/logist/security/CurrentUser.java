@@ -0,0 +1,32 @@
+package org.logistservice.logist.security;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.logistservice.logist.user.model.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+// Пользователь текущего запроса. id берется из principal, уже загруженного фильтром аутентификации,
+// поэтому повторно читать пользователя из БД для внешнего ключа не нужно
+@Component
+public class CurrentUser {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // null для вызова без аутентифицированного пользователя
+    public Long getId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getId();
+        }
+        return null;
+    }
+    
+    // Прокси без запроса к БД; поля загрузятся (из кэша второго уровня) только при обращении к ним
+    public User getReference() {
+        Long id = getId();
+        return id != null ? entityManager.getReference(User.class, id) : null;
+    }
+}
@@ -43,6 +43,15 @@ public class CustomUserDetails implements UserDetails {
         );
     }
     
+    // Principal из проверенного токена: без пароля, активность уже проверена по UserStateCache
+    public static CustomUserDetails fromClaims(Long id, String username, Collection<String> roleNames) {
+        Collection<GrantedAuthority> authorities = roleNames.stream()
+                .map(roleName -> new SimpleGrantedAuthority("ROLE_" + roleName))
+                .collect(Collectors.toList());
+        
+        return new CustomUserDetails(id, username, null, authorities, true);
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
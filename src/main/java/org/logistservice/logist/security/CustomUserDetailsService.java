@@ -2,12 +2,15 @@ package org.logistservice.logist.security;
 
 import org.logistservice.logist.user.model.User;
 import org.logistservice.logist.user.repository.UserRepository;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
     
@@ -22,6 +25,16 @@ public class CustomUserDetailsService implements UserDetailsService {
         
         return CustomUserDetails.fromUser(user);
     }
+    
+    // Вызывается при успешном входе, если стоимость хеша пароля отличается от app.password-hashing.strength
+    @Override
+    @Transactional
+    public CustomUserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        return CustomUserDetails.fromUser(user);
+    }
 }
 
 
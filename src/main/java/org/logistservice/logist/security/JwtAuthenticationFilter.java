@@ -1,29 +1,41 @@
 package org.logistservice.logist.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final UserStateCache userStateCache;
+    private final TokenRevocationStore revocationStore;
+    private final boolean claimsAuthentication;
     
     public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, 
-                                   CustomUserDetailsService userDetailsService) {
+                                   CustomUserDetailsService userDetailsService,
+                                   UserStateCache userStateCache,
+                                   TokenRevocationStore revocationStore,
+                                   @Value("${app.jwt.claims-authentication:true}") boolean claimsAuthentication) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
+        this.userStateCache = userStateCache;
+        this.revocationStore = revocationStore;
+        this.claimsAuthentication = claimsAuthentication;
     }
     
     @Override
@@ -33,12 +45,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
+            if (claims != null && !revocationStore.isRevoked(claims.getId())) {
+                CustomUserDetails userDetails = claimsAuthentication
+                        ? loadUserFromClaims(claims)
+                        : userDetailsService.loadUserByUsername(claims.getSubject());
                 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                if (userDetails != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     UsernamePasswordAuthenticationToken authentication = 
                             new UsernamePasswordAuthenticationToken(
                                     userDetails, null, userDetails.getAuthorities());
@@ -53,6 +66,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    // Principal строится из claims без чтения пользователя из БД. Токен не принимается, если пользователь
+    // выключен, удален, переименован или его роли изменились после выдачи токена - нужен новый вход.
+    // Токены без uid (выданные до claims-режима) проверяются по БД, как раньше
+    private CustomUserDetails loadUserFromClaims(Claims claims) {
+        Long userId = claims.get(JwtTokenProvider.USER_ID_CLAIM, Long.class);
+        if (userId == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        List<?> roles = claims.get(JwtTokenProvider.ROLES_CLAIM, List.class);
+        List<String> roleNames = roles != null ? roles.stream().map(String::valueOf).toList() : List.of();
+        
+        UserStateCache.UserState state = userStateCache.get(userId);
+        if (!state.active()
+                || !claims.getSubject().equals(state.username())
+                || !state.roles().equals(Set.copyOf(roleNames))) {
+            return null;
+        }
+        return CustomUserDetails.fromClaims(userId, claims.getSubject(), roleNames);
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,27 +1,55 @@
 package org.logistservice.logist.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.cache.Cache;
+import javax.cache.CacheManager;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
     
-    @Value("${app.jwt.secret:change-me-secret}")
-    private String jwtSecret;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String VERIFIED_TOKENS_CACHE = "verified-tokens";
     
-    @Value("${app.jwt.expiration-ms:3600000}")
-    private long jwtExpirationMs;
+    private final long jwtExpirationMs;
+    // Ключ и парсер неизменяемы и потокобезопасны, строятся один раз
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedTokens;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    public JwtTokenProvider(@Value("${app.jwt.secret:change-me-secret}") String jwtSecret,
+                            @Value("${app.jwt.expiration-ms:3600000}") long jwtExpirationMs,
+                            @Value("${app.jwt.verified-token-cache:true}") boolean verifiedTokenCache,
+                            CacheManager jcacheManager) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        if (verifiedTokenCache) {
+            Cache<String, Claims> configured = jcacheManager.getCache(VERIFIED_TOKENS_CACHE);
+            if (configured == null) {
+                throw new IllegalStateException("Cache region is not configured: app.cache.regions." + VERIFIED_TOKENS_CACHE);
+            }
+            this.verifiedTokens = configured;
+        } else {
+            this.verifiedTokens = null;
+        }
     }
     
     public String generateToken(CustomUserDetails userDetails) {
@@ -33,38 +61,54 @@ public class JwtTokenProvider {
                 .toList();
         
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
-                .claim("roles", roles)
+                .claim(USER_ID_CLAIM, userDetails.getId())
+                .claim(ROLES_CLAIM, roles)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.getSubject();
+    // Одна проверка подписи и срока на запрос; null для недействительного токена.
+    // Недавно проверенные токены берутся из кэша по SHA-256 токена, с повторной проверкой срока
+    public Claims verify(String token) {
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+        String digest = digest(token);
+        Claims claims = verifiedTokens.get(digest);
+        if (claims == null) {
+            claims = parse(token);
+            if (claims != null) {
+                verifiedTokens.put(digest, claims);
+            }
+            return claims;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration != null && !expiration.after(new Date())) {
+            verifiedTokens.remove(digest);
+            return null;
+        }
+        return claims;
+    }
+    
+    private Claims parse(String token) {
+        try {
+            return parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
     
-    public boolean validateToken(String token) {
+    // В кэше не хранятся сами токены
+    private static String digest(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
-
-
-
-
-
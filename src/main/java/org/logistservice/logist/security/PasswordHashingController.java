@@ -0,0 +1,24 @@
+package org.logistservice.logist.security;
+
+import lombok.RequiredArgsConstructor;
+import org.logistservice.logist.security.model.PasswordHashingStatsDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Метрики пула хеширования паролей: глубина очереди, отказы, время хеширования
+@RestController
+@RequestMapping("/api/password-hashing")
+@RequiredArgsConstructor
+public class PasswordHashingController {
+    
+    private final BoundedPasswordEncoder passwordEncoder;
+    
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PasswordHashingStatsDto> getStats() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+}
@@ -1,5 +1,7 @@
 package org.logistservice.logist.security;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -10,13 +12,13 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -34,9 +36,14 @@ public class SecurityConfig {
         this.customUserDetailsService = customUserDetailsService;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // threads=0 - по числу ядер
+    @Bean(destroyMethod = "close")
+    public BoundedPasswordEncoder passwordEncoder(@Value("${app.password-hashing.strength:10}") int strength,
+                                                  @Value("${app.password-hashing.threads:0}") int threads,
+                                                  @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+                                                  @Value("${app.password-hashing.retry-after:2s}") Duration retryAfter) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(strength, poolSize, queueCapacity, retryAfter);
     }
 
     @Bean
@@ -54,6 +61,9 @@ public class SecurityConfig {
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**", "/error").permitAll()
+                        // Повторный ASYNC-проход потокового ответа (stream=true) завершает уже разрешенный запрос;
+                        // JWT-фильтр в нем не выполняется, и без этого правила запрос отклонялся бы после выгрузки
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex
@@ -108,7 +118,9 @@ public class SecurityConfig {
                 )
                 .exceptionHandling(ex -> ex
                         .accessDeniedPage("/access-denied")
-                );
+                )
+                // Вход через форму при заполненной очереди хеширования паролей - 503 с Retry-After
+                .addFilterBefore(new ServiceUnavailableFilter(), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
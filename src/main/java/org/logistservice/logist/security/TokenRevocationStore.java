@@ -0,0 +1,115 @@
+package org.logistservice.logist.security;
+
+import org.logistservice.logist.common.jdbc.ReadReplicaRoutingDataSource;
+import org.logistservice.logist.security.model.RevokedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Отозванные токены (jti) до истечения их срока. Проверка на каждом запросе идет по фильтру Блума в памяти:
+// для неотозванного токена это почти всегда ответ "нет" без обращения к БД, в БД проверяются только
+// совпадения фильтра (отозванные токены и ложные срабатывания с вероятностью false-positive-rate).
+// Отзывы с других узлов попадают в фильтр не позже чем через sync-interval; истекшие записи удаляются
+// и фильтр перестраивается раз в cleanup-interval
+@Component
+public class TokenRevocationStore implements AutoCloseable {
+
+    private final RevokedTokenRepository repository;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+    private final Duration syncInterval;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile BloomFilter filter;
+    private LocalDateTime lastSync;
+
+    public TokenRevocationStore(RevokedTokenRepository repository,
+                                @Value("${app.jwt.revocation.expected-tokens:100000}") int expectedTokens,
+                                @Value("${app.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${app.jwt.revocation.sync-interval:10s}") Duration syncInterval,
+                                @Value("${app.jwt.revocation.cleanup-interval:1h}") Duration cleanupInterval) {
+        if (expectedTokens < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(
+                    "app.jwt.revocation.expected-tokens must be positive and false-positive-rate within (0, 1)");
+        }
+        this.repository = repository;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.syncInterval = syncInterval;
+        rebuild();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long syncMillis = syncInterval.toMillis();
+        long cleanupMillis = cleanupInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::cleanup, cleanupMillis, cleanupMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return ReadReplicaRoutingDataSource.onPrimary(() -> repository.existsById(jti));
+    }
+
+    public void revoke(String jti, Date expiresAt) {
+        repository.save(RevokedToken.builder()
+                .jti(jti)
+                .expiresAt(LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault()))
+                .revokedAt(LocalDateTime.now())
+                .build());
+        synchronized (this) {
+            filter.put(jti);
+        }
+    }
+
+    // Отзывы ищутся с запасом в один интервал: запись, сохраненная другим узлом во время прошлой
+    // синхронизации, не будет пропущена
+    private synchronized void sync() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> revoked = ReadReplicaRoutingDataSource.onPrimary(
+                    () -> repository.findJtisRevokedSince(lastSync.minus(syncInterval)));
+            revoked.forEach(filter::put);
+            lastSync = now;
+        } catch (RuntimeException e) {
+            // Следующая синхронизация повторит чтение с того же момента
+        }
+    }
+
+    // Из фильтра Блума нельзя удалять, поэтому истекшие токены уходят только при перестроении
+    private synchronized void cleanup() {
+        try {
+            repository.deleteExpired(LocalDateTime.now());
+            rebuild();
+        } catch (RuntimeException e) {
+            // Фильтр остается прежним до следующей очистки
+        }
+    }
+
+    // Если действующих отзывов больше ожидаемого, фильтр строится с запасом, чтобы не росла доля ложных срабатываний
+    private synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> active = ReadReplicaRoutingDataSource.onPrimary(() -> repository.findActiveJtis(now));
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, active.size() * 2), falsePositiveRate);
+        active.forEach(rebuilt::put);
+        filter = rebuilt;
+        lastSync = now;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package org.logistservice.logist.security;
+
+import org.logistservice.logist.common.cache.StampedLoadingCache;
+import org.logistservice.logist.common.jdbc.ReadReplicaRoutingDataSource;
+import org.logistservice.logist.user.model.User;
+import org.logistservice.logist.user.repository.UserRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Текущее состояние пользователя (имя, активность, роли) по id для аутентификации по claims токена.
+// Изменения пользователей сбрасывают запись после коммита; изменения в обход сервиса (и на других узлах)
+// видны не позже чем через expire-after-write региона
+@Component
+public class UserStateCache {
+
+    public static final String CACHE_NAME = "user-state";
+
+    private final StampedLoadingCache<Long, UserState> cache;
+    private final UserRepository userRepository;
+
+    public UserStateCache(CacheManager jcacheManager, UserRepository userRepository) {
+        Cache<Long, UserState> configured = jcacheManager.getCache(CACHE_NAME);
+        if (configured == null) {
+            throw new IllegalStateException("Cache region is not configured: app.cache.regions." + CACHE_NAME);
+        }
+        this.cache = new StampedLoadingCache<>(configured);
+        this.userRepository = userRepository;
+    }
+
+    // Как и в OrderDetailsCache, загрузка идет вне блокировки кэша и читает с основной базы; сброс во время
+    // загрузки отменяет ее публикацию, так что в кэше не останется прежнее состояние
+    public UserState get(Long userId) {
+        return cache.get(userId, () -> ReadReplicaRoutingDataSource.onPrimary(() -> load(userId)));
+    }
+
+    public void evict(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.evict(userId);
+            }
+        });
+    }
+
+    // Удаленный пользователь хранится как неактивный без ролей: JCache не хранит null
+    private UserState load(Long userId) {
+        return userRepository.findById(userId)
+                .map(UserState::of)
+                .orElseGet(() -> new UserState(null, false, Set.of()));
+    }
+
+    // Роли - имена без префикса ROLE_, как в claim roles токена
+    public record UserState(String username, boolean active, Set<String> roles) {
+
+        static UserState of(User user) {
+            Set<String> roles = user.getRoles().stream()
+                    .map(role -> role.getName().name())
+                    .collect(Collectors.toUnmodifiableSet());
+            return new UserState(user.getUsername(), Boolean.TRUE.equals(user.getActive()), roles);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.logistservice.logist.security.model;
+
+import lombok.*;
+
+// Состояние пула хеширования паролей; время - в миллисекундах, среднее - с запуска приложения
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PasswordHashingStatsDto {
+    private int threads;
+    private int activeThreads;
+    private int queueDepth;
+    private int queueCapacity;
+    private long completed;
+    private long rejected;
+    private double averageHashMillis;
+    private double maxHashMillis;
+}
@@ -3,9 +3,12 @@ package org.logistservice.logist.stats.controller;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.logistservice.logist.common.exception.BadRequestException;
+import org.logistservice.logist.order.service.OrderShards;
+import org.logistservice.logist.stats.model.CacheStatsDto;
 import org.logistservice.logist.stats.model.OrderStatusCountDto;
 import org.logistservice.logist.stats.model.TopClientDto;
 import org.logistservice.logist.stats.model.VehicleLoadDto;
+import org.logistservice.logist.stats.service.StatsRollupService;
 import org.logistservice.logist.stats.service.StatsService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +26,8 @@ import java.util.List;
 public class StatsController {
     
     private final StatsService statsService;
+    private final StatsRollupService statsRollupService;
+    private final OrderShards orderShards;
     
     @GetMapping("/order-status")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
@@ -67,5 +72,18 @@ public class StatsController {
         
         return ResponseEntity.ok(statsService.getVehicleLoad(fromDate, toDate));
     }
+    
+    @GetMapping("/caches")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        return ResponseEntity.ok(statsService.getCacheStats());
+    }
+    
+    // Пересборка дневных агрегатов из orders и order_assignments, на каждом шарде заказов
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildRollups() {
+        orderShards.writeAll(shard -> statsRollupService.rebuild());
+        return ResponseEntity.noContent().build();
+    }
 }
-
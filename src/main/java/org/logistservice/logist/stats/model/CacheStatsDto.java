@@ -0,0 +1,20 @@
+package org.logistservice.logist.stats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsDto {
+    private String cacheName;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long puts;
+    private long removals;
+    private long evictions;
+}
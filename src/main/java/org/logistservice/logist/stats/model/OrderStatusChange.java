@@ -0,0 +1,16 @@
+package org.logistservice.logist.stats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.logistservice.logist.order.model.OrderStatus;
+
+import java.time.LocalDate;
+
+// Смена статуса заказа, созданного в день day: строка stats_order_status_daily переносится из from в to
+@Getter
+@AllArgsConstructor
+public class OrderStatusChange {
+    private LocalDate day;
+    private OrderStatus from;
+    private OrderStatus to;
+}
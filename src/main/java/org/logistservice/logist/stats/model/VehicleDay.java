@@ -0,0 +1,22 @@
+package org.logistservice.logist.stats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Ключ строки stats_vehicle_daily
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class VehicleDay {
+    private Long vehicleId;
+    private LocalDate day;
+
+    // Назначение без плановой даты начала в дневные агрегаты не попадает
+    public static VehicleDay of(Long vehicleId, LocalDateTime plannedStart) {
+        return vehicleId != null && plannedStart != null ? new VehicleDay(vehicleId, plannedStart.toLocalDate()) : null;
+    }
+}
@@ -1,9 +1,15 @@
 package org.logistservice.logist.stats.repository;
 
-import org.springframework.stereotype.Repository;
+import org.logistservice.logist.stats.model.OrderStatusCountDto;
+import org.logistservice.logist.stats.model.TopClientDto;
+import org.logistservice.logist.stats.model.VehicleLoadDto;
 
-@Repository
+import java.time.LocalDate;
+import java.util.List;
+
+// Статистика по дневным агрегатам: не больше одной строки на день и ключ; границы периода включительно, null — без ограничения
 public interface StatsRepository {
-    // to-do
+    List<OrderStatusCountDto> countOrdersByStatus(LocalDate fromDate, LocalDate toDate);
+    List<TopClientDto> findTopClients(LocalDate fromDate, LocalDate toDate, int limit);
+    List<VehicleLoadDto> findVehicleLoad(LocalDate fromDate, LocalDate toDate);
 }
-
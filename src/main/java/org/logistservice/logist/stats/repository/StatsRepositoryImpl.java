@@ -0,0 +1,93 @@
+package org.logistservice.logist.stats.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.stats.model.OrderStatusCountDto;
+import org.logistservice.logist.stats.model.TopClientDto;
+import org.logistservice.logist.stats.model.VehicleLoadDto;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public class StatsRepositoryImpl implements StatsRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<OrderStatusCountDto> countOrdersByStatus(LocalDate fromDate, LocalDate toDate) {
+        String sql = "SELECT d.status, sum(d.orders_count) FROM stats_order_status_daily d " +
+                "WHERE " + period(fromDate, toDate) +
+                "GROUP BY d.status HAVING sum(d.orders_count) > 0 " +
+                "ORDER BY d.status";
+        
+        return rows(createQuery(sql, fromDate, toDate)).stream()
+                .map(row -> OrderStatusCountDto.builder()
+                        .status(OrderStatus.valueOf((String) row[0]))
+                        .count(((Number) row[1]).longValue())
+                        .build())
+                .toList();
+    }
+    
+    @Override
+    public List<TopClientDto> findTopClients(LocalDate fromDate, LocalDate toDate, int limit) {
+        String sql = "SELECT c.id, c.name, sum(d.orders_count), sum(d.total_price) FROM stats_client_daily d " +
+                "JOIN clients c ON c.id = d.client_id " +
+                "WHERE " + period(fromDate, toDate) +
+                "GROUP BY c.id, c.name HAVING sum(d.orders_count) > 0 " +
+                "ORDER BY 4 DESC, 3 DESC, c.id";
+        
+        return rows(createQuery(sql, fromDate, toDate).setMaxResults(limit)).stream()
+                .map(row -> TopClientDto.builder()
+                        .clientId(((Number) row[0]).longValue())
+                        .clientName((String) row[1])
+                        .ordersCount(((Number) row[2]).longValue())
+                        .totalPrice((BigDecimal) row[3])
+                        .build())
+                .toList();
+    }
+    
+    // Сумма дневных значений: заказ, назначенный на машину в разные дни периода, учитывается в каждом из них
+    @Override
+    public List<VehicleLoadDto> findVehicleLoad(LocalDate fromDate, LocalDate toDate) {
+        String sql = "SELECT v.id, v.registration_number, sum(d.orders_count) FROM stats_vehicle_daily d " +
+                "JOIN vehicles v ON v.id = d.vehicle_id " +
+                "WHERE " + period(fromDate, toDate) +
+                "GROUP BY v.id, v.registration_number HAVING sum(d.orders_count) > 0 " +
+                "ORDER BY 3 DESC, v.registration_number";
+        
+        return rows(createQuery(sql, fromDate, toDate)).stream()
+                .map(row -> VehicleLoadDto.builder()
+                        .vehicleId(((Number) row[0]).longValue())
+                        .registrationNumber((String) row[1])
+                        .ordersCount(((Number) row[2]).longValue())
+                        .build())
+                .toList();
+    }
+    
+    private String period(LocalDate fromDate, LocalDate toDate) {
+        return (fromDate != null ? "d.day >= :fromDate " : "TRUE ") +
+                (toDate != null ? "AND d.day <= :toDate " : "");
+    }
+    
+    private Query createQuery(String sql, LocalDate fromDate, LocalDate toDate) {
+        Query query = entityManager.createNativeQuery(sql);
+        if (fromDate != null) {
+            query.setParameter("fromDate", fromDate);
+        }
+        if (toDate != null) {
+            query.setParameter("toDate", toDate);
+        }
+        return query;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<Object[]> rows(Query query) {
+        return query.getResultList();
+    }
+}
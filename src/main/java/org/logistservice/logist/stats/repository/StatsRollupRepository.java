@@ -0,0 +1,28 @@
+package org.logistservice.logist.stats.repository;
+
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.stats.model.OrderStatusChange;
+import org.logistservice.logist.stats.model.VehicleDay;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+// Запись в дневные агрегаты статистики (db/migration/V1__baseline.sql)
+public interface StatsRollupRepository {
+    void addOrder(LocalDate day, OrderStatus status, Long clientId, long ordersDelta, BigDecimal priceDelta);
+    void moveOrderStatuses(Collection<OrderStatusChange> changes);
+    void moveClientOrder(LocalDate day, Long fromClientId, BigDecimal fromPrice, Long toClientId, BigDecimal toPrice);
+    void addOrders(Collection<Long> orderIds);
+    void removeOrders(Collection<Long> orderIds);
+    void removeClient(Long clientId);
+    void removeVehicle(Long vehicleId);
+    List<VehicleDay> findVehicleDaysByOrderId(Long orderId);
+    List<VehicleDay> findVehicleDaysByOrderIds(Collection<Long> orderIds);
+    List<VehicleDay> findVehicleDaysByAssignmentIds(Collection<Long> assignmentIds);
+    void refreshVehicleDays(Collection<VehicleDay> keys);
+    void addVehicleDaysOfOrders(Collection<Long> orderIds);
+    boolean isEmpty();
+    void rebuild();
+}
@@ -0,0 +1,251 @@
+package org.logistservice.logist.stats.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.stats.model.OrderStatusChange;
+import org.logistservice.logist.stats.model.VehicleDay;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class StatsRollupRepositoryImpl implements StatsRollupRepository {
+    
+    private static final String ORDER_STATUS_DAILY = "stats_order_status_daily";
+    private static final String CLIENT_DAILY = "stats_client_daily";
+    private static final String VEHICLE_DAILY = "stats_vehicle_daily";
+    
+    private static final String VEHICLE_DAYS = "SELECT DISTINCT a.vehicle_id, CAST(a.planned_start AS date) " +
+            "FROM order_assignments a ";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Дельты применяются upsert-ом: конкурентные транзакции складываются на блокировке строки.
+    // Оба агрегата заказа меняются одним запросом
+    @Override
+    public void addOrder(LocalDate day, OrderStatus status, Long clientId, long ordersDelta, BigDecimal priceDelta) {
+        update("WITH status_daily AS (" +
+                "  INSERT INTO stats_order_status_daily (day, status, orders_count) VALUES (:day, :status, :delta) " +
+                "  ON CONFLICT (day, status) DO UPDATE " +
+                "  SET orders_count = stats_order_status_daily.orders_count + EXCLUDED.orders_count) " +
+                "INSERT INTO stats_client_daily (day, client_id, orders_count, total_price) " +
+                "VALUES (:day, :clientId, :delta, :price) " +
+                "ON CONFLICT (day, client_id) DO UPDATE " +
+                "SET orders_count = stats_client_daily.orders_count + EXCLUDED.orders_count, " +
+                "total_price = stats_client_daily.total_price + EXCLUDED.total_price", ORDER_STATUS_DAILY, CLIENT_DAILY)
+                .setParameter("day", day)
+                .setParameter("status", status.name())
+                .setParameter("clientId", clientId)
+                .setParameter("delta", ordersDelta)
+                .setParameter("price", priceDelta)
+                .executeUpdate();
+    }
+    
+    // Переходы пачки сворачиваются в дельты по (день, статус) одним запросом; строки меняются в порядке ключей,
+    // поэтому встречные переходы и конкурентные пачки не блокируют друг друга крест-накрест
+    @Override
+    public void moveOrderStatuses(Collection<OrderStatusChange> changes) {
+        update("INSERT INTO stats_order_status_daily (day, status, orders_count) " +
+                "SELECT c.day, s.status, sum(s.delta) " +
+                "FROM unnest(CAST(:days AS date[]), CAST(:froms AS varchar[]), CAST(:tos AS varchar[])) " +
+                "AS c(day, from_status, to_status) " +
+                "CROSS JOIN LATERAL (VALUES (c.from_status, -1), (c.to_status, 1)) AS s(status, delta) " +
+                "GROUP BY 1, 2 HAVING sum(s.delta) <> 0 ORDER BY 1, 2 " +
+                "ON CONFLICT (day, status) DO UPDATE " +
+                "SET orders_count = stats_order_status_daily.orders_count + EXCLUDED.orders_count", ORDER_STATUS_DAILY)
+                .setParameter("days", changes.stream().map(OrderStatusChange::getDay).toArray(LocalDate[]::new))
+                .setParameter("froms", changes.stream().map(change -> change.getFrom().name()).toArray(String[]::new))
+                .setParameter("tos", changes.stream().map(change -> change.getTo().name()).toArray(String[]::new))
+                .executeUpdate();
+    }
+    
+    // Заказ переносится между клиентами (или меняет цену у того же клиента) одним запросом;
+    // строки меняются в порядке id клиентов, как и при переходах статусов
+    @Override
+    public void moveClientOrder(LocalDate day, Long fromClientId, BigDecimal fromPrice, Long toClientId, BigDecimal toPrice) {
+        update("INSERT INTO stats_client_daily (day, client_id, orders_count, total_price) " +
+                "SELECT :day, c.client_id, sum(c.delta), sum(c.price) FROM (VALUES " +
+                "  (CAST(:fromClientId AS bigint), -1, -CAST(:fromPrice AS numeric)), " +
+                "  (CAST(:toClientId AS bigint), 1, CAST(:toPrice AS numeric))) AS c(client_id, delta, price) " +
+                "GROUP BY c.client_id ORDER BY c.client_id " +
+                "ON CONFLICT (day, client_id) DO UPDATE " +
+                "SET orders_count = stats_client_daily.orders_count + EXCLUDED.orders_count, " +
+                "total_price = stats_client_daily.total_price + EXCLUDED.total_price", CLIENT_DAILY)
+                .setParameter("day", day)
+                .setParameter("fromClientId", fromClientId)
+                .setParameter("fromPrice", fromPrice)
+                .setParameter("toClientId", toClientId)
+                .setParameter("toPrice", toPrice)
+                .executeUpdate();
+    }
+
+    // Вклад пачки новых заказов одним запросом на агрегат; ключи идут по порядку, чтобы
+    // конкурентные импорты блокировали строки агрегатов в одной последовательности
+    @Override
+    public void addOrders(Collection<Long> orderIds) {
+        update("INSERT INTO stats_order_status_daily (day, status, orders_count) " +
+                "SELECT CAST(o.created_at AS date), o.status, count(*) FROM orders o " +
+                "WHERE o.id IN (:ids) GROUP BY 1, 2 ORDER BY 1, 2 " +
+                "ON CONFLICT (day, status) DO UPDATE " +
+                "SET orders_count = stats_order_status_daily.orders_count + EXCLUDED.orders_count", ORDER_STATUS_DAILY)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+        update("INSERT INTO stats_client_daily (day, client_id, orders_count, total_price) " +
+                "SELECT CAST(o.created_at AS date), o.client_id, count(*), COALESCE(sum(o.price), 0) FROM orders o " +
+                "WHERE o.id IN (:ids) GROUP BY 1, 2 ORDER BY 1, 2 " +
+                "ON CONFLICT (day, client_id) DO UPDATE " +
+                "SET orders_count = stats_client_daily.orders_count + EXCLUDED.orders_count, " +
+                "total_price = stats_client_daily.total_price + EXCLUDED.total_price", CLIENT_DAILY)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+    }
+    
+    // Вызывается до удаления пачки заказов; заказы пачки заблокированы, поэтому вычитается ровно их вклад
+    @Override
+    public void removeOrders(Collection<Long> orderIds) {
+        update("UPDATE stats_order_status_daily d SET orders_count = d.orders_count - x.cnt " +
+                "FROM (SELECT CAST(o.created_at AS date) AS day, o.status, count(*) AS cnt " +
+                "      FROM orders o WHERE o.id IN (:ids) GROUP BY 1, 2) x " +
+                "WHERE d.day = x.day AND d.status = x.status", ORDER_STATUS_DAILY)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+        update("UPDATE stats_client_daily d SET orders_count = d.orders_count - x.cnt, total_price = d.total_price - x.price " +
+                "FROM (SELECT CAST(o.created_at AS date) AS day, o.client_id, count(*) AS cnt, COALESCE(sum(o.price), 0) AS price " +
+                "      FROM orders o WHERE o.id IN (:ids) GROUP BY 1, 2) x " +
+                "WHERE d.day = x.day AND d.client_id = x.client_id", CLIENT_DAILY)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+    }
+    
+    // Вызывается после удаления заказов клиента: от него остались только обнуленные строки
+    @Override
+    public void removeClient(Long clientId) {
+        update("DELETE FROM stats_client_daily WHERE client_id = :clientId", CLIENT_DAILY)
+                .setParameter("clientId", clientId)
+                .executeUpdate();
+    }
+    
+    @Override
+    public void removeVehicle(Long vehicleId) {
+        update("DELETE FROM stats_vehicle_daily WHERE vehicle_id = :vehicleId", VEHICLE_DAILY)
+                .setParameter("vehicleId", vehicleId)
+                .executeUpdate();
+    }
+    
+    @Override
+    public List<VehicleDay> findVehicleDaysByOrderId(Long orderId) {
+        return vehicleDays(VEHICLE_DAYS + "WHERE a.order_id = :id AND a.planned_start IS NOT NULL", "id", orderId);
+    }
+    
+    @Override
+    public List<VehicleDay> findVehicleDaysByOrderIds(Collection<Long> orderIds) {
+        return vehicleDays(VEHICLE_DAYS + "WHERE a.order_id IN (:ids) AND a.planned_start IS NOT NULL", "ids", orderIds);
+    }
+    
+    @Override
+    public List<VehicleDay> findVehicleDaysByAssignmentIds(Collection<Long> assignmentIds) {
+        return vehicleDays(VEHICLE_DAYS + "WHERE a.id IN (:ids) AND a.planned_start IS NOT NULL", "ids", assignmentIds);
+    }
+    
+    // Число различных заказов не выводится из дельт, поэтому строки пересчитываются целиком.
+    // Первый запрос блокирует строки (по порядку ключей, как и при импорте): пересчет в следующем
+    // запросе видит назначения, закоммиченные конкурентной транзакцией, которая держала блокировку
+    @Override
+    public void refreshVehicleDays(Collection<VehicleDay> keys) {
+        LocalDate[] days = keys.stream().map(VehicleDay::getDay).toArray(LocalDate[]::new);
+        Long[] vehicleIds = keys.stream().map(VehicleDay::getVehicleId).toArray(Long[]::new);
+        update("INSERT INTO stats_vehicle_daily (day, vehicle_id, orders_count) " +
+                "SELECT k.day, k.vehicle_id, 0 FROM unnest(CAST(:days AS date[]), CAST(:vehicleIds AS bigint[])) " +
+                "AS k(day, vehicle_id) ORDER BY 1, 2 " +
+                "ON CONFLICT (day, vehicle_id) DO UPDATE SET orders_count = stats_vehicle_daily.orders_count", VEHICLE_DAILY)
+                .setParameter("days", days)
+                .setParameter("vehicleIds", vehicleIds)
+                .executeUpdate();
+        update("UPDATE stats_vehicle_daily s SET orders_count = (" +
+                "  SELECT count(DISTINCT a.order_id) FROM order_assignments a " +
+                "  WHERE a.vehicle_id = s.vehicle_id AND a.planned_start >= s.day AND a.planned_start < s.day + 1) " +
+                "FROM unnest(CAST(:days AS date[]), CAST(:vehicleIds AS bigint[])) AS k(day, vehicle_id) " +
+                "WHERE s.day = k.day AND s.vehicle_id = k.vehicle_id", VEHICLE_DAILY)
+                .setParameter("days", days)
+                .setParameter("vehicleIds", vehicleIds)
+                .executeUpdate();
+    }
+    
+    // Назначения только что вставленных заказов: их заказы еще не учтены в агрегате, поэтому счетчики
+    // увеличиваются, а не пересчитываются по всем назначениям дня (пересчет дорожает с ростом таблицы).
+    // Параллельный пересчет сначала блокирует строки агрегата, а затем считает по закоммиченным данным,
+    // так что он либо дождется этой транзакции и увидит ее назначения, либо отработает до прибавки
+    @Override
+    public void addVehicleDaysOfOrders(Collection<Long> orderIds) {
+        update("INSERT INTO stats_vehicle_daily (day, vehicle_id, orders_count) " +
+                "SELECT CAST(a.planned_start AS date), a.vehicle_id, count(DISTINCT a.order_id) FROM order_assignments a " +
+                "WHERE a.order_id IN (:ids) AND a.planned_start IS NOT NULL GROUP BY 1, 2 ORDER BY 1, 2 " +
+                "ON CONFLICT (day, vehicle_id) DO UPDATE " +
+                "SET orders_count = stats_vehicle_daily.orders_count + EXCLUDED.orders_count", VEHICLE_DAILY)
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return (Boolean) entityManager.createNativeQuery("SELECT NOT EXISTS (SELECT 1 FROM stats_order_status_daily)", Boolean.class)
+                .getSingleResult();
+    }
+    
+    // Блокировка таблиц дожидается пишущих транзакций; запросы после нее видят их коммиты,
+    // а новые дельты применятся поверх пересобранных строк после коммита пересборки
+    @Override
+    public void rebuild() {
+        update("LOCK TABLE stats_order_status_daily, stats_client_daily, stats_vehicle_daily IN EXCLUSIVE MODE",
+                ORDER_STATUS_DAILY, CLIENT_DAILY, VEHICLE_DAILY).executeUpdate();
+        
+        update("DELETE FROM stats_order_status_daily", ORDER_STATUS_DAILY).executeUpdate();
+        update("INSERT INTO stats_order_status_daily (day, status, orders_count) " +
+                "SELECT CAST(created_at AS date), status, count(*) FROM orders GROUP BY 1, 2", ORDER_STATUS_DAILY)
+                .executeUpdate();
+        
+        update("DELETE FROM stats_client_daily", CLIENT_DAILY).executeUpdate();
+        update("INSERT INTO stats_client_daily (day, client_id, orders_count, total_price) " +
+                "SELECT CAST(created_at AS date), client_id, count(*), COALESCE(sum(price), 0) FROM orders " +
+                "WHERE client_id IS NOT NULL GROUP BY 1, 2", CLIENT_DAILY)
+                .executeUpdate();
+        
+        update("DELETE FROM stats_vehicle_daily", VEHICLE_DAILY).executeUpdate();
+        update("INSERT INTO stats_vehicle_daily (day, vehicle_id, orders_count) " +
+                "SELECT CAST(planned_start AS date), vehicle_id, count(DISTINCT order_id) FROM order_assignments " +
+                "WHERE planned_start IS NOT NULL GROUP BY 1, 2", VEHICLE_DAILY)
+                .executeUpdate();
+    }
+    
+    // Явные query spaces: без них Hibernate сбрасывает после native-запроса все регионы кэша второго уровня
+    private Query update(String sql, String... tables) {
+        Query query = entityManager.createNativeQuery(sql);
+        NativeQuery<?> nativeQuery = query.unwrap(NativeQuery.class);
+        for (String table : tables) {
+            nativeQuery.addSynchronizedQuerySpace(table);
+        }
+        return query;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<VehicleDay> vehicleDays(String sql, String parameter, Object value) {
+        List<Object[]> rows = entityManager.createNativeQuery(sql)
+                .setParameter(parameter, value)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new VehicleDay(((Number) row[0]).longValue(), toLocalDate(row[1])))
+                .toList();
+    }
+    
+    private LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
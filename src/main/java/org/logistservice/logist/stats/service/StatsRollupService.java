@@ -0,0 +1,28 @@
+package org.logistservice.logist.stats.service;
+
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.stats.model.OrderStatusChange;
+import org.logistservice.logist.stats.model.VehicleDay;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+// Поддержка дневных агрегатов статистики; вызывается внутри транзакции изменяющей операции
+public interface StatsRollupService {
+    void orderCreated(Order order);
+    void ordersImported(Collection<Long> orderIds);
+    void orderUpdated(Order order, Long previousClientId, BigDecimal previousPrice);
+    void orderStatusesChanged(Collection<OrderStatusChange> changes);
+    void orderDeleted(Order order);
+    void ordersDeleted(Collection<Long> orderIds);
+    void clientDeleted(Long clientId);
+    void vehicleDeleted(Long vehicleId);
+    List<VehicleDay> vehicleDaysOfOrder(Long orderId);
+    List<VehicleDay> vehicleDaysOfOrders(Collection<Long> orderIds);
+    List<VehicleDay> vehicleDaysOfAssignments(Collection<Long> assignmentIds);
+    void refreshVehicleLoad(Collection<VehicleDay> keys);
+    void refreshVehicleLoadOfOrder(Long orderId, Collection<VehicleDay> previousKeys);
+    boolean isEmpty();
+    void rebuild();
+}
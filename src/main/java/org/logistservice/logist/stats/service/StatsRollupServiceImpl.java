@@ -0,0 +1,153 @@
+package org.logistservice.logist.stats.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.stats.model.OrderStatusChange;
+import org.logistservice.logist.stats.model.VehicleDay;
+import org.logistservice.logist.stats.repository.StatsRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class StatsRollupServiceImpl implements StatsRollupService {
+    
+    private final StatsRollupRepository rollupRepository;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public void orderCreated(Order order) {
+        rollupRepository.addOrder(order.getCreatedAt().toLocalDate(), order.getStatus(), order.getClient().getId(),
+                1, priceOf(order.getPrice()));
+    }
+    
+    // Заказы и назначения пачки уже записаны в БД в этой транзакции
+    @Override
+    public void ordersImported(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        rollupRepository.addOrders(orderIds);
+        rollupRepository.addVehicleDaysOfOrders(orderIds);
+    }
+    
+    @Override
+    public void orderUpdated(Order order, Long previousClientId, BigDecimal previousPrice) {
+        Long clientId = order.getClient().getId();
+        if (Objects.equals(clientId, previousClientId) && priceOf(order.getPrice()).compareTo(priceOf(previousPrice)) == 0) {
+            return;
+        }
+        rollupRepository.moveClientOrder(order.getCreatedAt().toLocalDate(), previousClientId, priceOf(previousPrice),
+                clientId, priceOf(order.getPrice()));
+    }
+    
+    @Override
+    public void orderStatusesChanged(Collection<OrderStatusChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        rollupRepository.moveOrderStatuses(changes);
+    }
+    
+    @Override
+    public void orderDeleted(Order order) {
+        rollupRepository.addOrder(order.getCreatedAt().toLocalDate(), order.getStatus(), order.getClient().getId(),
+                -1, priceOf(order.getPrice()).negate());
+    }
+    
+    // Вызывается до удаления пачки: заказы еще в БД
+    @Override
+    public void ordersDeleted(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        rollupRepository.removeOrders(orderIds);
+    }
+    
+    // Вызывается после удаления всех заказов клиента
+    @Override
+    public void clientDeleted(Long clientId) {
+        rollupRepository.removeClient(clientId);
+    }
+    
+    @Override
+    public void vehicleDeleted(Long vehicleId) {
+        rollupRepository.removeVehicle(vehicleId);
+    }
+    
+    @Override
+    public List<VehicleDay> vehicleDaysOfOrder(Long orderId) {
+        entityManager.flush();
+        return rollupRepository.findVehicleDaysByOrderId(orderId);
+    }
+    
+    @Override
+    public List<VehicleDay> vehicleDaysOfOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        entityManager.flush();
+        return rollupRepository.findVehicleDaysByOrderIds(orderIds);
+    }
+    
+    @Override
+    public List<VehicleDay> vehicleDaysOfAssignments(Collection<Long> assignmentIds) {
+        if (assignmentIds.isEmpty()) {
+            return List.of();
+        }
+        entityManager.flush();
+        return rollupRepository.findVehicleDaysByAssignmentIds(assignmentIds);
+    }
+    
+    // Пересчет читает order_assignments, поэтому изменения сессии сначала сбрасываются в БД
+    @Override
+    public void refreshVehicleLoad(Collection<VehicleDay> keys) {
+        List<VehicleDay> distinctKeys = keys.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (distinctKeys.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        rollupRepository.refreshVehicleDays(distinctKeys);
+    }
+    
+    @Override
+    public void refreshVehicleLoadOfOrder(Long orderId, Collection<VehicleDay> previousKeys) {
+        Set<VehicleDay> keys = new LinkedHashSet<>(previousKeys);
+        keys.addAll(vehicleDaysOfOrder(orderId));
+        refreshVehicleLoad(keys);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isEmpty() {
+        return rollupRepository.isEmpty();
+    }
+    
+    @Override
+    @Transactional
+    public void rebuild() {
+        rollupRepository.rebuild();
+    }
+    
+    private BigDecimal priceOf(BigDecimal price) {
+        return price != null ? price : BigDecimal.ZERO;
+    }
+}
@@ -1,5 +1,6 @@
 package org.logistservice.logist.stats.service;
 
+import org.logistservice.logist.stats.model.CacheStatsDto;
 import org.logistservice.logist.stats.model.OrderStatusCountDto;
 import org.logistservice.logist.stats.model.TopClientDto;
 import org.logistservice.logist.stats.model.VehicleLoadDto;
@@ -11,5 +12,6 @@ public interface StatsService {
     List<OrderStatusCountDto> getOrderStatusCounts(LocalDate fromDate, LocalDate toDate);
     List<TopClientDto> getTopClients(LocalDate fromDate, LocalDate toDate, int limit);
     List<VehicleLoadDto> getVehicleLoad(LocalDate fromDate, LocalDate toDate);
+    List<CacheStatsDto> getCacheStats();
 }
 
@@ -1,21 +1,25 @@
 package org.logistservice.logist.stats.service;
 
 import lombok.RequiredArgsConstructor;
-import org.logistservice.logist.order.model.Order;
-import org.logistservice.logist.order.model.OrderAssignment;
 import org.logistservice.logist.order.model.OrderStatus;
-import org.logistservice.logist.order.repository.OrderAssignmentRepository;
-import org.logistservice.logist.order.repository.OrderRepository;
+import org.logistservice.logist.order.service.OrderShards;
+import org.logistservice.logist.stats.model.CacheStatsDto;
 import org.logistservice.logist.stats.model.OrderStatusCountDto;
 import org.logistservice.logist.stats.model.TopClientDto;
 import org.logistservice.logist.stats.model.VehicleLoadDto;
+import org.logistservice.logist.stats.repository.StatsRepository;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -24,147 +28,89 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class StatsServiceImpl implements StatsService {
     
-    private final OrderRepository orderRepository;
-    private final OrderAssignmentRepository assignmentRepository;
+    private final StatsRepository statsRepository;
+    private final OrderShards orderShards;
     
+    // Агрегаты каждого шарда считаются по его заказам: результаты шардов складываются и сортируются
+    // в том же порядке, что и запросы StatsRepositoryImpl
     @Override
-    @Transactional(readOnly = true)
     public List<OrderStatusCountDto> getOrderStatusCounts(LocalDate fromDate, LocalDate toDate) {
-        List<Order> orders = orderRepository.findAllWithClientAndManager();
-        
-        LocalDateTime fromDateTime = fromDate != null ? fromDate.atStartOfDay() : null;
-        LocalDateTime toDateTime = toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
-        
-        Map<OrderStatus, Long> statusCounts = orders.stream()
-                .filter(order -> {
-                    if (fromDateTime == null && toDateTime == null) {
-                        return true;
-                    }
-                    LocalDateTime createdAt = order.getCreatedAt();
-                    if (createdAt == null) {
-                        return false;
-                    }
-                    boolean afterFrom = fromDateTime == null || !createdAt.isBefore(fromDateTime);
-                    boolean beforeTo = toDateTime == null || createdAt.isBefore(toDateTime);
-                    return afterFrom && beforeTo;
-                })
-                .collect(Collectors.groupingBy(
-                        Order::getStatus,
-                        Collectors.counting()
-                ));
-        
-        return statusCounts.entrySet().stream()
-                .map(entry -> OrderStatusCountDto.builder()
-                        .status(entry.getKey())
-                        .count(entry.getValue())
-                        .build())
-                .sorted(Comparator.comparing(OrderStatusCountDto::getStatus, 
-                        Comparator.comparing(Enum::name)))
-                .collect(Collectors.toList());
+        List<List<OrderStatusCountDto>> shards = orderShards.readAll(shard -> statsRepository.countOrdersByStatus(fromDate, toDate));
+        if (shards.size() == 1) {
+            return shards.get(0);
+        }
+        Map<OrderStatus, OrderStatusCountDto> merged = new LinkedHashMap<>();
+        shards.stream().flatMap(List::stream).forEach(row -> merged.merge(row.getStatus(), row,
+                (a, b) -> new OrderStatusCountDto(a.getStatus(), a.getCount() + b.getCount())));
+        return merged.values().stream()
+                .sorted(Comparator.comparing(row -> row.getStatus().name()))
+                .toList();
     }
     
     @Override
-    @Transactional(readOnly = true)
     public List<TopClientDto> getTopClients(LocalDate fromDate, LocalDate toDate, int limit) {
-        if (limit <= 0) {
-            limit = 5;
+        int top = limit > 0 ? limit : 5;
+        // Клиент может быть в топе в сумме, не попадая в топ ни одного шарда, поэтому шарды отдают все строки
+        int shardLimit = orderShards.count() == 1 ? top : Integer.MAX_VALUE;
+        List<List<TopClientDto>> shards = orderShards.readAll(shard -> statsRepository.findTopClients(fromDate, toDate, shardLimit));
+        if (shards.size() == 1) {
+            return shards.get(0);
         }
-        
-        List<Order> orders = orderRepository.findAllWithClientAndManager();
-        
-        LocalDateTime fromDateTime = fromDate != null ? fromDate.atStartOfDay() : null;
-        LocalDateTime toDateTime = toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
-        
-        Map<Long, List<Order>> ordersByClient = orders.stream()
-                .filter(order -> {
-                    if (order.getClient() == null) {
-                        return false;
-                    }
-                    if (fromDateTime == null && toDateTime == null) {
-                        return true;
-                    }
-                    LocalDateTime createdAt = order.getCreatedAt();
-                    if (createdAt == null) {
-                        return false;
-                    }
-                    boolean afterFrom = fromDateTime == null || !createdAt.isBefore(fromDateTime);
-                    boolean beforeTo = toDateTime == null || createdAt.isBefore(toDateTime);
-                    return afterFrom && beforeTo;
-                })
-                .collect(Collectors.groupingBy(order -> order.getClient().getId()));
-        
-        return ordersByClient.entrySet().stream()
-                .map(entry -> {
-                    Long clientId = entry.getKey();
-                    List<Order> clientOrders = entry.getValue();
-                    long ordersCount = clientOrders.size();
-                    BigDecimal totalPrice = clientOrders.stream()
-                            .map(order -> order.getPrice() != null ? order.getPrice() : BigDecimal.ZERO)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    
-                    String clientName = clientOrders.get(0).getClient().getName();
-                    
-                    return TopClientDto.builder()
-                            .clientId(clientId)
-                            .clientName(clientName)
-                            .ordersCount(ordersCount)
-                            .totalPrice(totalPrice)
-                            .build();
-                })
-                .sorted(Comparator.comparing(TopClientDto::getTotalPrice, 
-                        Comparator.nullsLast(Comparator.reverseOrder()))
-                        .thenComparing(TopClientDto::getOrdersCount, Comparator.reverseOrder()))
-                .limit(limit)
-                .collect(Collectors.toList());
+        Map<Long, TopClientDto> merged = new LinkedHashMap<>();
+        shards.stream().flatMap(List::stream).forEach(row -> merged.merge(row.getClientId(), row,
+                (a, b) -> new TopClientDto(a.getClientId(), a.getClientName(), a.getOrdersCount() + b.getOrdersCount(),
+                        a.getTotalPrice().add(b.getTotalPrice()))));
+        return merged.values().stream()
+                .sorted(Comparator.comparing(TopClientDto::getTotalPrice, Comparator.<BigDecimal>reverseOrder())
+                        .thenComparing(TopClientDto::getOrdersCount, Comparator.reverseOrder())
+                        .thenComparing(TopClientDto::getClientId))
+                .limit(top)
+                .toList();
     }
     
     @Override
-    @Transactional(readOnly = true)
     public List<VehicleLoadDto> getVehicleLoad(LocalDate fromDate, LocalDate toDate) {
-        List<OrderAssignment> assignments = assignmentRepository.findAllWithRelations();
-        
-        LocalDateTime fromDateTime = fromDate != null ? fromDate.atStartOfDay() : null;
-        LocalDateTime toDateTime = toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
-        
-        Map<Long, List<OrderAssignment>> assignmentsByVehicle = assignments.stream()
-                .filter(assignment -> {
-                    if (assignment.getVehicle() == null) {
-                        return false;
-                    }
-                    if (fromDateTime == null && toDateTime == null) {
-                        return true;
-                    }
-                    LocalDateTime plannedStart = assignment.getPlannedStart();
-                    if (plannedStart == null) {
-                        return false;
-                    }
-                    boolean afterFrom = fromDateTime == null || !plannedStart.isBefore(fromDateTime);
-                    boolean beforeTo = toDateTime == null || plannedStart.isBefore(toDateTime);
-                    return afterFrom && beforeTo;
-                })
-                .collect(Collectors.groupingBy(assignment -> assignment.getVehicle().getId()));
+        List<List<VehicleLoadDto>> shards = orderShards.readAll(shard -> statsRepository.findVehicleLoad(fromDate, toDate));
+        if (shards.size() == 1) {
+            return shards.get(0);
+        }
+        Map<Long, VehicleLoadDto> merged = new LinkedHashMap<>();
+        shards.stream().flatMap(List::stream).forEach(row -> merged.merge(row.getVehicleId(), row,
+                (a, b) -> new VehicleLoadDto(a.getVehicleId(), a.getRegistrationNumber(),
+                        a.getOrdersCount() + b.getOrdersCount())));
+        return merged.values().stream()
+                .sorted(Comparator.comparing(VehicleLoadDto::getOrdersCount, Comparator.reverseOrder())
+                        .thenComparing(VehicleLoadDto::getRegistrationNumber))
+                .toList();
+    }
+    
+    @Override
+    public List<CacheStatsDto> getCacheStats() {
+        // JCache-провайдер публикует счётчики каждого кэша со включённой статистикой как MBean
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern;
+        try {
+            pattern = new ObjectName("javax.cache:type=CacheStatistics,*");
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
         
-        return assignmentsByVehicle.entrySet().stream()
-                .map(entry -> {
-                    Long vehicleId = entry.getKey();
-                    List<OrderAssignment> vehicleAssignments = entry.getValue();
-                    long ordersCount = vehicleAssignments.stream()
-                            .map(assignment -> assignment.getOrder() != null ? assignment.getOrder().getId() : null)
-                            .filter(id -> id != null)
-                            .distinct()
-                            .count();
-                    
-                    String registrationNumber = vehicleAssignments.get(0).getVehicle().getRegistrationNumber();
-                    
-                    return VehicleLoadDto.builder()
-                            .vehicleId(vehicleId)
-                            .registrationNumber(registrationNumber)
-                            .ordersCount(ordersCount)
+        return server.queryNames(pattern, null).stream()
+                .map(name -> {
+                    CacheStatisticsMXBean statistics = JMX.newMXBeanProxy(server, name, CacheStatisticsMXBean.class);
+                    long hits = statistics.getCacheHits();
+                    long misses = statistics.getCacheMisses();
+                    return CacheStatsDto.builder()
+                            .cacheName(name.getKeyProperty("Cache"))
+                            .hits(hits)
+                            .misses(misses)
+                            .hitRatio(hits + misses > 0 ? (double) hits / (hits + misses) : 0.0)
+                            .puts(statistics.getCachePuts())
+                            .removals(statistics.getCacheRemovals())
+                            .evictions(statistics.getCacheEvictions())
                             .build();
                 })
-                .sorted(Comparator.comparing(VehicleLoadDto::getOrdersCount, Comparator.reverseOrder())
-                        .thenComparing(VehicleLoadDto::getRegistrationNumber))
+                .sorted(Comparator.comparing(CacheStatsDto::getCacheName))
                 .collect(Collectors.toList());
     }
 }
-
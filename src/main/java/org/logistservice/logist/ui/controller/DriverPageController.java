@@ -9,6 +9,7 @@ import org.logistservice.logist.driver.service.DriverService;
 import org.logistservice.logist.common.exception.NotFoundException;
 import org.logistservice.logist.order.model.dto.OrderAssignmentDto;
 import org.logistservice.logist.order.repository.OrderAssignmentRepository;
+import org.logistservice.logist.order.service.OrderShards;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -27,6 +28,7 @@ public class DriverPageController {
     
     private final DriverService driverService;
     private final OrderAssignmentRepository assignmentRepository;
+    private final OrderShards orderShards;
     
     @GetMapping
     public String listDrivers(
@@ -56,8 +58,8 @@ public class DriverPageController {
         DriverDto driver = driverService.getById(id);
         model.addAttribute("driver", driver);
         
-        // Получаем назначения водителя на заказы
-        List<OrderAssignmentDto> assignments = assignmentRepository.findByDriverId(id).stream()
+        // Получаем назначения водителя на заказы со всех шардов
+        List<OrderAssignmentDto> assignments = orderShards.readAll(shard -> assignmentRepository.findByDriverId(id).stream()
                 .map(assignment -> OrderAssignmentDto.builder()
                         .id(assignment.getId())
                         .orderId(assignment.getOrder() != null ? assignment.getOrder().getId() : null)
@@ -71,6 +73,8 @@ public class DriverPageController {
                         .actualStart(assignment.getActualStart())
                         .actualEnd(assignment.getActualEnd())
                         .build())
+                .toList()).stream()
+                .flatMap(List::stream)
                 .sorted(Comparator.comparing(OrderAssignmentDto::getPlannedStart, 
                         Comparator.nullsLast(Comparator.naturalOrder())))
                 .collect(Collectors.toList());
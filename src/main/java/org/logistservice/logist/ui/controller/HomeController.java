@@ -3,6 +3,7 @@ package org.logistservice.logist.ui.controller;
 import lombok.RequiredArgsConstructor;
 import org.logistservice.logist.driver.repository.DriverRepository;
 import org.logistservice.logist.order.repository.OrderRepository;
+import org.logistservice.logist.order.service.OrderShards;
 import org.logistservice.logist.vehicle.model.VehicleStatus;
 import org.logistservice.logist.vehicle.repository.VehicleRepository;
 import org.springframework.stereotype.Controller;
@@ -18,10 +19,13 @@ public class HomeController {
     private final OrderRepository orderRepository;
     private final VehicleRepository vehicleRepository;
     private final DriverRepository driverRepository;
+    private final OrderShards orderShards;
     
     @GetMapping
     public String index(Model model) {
-        long totalOrders = orderRepository.count();
+        long totalOrders = orderShards.readAll(shard -> orderRepository.count()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
         long activeVehicles = vehicleRepository.countByStatus(VehicleStatus.ACTIVE);
         long activeDrivers = driverRepository.countByActive(true);
         
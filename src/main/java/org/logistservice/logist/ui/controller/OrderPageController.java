@@ -2,6 +2,7 @@ package org.logistservice.logist.ui.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.logistservice.logist.client.service.ClientService;
+import org.logistservice.logist.common.dto.PageResponse;
 import org.logistservice.logist.common.enums.DriverSortField;
 import org.logistservice.logist.common.enums.OrderSortField;
 import org.logistservice.logist.common.enums.SortDirection;
@@ -18,17 +19,19 @@ import org.logistservice.logist.vehicle.service.VehicleService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.Arrays;
-import java.util.List;
 
 @Controller
 @RequestMapping("/ui/orders")
 @RequiredArgsConstructor
 public class OrderPageController {
     
+    private static final int PAGE_SIZE = 20;
+    
     private final OrderService orderService;
     private final ClientService clientService;
     private final DriverService driverService;
@@ -39,17 +42,20 @@ public class OrderPageController {
             @RequestParam(required = false) String search,
             @RequestParam(required = false) OrderSortField sortField,
             @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection,
+            @RequestParam(required = false, defaultValue = "0") int page,
             Model model) {
         
-        // По умолчанию сортируем по дате создания (новые сначала)
-        if (sortField == null) {
+        // По умолчанию сортируем по дате создания (новые сначала), результаты поиска - по релевантности
+        if (sortField == null && !StringUtils.hasText(search)) {
             sortField = OrderSortField.CREATED_AT;
             sortDirection = SortDirection.DESC;
         }
         
-        List<OrderDto> orders = orderService.getAll(search, null, null, null, null, sortField, sortDirection);
+        PageResponse<OrderDto> orders = orderService.getAll(search, null, null, null, null,
+                sortField, sortDirection, Math.max(page, 0), PAGE_SIZE);
         model.addAttribute("search", search);
-        model.addAttribute("orders", orders);
+        model.addAttribute("orders", orders.getContent());
+        model.addAttribute("page", orders);
         model.addAttribute("sortField", sortField);
         model.addAttribute("sortDirection", sortDirection);
         model.addAttribute("availableSortFields", Arrays.asList(OrderSortField.values()));
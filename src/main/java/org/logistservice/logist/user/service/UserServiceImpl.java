@@ -1,6 +1,8 @@
 package org.logistservice.logist.user.service;
 
 import org.logistservice.logist.common.exception.NotFoundException;
+import org.logistservice.logist.order.service.OrderDetailsCache;
+import org.logistservice.logist.security.UserStateCache;
 import org.logistservice.logist.user.model.Role;
 import org.logistservice.logist.user.model.User;
 import org.logistservice.logist.user.model.dto.UserRoleUpdateRequest;
@@ -18,10 +20,15 @@ public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final OrderDetailsCache orderDetailsCache;
+    private final UserStateCache userStateCache;
     
-    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository) {
+    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository,
+                           OrderDetailsCache orderDetailsCache, UserStateCache userStateCache) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
+        this.orderDetailsCache = orderDetailsCache;
+        this.userStateCache = userStateCache;
     }
     
     @Override
@@ -39,6 +46,12 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User save(User user) {
+        // Имя менеджера и автора смены статуса входят в детали заказов;
+        // активность, имя и роли проверяются при аутентификации по токену
+        if (user.getId() != null) {
+            orderDetailsCache.evictAll();
+            userStateCache.evict(user.getId());
+        }
         return userRepository.save(user);
     }
     
@@ -46,6 +59,8 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteById(Long id) {
         userRepository.deleteById(id);
+        orderDetailsCache.evictAll();
+        userStateCache.evict(id);
     }
     
     @Override
@@ -60,6 +75,8 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toSet());
         
         user.setRoles(newRoles);
+        // Токены, выданные с прежними ролями, перестают приниматься
+        userStateCache.evict(userId);
         return userRepository.save(user);
     }
 }
@@ -1,17 +1,25 @@
 package org.logistservice.logist.vehicle.controller;
 
 import jakarta.validation.Valid;
+import org.logistservice.logist.common.dto.ImportReportDto;
 import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.common.enums.VehicleSortField;
+import org.logistservice.logist.common.web.JsonArrayStreamer;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
 import org.logistservice.logist.vehicle.model.VehicleStatus;
 import org.logistservice.logist.vehicle.model.dto.VehicleCreateUpdateRequest;
 import org.logistservice.logist.vehicle.model.dto.VehicleDto;
+import org.logistservice.logist.vehicle.service.VehicleImportService;
 import org.logistservice.logist.vehicle.service.VehicleService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -19,9 +27,14 @@ import java.util.List;
 public class VehicleController {
     
     private final VehicleService vehicleService;
+    private final VehicleImportService vehicleImportService;
+    private final JsonArrayStreamer jsonArrayStreamer;
     
-    public VehicleController(VehicleService vehicleService) {
+    public VehicleController(VehicleService vehicleService, VehicleImportService vehicleImportService,
+                             JsonArrayStreamer jsonArrayStreamer) {
         this.vehicleService = vehicleService;
+        this.vehicleImportService = vehicleImportService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
     }
     
     @GetMapping
@@ -34,6 +47,17 @@ public class VehicleController {
         return ResponseEntity.ok(vehicleService.getAll(type, status, sortField, sortDirection));
     }
     
+    // Потоковый режим списка (stream=true): фильтры и сортировка выполняются в БД, строки пишутся по мере чтения
+    @GetMapping(params = "stream=true")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
+    public ResponseEntity<StreamingResponseBody> streamAllVehicles(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) VehicleStatus status,
+            @RequestParam(required = false) VehicleSortField sortField,
+            @RequestParam(required = false, defaultValue = "ASC") SortDirection sortDirection) {
+        return jsonArrayStreamer.<VehicleDto>stream(rows -> vehicleService.streamAll(type, status, sortField, sortDirection, rows));
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','OPERATOR')")
     public ResponseEntity<VehicleDto> getVehicleById(@PathVariable Long id) {
@@ -47,6 +71,19 @@ public class VehicleController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    // Массовый импорт транспорта с upsert по госномеру (registrationNumber): CSV с заголовком из имен полей запроса или NDJSON
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importVehiclesCsv(InputStream csv) {
+        return ResponseEntity.ok(vehicleImportService.importCsv(csv));
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ImportReportDto> importVehiclesNdjson(InputStream ndjson) {
+        return ResponseEntity.ok(vehicleImportService.importNdjson(ndjson));
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public ResponseEntity<VehicleDto> updateVehicle(
@@ -61,6 +98,14 @@ public class VehicleController {
         vehicleService.delete(id);
         return ResponseEntity.noContent().build();
     }
+    
+    // Фоновое удаление транспорта с назначениями; прогресс - GET /api/deletion-jobs/{jobId}
+    @PostMapping("/{id}/deletion-job")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<DeletionJobDto> startVehicleDeletion(@PathVariable Long id) {
+        DeletionJobDto job = vehicleService.startDeletion(id);
+        return ResponseEntity.accepted().location(URI.create("/api/deletion-jobs/" + job.getId())).body(job);
+    }
 }
 
 
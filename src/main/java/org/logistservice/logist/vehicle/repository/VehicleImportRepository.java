@@ -0,0 +1,10 @@
+package org.logistservice.logist.vehicle.repository;
+
+import org.logistservice.logist.vehicle.model.Vehicle;
+
+import java.util.List;
+
+// Пакетная вставка импортируемого транспорта в обход сессии Hibernate
+public interface VehicleImportRepository {
+    void insertVehicles(List<Vehicle> vehicles);
+}
@@ -0,0 +1,35 @@
+package org.logistservice.logist.vehicle.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.logistservice.logist.vehicle.model.Vehicle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+// Id строк заранее зарезервированы через SequenceIdAllocator
+@Repository
+@RequiredArgsConstructor
+public class VehicleImportRepositoryImpl implements VehicleImportRepository {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void insertVehicles(List<Vehicle> vehicles) {
+        jdbcTemplate.batchUpdate("INSERT INTO vehicles (id, registration_number, type, capacity_weight, capacity_volume, " +
+                        "status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                vehicles, BATCH_SIZE, (ps, vehicle) -> {
+                    ps.setLong(1, vehicle.getId());
+                    ps.setString(2, vehicle.getRegistrationNumber());
+                    ps.setString(3, vehicle.getType());
+                    ps.setObject(4, vehicle.getCapacityWeight(), Types.DOUBLE);
+                    ps.setObject(5, vehicle.getCapacityVolume(), Types.DOUBLE);
+                    ps.setString(6, vehicle.getStatus().name());
+                    ps.setTimestamp(7, Timestamp.valueOf(vehicle.getCreatedAt()));
+                });
+    }
+}
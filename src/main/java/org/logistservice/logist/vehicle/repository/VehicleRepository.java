@@ -3,12 +3,34 @@ package org.logistservice.logist.vehicle.repository;
 import org.logistservice.logist.vehicle.model.Vehicle;
 import org.logistservice.logist.vehicle.model.VehicleStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     boolean existsByRegistrationNumberIgnoreCase(String registrationNumber);
     long countByStatus(VehicleStatus status);
+    
+    // FOR UPDATE (а не FOR NO KEY UPDATE) конфликтует с проверкой внешнего ключа:
+    // до конца транзакции на транспорт нельзя назначить заказ
+    @Query(value = "SELECT id FROM vehicles WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+    
+    // Чтение для заказа на другом шарде (OrderReferences): FOR KEY SHARE не мешает изменять строку,
+    // но конфликтует с lockById, так что до конца транзакции удаление ждет
+    @Query(value = "SELECT * FROM vehicles WHERE id IN (:ids) FOR KEY SHARE", nativeQuery = true)
+    List<Vehicle> findAllForKeyShareByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Поиск по пачке госномеров без учета регистра (для импорта), по индексу upper(registration_number);
+    // точное совпадение - на случай, если правила смены регистра в БД и в Java расходятся
+    @Query("SELECT v FROM Vehicle v WHERE upper(v.registrationNumber) IN :keys OR v.registrationNumber IN :numbers")
+    List<Vehicle> findAllByRegistrationNumbers(@Param("keys") Collection<String> keys,
+                                               @Param("numbers") Collection<String> numbers);
 }
 
 
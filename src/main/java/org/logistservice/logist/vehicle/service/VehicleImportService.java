@@ -0,0 +1,10 @@
+package org.logistservice.logist.vehicle.service;
+
+import org.logistservice.logist.common.dto.ImportReportDto;
+
+import java.io.InputStream;
+
+public interface VehicleImportService {
+    ImportReportDto importCsv(InputStream csv);
+    ImportReportDto importNdjson(InputStream ndjson);
+}
@@ -0,0 +1,118 @@
+package org.logistservice.logist.vehicle.service;
+
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.logistservice.logist.common.imports.ImportReader;
+import org.logistservice.logist.common.imports.ImportRow;
+import org.logistservice.logist.common.imports.UpsertImporter;
+import org.logistservice.logist.common.repository.SequenceIdAllocator;
+import org.logistservice.logist.order.service.OrderDetailsCache;
+import org.logistservice.logist.vehicle.model.Vehicle;
+import org.logistservice.logist.vehicle.model.dto.VehicleCreateUpdateRequest;
+import org.logistservice.logist.vehicle.repository.VehicleImportRepository;
+import org.logistservice.logist.vehicle.repository.VehicleRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Импорт транспорта с upsert по госномеру (без учета регистра): найденные автомобили обновляются,
+// остальные создаются. Каждая пачка - одна транзакция с одним запросом поиска существующих записей
+@Service
+public class VehicleImportServiceImpl implements VehicleImportService {
+    
+    private final VehicleRepository vehicleRepository;
+    private final VehicleImportRepository vehicleImportRepository;
+    private final SequenceIdAllocator idAllocator;
+    private final ImportReader importReader;
+    private final OrderDetailsCache orderDetailsCache;
+    private final UpsertImporter upsertImporter;
+    
+    public VehicleImportServiceImpl(VehicleRepository vehicleRepository,
+                                    VehicleImportRepository vehicleImportRepository,
+                                    SequenceIdAllocator idAllocator,
+                                    ImportReader importReader,
+                                    OrderDetailsCache orderDetailsCache,
+                                    UpsertImporter upsertImporter) {
+        this.vehicleRepository = vehicleRepository;
+        this.vehicleImportRepository = vehicleImportRepository;
+        this.idAllocator = idAllocator;
+        this.importReader = importReader;
+        this.orderDetailsCache = orderDetailsCache;
+        this.upsertImporter = upsertImporter;
+    }
+    
+    @Override
+    public ImportReportDto importCsv(InputStream csv) {
+        return importRows(importReader.csv(csv, VehicleCreateUpdateRequest.class));
+    }
+    
+    @Override
+    public ImportReportDto importNdjson(InputStream ndjson) {
+        return importRows(importReader.ndjson(ndjson, VehicleCreateUpdateRequest.class));
+    }
+    
+    private ImportReportDto importRows(Iterator<ImportRow<VehicleCreateUpdateRequest>> rows) {
+        return upsertImporter.run(rows, "registrationNumber", request -> keyOf(request.getRegistrationNumber()), this::upsertChunk);
+    }
+    
+    private void upsertChunk(List<ImportRow<VehicleCreateUpdateRequest>> rows, UpsertImporter.ChunkResult result) {
+        Set<String> numbers = rows.stream()
+                .map(row -> row.getValue().getRegistrationNumber())
+                .collect(Collectors.toSet());
+        Set<String> keys = numbers.stream().map(this::keyOf).collect(Collectors.toSet());
+        Map<String, Vehicle> existing = vehicleRepository.findAllByRegistrationNumbers(keys, numbers).stream()
+                .collect(Collectors.toMap(vehicle -> keyOf(vehicle.getRegistrationNumber()), Function.identity(),
+                        (first, second) -> first));
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Vehicle> created = new ArrayList<>();
+        boolean registrationNumberChanged = false;
+        for (ImportRow<VehicleCreateUpdateRequest> row : rows) {
+            VehicleCreateUpdateRequest request = row.getValue();
+            Vehicle vehicle = existing.get(keyOf(request.getRegistrationNumber()));
+            if (vehicle == null) {
+                created.add(Vehicle.builder()
+                        .registrationNumber(request.getRegistrationNumber())
+                        .type(request.getType())
+                        .capacityWeight(request.getCapacityWeight())
+                        .capacityVolume(request.getCapacityVolume())
+                        .status(request.getStatus())
+                        .createdAt(now)
+                        .build());
+                continue;
+            }
+            registrationNumberChanged |= !vehicle.getRegistrationNumber().equals(request.getRegistrationNumber());
+            vehicle.setRegistrationNumber(request.getRegistrationNumber());
+            vehicle.setType(request.getType());
+            vehicle.setCapacityWeight(request.getCapacityWeight());
+            vehicle.setCapacityVolume(request.getCapacityVolume());
+            vehicle.setStatus(request.getStatus());
+            result.updated();
+        }
+        
+        if (!created.isEmpty()) {
+            List<Long> ids = idAllocator.allocate("vehicles", created.size());
+            for (int i = 0; i < created.size(); i++) {
+                created.get(i).setId(ids.get(i));
+            }
+            vehicleImportRepository.insertVehicles(created);
+            result.created(created.size());
+        }
+        // Госномер показывается в назначениях заказов
+        if (registrationNumberChanged) {
+            orderDetailsCache.evictAll();
+        }
+    }
+    
+    private String keyOf(String registrationNumber) {
+        return registrationNumber.strip().toUpperCase(Locale.ROOT);
+    }
+}
@@ -2,18 +2,23 @@ package org.logistservice.logist.vehicle.service;
 
 import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.common.enums.VehicleSortField;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
 import org.logistservice.logist.vehicle.model.VehicleStatus;
 import org.logistservice.logist.vehicle.model.dto.VehicleCreateUpdateRequest;
 import org.logistservice.logist.vehicle.model.dto.VehicleDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface VehicleService {
     List<VehicleDto> getAll(String typeFilter, VehicleStatus statusFilter, VehicleSortField sortField, SortDirection sortDirection);
+    void streamAll(String typeFilter, VehicleStatus statusFilter, VehicleSortField sortField, SortDirection sortDirection,
+                   Consumer<VehicleDto> action);
     VehicleDto getById(Long id);
     VehicleDto create(VehicleCreateUpdateRequest request);
     VehicleDto update(Long id, VehicleCreateUpdateRequest request);
     void delete(Long id);
+    DeletionJobDto startDeletion(Long id);
 }
 
 
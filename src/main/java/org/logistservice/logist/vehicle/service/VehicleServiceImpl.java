@@ -4,26 +4,58 @@ import org.logistservice.logist.common.enums.SortDirection;
 import org.logistservice.logist.common.enums.VehicleSortField;
 import org.logistservice.logist.common.exception.BadRequestException;
 import org.logistservice.logist.common.exception.NotFoundException;
+import org.logistservice.logist.common.repository.ListSpecifications;
+import org.logistservice.logist.common.repository.StreamingQueries;
+import org.logistservice.logist.deletion.model.DeletionProgress;
+import org.logistservice.logist.deletion.model.dto.DeletionJobDto;
+import org.logistservice.logist.deletion.service.DeletionJobService;
+import org.logistservice.logist.order.service.OrderBulkDeleteService;
+import org.logistservice.logist.order.service.OrderDetailsCache;
+import org.logistservice.logist.order.service.OrderShards;
+import org.logistservice.logist.stats.service.StatsRollupService;
 import org.logistservice.logist.vehicle.model.Vehicle;
 import org.logistservice.logist.vehicle.model.VehicleStatus;
 import org.logistservice.logist.vehicle.model.dto.VehicleCreateUpdateRequest;
 import org.logistservice.logist.vehicle.model.dto.VehicleDto;
 import org.logistservice.logist.vehicle.repository.VehicleRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class VehicleServiceImpl implements VehicleService {
     
     private final VehicleRepository vehicleRepository;
+    private final OrderDetailsCache orderDetailsCache;
+    private final StatsRollupService statsRollupService;
+    private final OrderBulkDeleteService orderBulkDeleteService;
+    private final DeletionJobService deletionJobService;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShards orderShards;
+    private final StreamingQueries streamingQueries;
     
-    public VehicleServiceImpl(VehicleRepository vehicleRepository) {
+    public VehicleServiceImpl(VehicleRepository vehicleRepository, OrderDetailsCache orderDetailsCache,
+                              StatsRollupService statsRollupService, OrderBulkDeleteService orderBulkDeleteService,
+                              DeletionJobService deletionJobService, TransactionTemplate transactionTemplate,
+                              OrderShards orderShards, StreamingQueries streamingQueries) {
         this.vehicleRepository = vehicleRepository;
+        this.orderDetailsCache = orderDetailsCache;
+        this.statsRollupService = statsRollupService;
+        this.orderBulkDeleteService = orderBulkDeleteService;
+        this.deletionJobService = deletionJobService;
+        this.transactionTemplate = transactionTemplate;
+        this.orderShards = orderShards;
+        this.streamingQueries = streamingQueries;
     }
     
     @Override
@@ -55,6 +87,33 @@ public class VehicleServiceImpl implements VehicleService {
         return result;
     }
     
+    // Те же фильтры и сортировка, что у getAll, но в БД: строки читаются курсором и сразу отдаются action
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(String typeFilter, VehicleStatus statusFilter, VehicleSortField sortField, SortDirection sortDirection,
+                          Consumer<VehicleDto> action) {
+        Specification<Vehicle> spec = Specification.allOf(
+                ListSpecifications.containsIgnoreCase("type", typeFilter),
+                ListSpecifications.equalTo("status", statusFilter));
+        try (Stream<VehicleDto> rows = streamingQueries.stream(Vehicle.class, spec, getVehicleSort(sortField, sortDirection), this::toDto)) {
+            rows.forEach(action);
+        }
+    }
+    
+    // Статусы хранятся строками; их алфавитный порядок совпадает с порядком констант VehicleStatus
+    private Sort getVehicleSort(VehicleSortField sortField, SortDirection sortDirection) {
+        if (sortField == null) {
+            return ListSpecifications.orderBy(null, false, sortDirection);
+        }
+        return switch (sortField) {
+            case REGISTRATION_NUMBER -> ListSpecifications.orderBy("registrationNumber", true, sortDirection);
+            case TYPE -> ListSpecifications.orderBy("type", true, sortDirection);
+            case STATUS -> ListSpecifications.orderBy("status", false, sortDirection);
+            case CAPACITY_WEIGHT -> ListSpecifications.orderBy("capacityWeight", false, sortDirection);
+            case CREATED_AT -> ListSpecifications.orderBy("createdAt", false, sortDirection);
+        };
+    }
+    
     private Comparator<VehicleDto> getVehicleComparator(VehicleSortField sortField) {
         return switch (sortField) {
             case REGISTRATION_NUMBER -> Comparator.comparing(
@@ -111,17 +170,43 @@ public class VehicleServiceImpl implements VehicleService {
             throw new BadRequestException("Автомобиль с данным номером уже существует");
         }
         
+        // Госномер показывается в назначениях заказов
+        boolean registrationNumberChanged = !vehicle.getRegistrationNumber().equals(request.getRegistrationNumber());
         updateEntityFromRequest(vehicle, request);
         Vehicle updated = vehicleRepository.save(vehicle);
+        if (registrationNumberChanged) {
+            orderDetailsCache.evictAll();
+        }
         return toDto(updated);
     }
     
     @Override
     public void delete(Long id) {
+        delete(id, new DeletionProgress());
+    }
+    
+    @Override
+    public DeletionJobDto startDeletion(Long id) {
+        if (!vehicleRepository.existsById(id)) {
+            throw new NotFoundException("Vehicle not found with id: " + id);
+        }
+        return deletionJobService.start("vehicle", id, progress -> delete(id, progress));
+    }
+    
+    // Назначения транспорта удаляются пачками; транспорт удаляется последним под блокировкой,
+    // вместе с назначениями, добавленными за время удаления (на любом шарде, см. OrderReferences)
+    private void delete(Long id, DeletionProgress progress) {
         if (!vehicleRepository.existsById(id)) {
             throw new NotFoundException("Vehicle not found with id: " + id);
         }
-        vehicleRepository.deleteById(id);
+        orderBulkDeleteService.deleteAssignmentsOfVehicle(id, progress);
+        transactionTemplate.executeWithoutResult(status -> {
+            vehicleRepository.lockById(id)
+                    .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + id));
+            orderBulkDeleteService.deleteAssignmentsOfVehicle(id, progress);
+            vehicleRepository.deleteById(id);
+            orderShards.writeAllAfterCommit(shard -> statsRollupService.vehicleDeleted(id));
+        });
     }
     
     private VehicleDto toDto(Vehicle entity) {
@@ -0,0 +1,157 @@
+-- Исходная схема: таблицы сущностей в том виде, в каком их создавал Hibernate (ddl-auto=update),
+-- и объекты прежних скриптов запуска (поиск, агрегаты статистики, счетчики номеров, индексы).
+-- На уже существующей базе не выполняется: Flyway принимает ее за версию 1 (baseline-on-migrate).
+
+CREATE TABLE clients (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name           varchar(150) NOT NULL,
+    contact_person varchar(100),
+    phone          varchar(30),
+    email          varchar(100),
+    address        varchar(255),
+    city           varchar(100),
+    tax_number     varchar(20),
+    active         boolean,
+    created_at     timestamp(6) NOT NULL
+);
+
+CREATE TABLE drivers (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    full_name        varchar(100) NOT NULL,
+    phone            varchar(30),
+    license_number   varchar(50),
+    experience_years integer,
+    active           boolean NOT NULL
+);
+
+CREATE TABLE vehicles (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    registration_number varchar(20)  NOT NULL UNIQUE,
+    type                varchar(50),
+    capacity_weight     float(53),
+    capacity_volume     float(53),
+    status              varchar(255) NOT NULL CHECK (status IN ('ACTIVE', 'IN_SERVICE', 'OUT_OF_SERVICE')),
+    created_at          timestamp(6) NOT NULL
+);
+
+CREATE TABLE roles (
+    id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar(255) NOT NULL UNIQUE CHECK (name IN ('ADMIN', 'MANAGER', 'OPERATOR', 'USER'))
+);
+
+CREATE TABLE users (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username   varchar(50)  NOT NULL UNIQUE,
+    password   varchar(255) NOT NULL,
+    full_name  varchar(100) NOT NULL,
+    email      varchar(100) NOT NULL UNIQUE,
+    active     boolean      NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE user_roles (
+    user_id bigint NOT NULL,
+    role_id bigint NOT NULL,
+    PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fkhfh9dx7w3ubf1co1vdev94g3f FOREIGN KEY (user_id) REFERENCES users,
+    CONSTRAINT fkh8ciramu9cc9q3qcqiv4ue8a6 FOREIGN KEY (role_id) REFERENCES roles
+);
+
+CREATE TABLE orders (
+    id                   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_number         varchar(30)  NOT NULL UNIQUE,
+    client_id            bigint       NOT NULL,
+    manager_id           bigint,
+    origin_city          varchar(100),
+    origin_address       varchar(255),
+    destination_city     varchar(100),
+    destination_address  varchar(255),
+    cargo_description    varchar(500),
+    cargo_weight         float(53),
+    cargo_volume         float(53),
+    planned_pickup_date  date,
+    planned_delivery_date date,
+    actual_delivery_date timestamp(6),
+    status               varchar(255) NOT NULL CHECK (status IN ('NEW', 'IN_PROGRESS', 'DELIVERED', 'CANCELED')),
+    price                numeric(19, 2),
+    search_text          varchar(1000),
+    created_at           timestamp(6) NOT NULL,
+    CONSTRAINT fkm2dep9derpoaehshbkkatam3v FOREIGN KEY (client_id) REFERENCES clients,
+    CONSTRAINT fk9qn4jar6kvccow7iyuo2mfuef FOREIGN KEY (manager_id) REFERENCES users
+);
+
+CREATE TABLE order_assignments (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id      bigint NOT NULL,
+    vehicle_id    bigint NOT NULL,
+    driver_id     bigint NOT NULL,
+    planned_start timestamp(6),
+    planned_end   timestamp(6),
+    actual_start  timestamp(6),
+    actual_end    timestamp(6),
+    CONSTRAINT fkhhu5nv7c14yxx28s4fotonkkk FOREIGN KEY (order_id) REFERENCES orders,
+    CONSTRAINT fkfn0vrkvnrbaa581av2l17o4x5 FOREIGN KEY (vehicle_id) REFERENCES vehicles,
+    CONSTRAINT fk7kx1317wpcrbd2d0wtwtrhvys FOREIGN KEY (driver_id) REFERENCES drivers
+);
+
+CREATE TABLE order_status_history (
+    id                 bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id           bigint       NOT NULL,
+    old_status         varchar(255) CHECK (old_status IN ('NEW', 'IN_PROGRESS', 'DELIVERED', 'CANCELED')),
+    new_status         varchar(255) NOT NULL CHECK (new_status IN ('NEW', 'IN_PROGRESS', 'DELIVERED', 'CANCELED')),
+    changed_at         timestamp(6) NOT NULL,
+    changed_by_user_id bigint,
+    CONSTRAINT fknmcbg3mmbt8wfva97ra40nmp3 FOREIGN KEY (order_id) REFERENCES orders,
+    CONSTRAINT fkbnuj0gvhjwxodmmu7gj3iivse FOREIGN KEY (changed_by_user_id) REFERENCES users
+);
+
+-- Триграммный индекс для поиска заказов (OrderSpecifications.filter / orderByRelevance)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_orders_search_text_trgm ON orders USING gin (search_text gin_trgm_ops);
+
+-- Дневные агрегаты для статистики (StatsRepository). Поддерживаются в транзакциях
+-- изменения заказов, пересобираются StatsRollupService.rebuild()
+CREATE TABLE stats_order_status_daily (
+    day          date         NOT NULL,
+    status       varchar(255) NOT NULL,
+    orders_count bigint       NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, status)
+);
+
+CREATE TABLE stats_client_daily (
+    day          date           NOT NULL,
+    client_id    bigint         NOT NULL,
+    orders_count bigint         NOT NULL DEFAULT 0,
+    total_price  numeric(19, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, client_id)
+);
+
+CREATE TABLE stats_vehicle_daily (
+    day          date   NOT NULL,
+    vehicle_id   bigint NOT NULL,
+    orders_count bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, vehicle_id)
+);
+
+-- Дневные счетчики номеров заказов (OrderNumberGenerator). next_value — первый еще не выданный номер дня;
+-- узлы резервируют из него блоки номеров
+CREATE TABLE order_number_counters (
+    day        date   NOT NULL PRIMARY KEY,
+    next_value bigint NOT NULL
+);
+
+-- Поиск справочников по естественным ключам (импорт, проверка дубликатов при создании);
+-- existsByRegistrationNumberIgnoreCase и импорт сравнивают через upper(), поэтому индексы по выражению
+CREATE INDEX idx_vehicles_registration_number_upper ON vehicles (upper(registration_number));
+CREATE INDEX idx_drivers_license_number_upper ON drivers (upper(license_number));
+CREATE INDEX idx_clients_tax_number ON clients (tax_number);
+
+-- Внешние ключи заказов: выборка и удаление пачками заказов клиента и назначений водителя;
+-- пересчет строки stats_vehicle_daily читает назначения одной машины за один день
+CREATE INDEX idx_orders_client_id ON orders (client_id);
+CREATE INDEX idx_order_assignments_order_id ON order_assignments (order_id);
+CREATE INDEX idx_order_assignments_driver_id ON order_assignments (driver_id);
+CREATE INDEX idx_order_assignments_vehicle_start ON order_assignments (vehicle_id, planned_start);
+CREATE INDEX idx_order_status_history_order_id ON order_status_history (order_id);
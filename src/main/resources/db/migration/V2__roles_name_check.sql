@@ -0,0 +1,5 @@
+-- Роль USER в ограничении roles.name: базы, созданные до ее появления, отклоняли регистрацию пользователей
+ALTER TABLE roles DROP CONSTRAINT IF EXISTS roles_name_check;
+
+ALTER TABLE roles ADD CONSTRAINT roles_name_check
+    CHECK (name IN ('ADMIN', 'MANAGER', 'OPERATOR', 'USER'));
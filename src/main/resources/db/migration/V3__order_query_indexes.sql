@@ -0,0 +1,34 @@
+-- Индексы под фильтры и сортировки списка заказов (OrderSpecifications, keyset по (ключ, id)),
+-- историю статусов и массовое удаление. Строятся CONCURRENTLY, чтобы не блокировать запись в заказы;
+-- Flyway выполняет такую миграцию вне транзакции. Если построение прервется, индекс останется
+-- в состоянии INVALID: его нужно удалить и повторить миграцию (flyway repair).
+
+-- Фильтр по статусу с сортировкой по умолчанию (id) и счетчики countByStatus (index-only scan)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_status_id ON orders (status, id);
+
+-- Открытые заказы (NEW / IN_PROGRESS) — основная рабочая выборка диспетчера: частичные индексы
+-- под фильтр по статусу с сортировкой по дате создания и плановым датам. Завершенные заказы,
+-- которых со временем большинство, в эти индексы не попадают
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_open_created_at
+    ON orders (status, created_at, id) WHERE status IN ('NEW', 'IN_PROGRESS');
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_open_pickup_date
+    ON orders (status, planned_pickup_date, id) WHERE status IN ('NEW', 'IN_PROGRESS');
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_open_delivery_date
+    ON orders (status, planned_delivery_date, id) WHERE status IN ('NEW', 'IN_PROGRESS');
+
+-- Диапазон дат создания и сортировки всего списка
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_created_at_id ON orders (created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_order_number_lower_id ON orders (lower(order_number), id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_pickup_date_id ON orders (planned_pickup_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_delivery_date_id ON orders (planned_delivery_date, id);
+
+-- Заказы клиента в порядке id: список с фильтром по клиенту и удаление пачками (ORDER BY id LIMIT);
+-- заменяет индекс по одному client_id
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_client_id_id ON orders (client_id, id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_orders_client_id;
+
+-- История заказа по убыванию времени изменения: обратный проход по индексу без сортировки;
+-- заменяет индекс по одному order_id
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_status_history_order_changed
+    ON order_status_history (order_id, changed_at, id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_order_status_history_order_id;
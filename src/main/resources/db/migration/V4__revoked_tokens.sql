@@ -0,0 +1,10 @@
+-- Отозванные JWT (выход пользователя) по jti; строка нужна только до истечения срока токена
+CREATE TABLE revoked_tokens (
+    jti        varchar(36)  NOT NULL PRIMARY KEY,
+    expires_at timestamp(6) NOT NULL,
+    revoked_at timestamp(6) NOT NULL
+);
+
+-- Узлы подгружают отзывы, сделанные на других узлах, по времени отзыва
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,21 @@
+-- HTTP-сессии веб-интерфейса, общие для всех узлов (app.session.store=jdbc). Время - миллисекунды эпохи,
+-- как у HttpSession; expiry_time = last_access_time + max_inactive_interval
+CREATE TABLE ui_sessions (
+    id                    varchar(36) NOT NULL PRIMARY KEY,
+    creation_time         bigint      NOT NULL,
+    last_access_time      bigint      NOT NULL,
+    max_inactive_interval integer     NOT NULL,
+    expiry_time           bigint      NOT NULL
+);
+
+-- Атрибут - отдельная строка: запрос перезаписывает только измененные атрибуты.
+-- Смена id сессии (защита от фиксации сессии при входе) переносится на атрибуты каскадно
+CREATE TABLE ui_session_attributes (
+    session_id      varchar(36)  NOT NULL REFERENCES ui_sessions (id) ON UPDATE CASCADE ON DELETE CASCADE,
+    attribute_name  varchar(200) NOT NULL,
+    attribute_bytes bytea        NOT NULL,
+    PRIMARY KEY (session_id, attribute_name)
+);
+
+-- Периодическое удаление истекших сессий
+CREATE INDEX idx_ui_sessions_expiry_time ON ui_sessions (expiry_time);
@@ -0,0 +1,75 @@
+-- Доводит до версии 1 базу, которую Flyway принял за нее при первом запуске (baseline-on-migrate):
+-- такую базу создавали ddl-auto=update и скрипты запуска, и в зависимости от того, с какой версии
+-- приложения она ведется, в ней может не быть поисковой строки, агрегатов статистики или счетчиков номеров.
+-- Все операции идемпотентны; на базе, созданной V1, миграция ничего не меняет. Идет после V2-V5, которые
+-- от этих объектов не зависят: новая версия в конце, а не V1.1, чтобы не отключать проверку порядка миграций.
+
+-- Поисковая строка заказов и ее заполнение для заказов, созданных до появления колонки.
+-- Выражение должно совпадать с Order.refreshSearchText и OrderRepository.refreshSearchTextByClientId
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS search_text varchar(1000);
+
+UPDATE orders o
+SET search_text = lower(concat_ws(' ', o.order_number, c.name, o.origin_city, o.destination_city, o.cargo_description))
+FROM clients c
+WHERE c.id = o.client_id
+  AND o.search_text IS NULL;
+
+-- Индекс строится после заполнения: так дешевле, чем обновлять его на каждую строку
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_orders_search_text_trgm ON orders USING gin (search_text gin_trgm_ops);
+
+-- Дневные агрегаты статистики и их начальное заполнение. Уже заполненная таблица не трогается:
+-- она поддерживалась приложением до перехода на миграции
+CREATE TABLE IF NOT EXISTS stats_order_status_daily (
+    day          date         NOT NULL,
+    status       varchar(255) NOT NULL,
+    orders_count bigint       NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, status)
+);
+
+CREATE TABLE IF NOT EXISTS stats_client_daily (
+    day          date           NOT NULL,
+    client_id    bigint         NOT NULL,
+    orders_count bigint         NOT NULL DEFAULT 0,
+    total_price  numeric(19, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, client_id)
+);
+
+CREATE TABLE IF NOT EXISTS stats_vehicle_daily (
+    day          date   NOT NULL,
+    vehicle_id   bigint NOT NULL,
+    orders_count bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, vehicle_id)
+);
+
+INSERT INTO stats_order_status_daily (day, status, orders_count)
+SELECT CAST(created_at AS date), status, count(*) FROM orders
+WHERE NOT EXISTS (SELECT 1 FROM stats_order_status_daily)
+GROUP BY 1, 2;
+
+INSERT INTO stats_client_daily (day, client_id, orders_count, total_price)
+SELECT CAST(created_at AS date), client_id, count(*), COALESCE(sum(price), 0) FROM orders
+WHERE client_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM stats_client_daily)
+GROUP BY 1, 2;
+
+INSERT INTO stats_vehicle_daily (day, vehicle_id, orders_count)
+SELECT CAST(planned_start AS date), vehicle_id, count(DISTINCT order_id) FROM order_assignments
+WHERE planned_start IS NOT NULL AND NOT EXISTS (SELECT 1 FROM stats_vehicle_daily)
+GROUP BY 1, 2;
+
+-- Дневные счетчики номеров заказов (OrderNumberGenerator). Без строки дня генератор продолжает
+-- нумерацию после уже выданных номеров этого дня
+CREATE TABLE IF NOT EXISTS order_number_counters (
+    day        date   NOT NULL PRIMARY KEY,
+    next_value bigint NOT NULL
+);
+
+-- Поиск справочников по естественным ключам и индексы внешних ключей из V1. Индексы по одному
+-- orders.client_id и order_status_history.order_id не создаются: V3 заменяет их составными
+CREATE INDEX IF NOT EXISTS idx_vehicles_registration_number_upper ON vehicles (upper(registration_number));
+CREATE INDEX IF NOT EXISTS idx_drivers_license_number_upper ON drivers (upper(license_number));
+CREATE INDEX IF NOT EXISTS idx_clients_tax_number ON clients (tax_number);
+CREATE INDEX IF NOT EXISTS idx_order_assignments_order_id ON order_assignments (order_id);
+CREATE INDEX IF NOT EXISTS idx_order_assignments_driver_id ON order_assignments (driver_id);
+CREATE INDEX IF NOT EXISTS idx_order_assignments_vehicle_start ON order_assignments (vehicle_id, planned_start);
@@ -0,0 +1,55 @@
+package org.logistservice.logist.common.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+// Замер без JMH (его нет в сборке): прогревочные раунды, затем лучший из нескольких раундов по времени
+// на операцию и байтам, выделенным потоком на операцию. Результат операции накапливается в поле,
+// чтобы JIT не выбросил ее как мертвый код. Замеры запускаются тестами с -Dlogist.benchmarks=true
+public final class TimedLoop {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile int sink;
+
+    private TimedLoop() {
+    }
+
+    public static Result measure(String name, int warmupRounds, int rounds, int operations, Supplier<?> operation) {
+        for (int round = 0; round < warmupRounds; round++) {
+            run(operations, operation);
+        }
+        double bestNanos = Double.MAX_VALUE;
+        double bestBytes = Double.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            run(operations, operation);
+            long elapsed = System.nanoTime() - start;
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            bestNanos = Math.min(bestNanos, (double) elapsed / operations);
+            bestBytes = Math.min(bestBytes, (double) allocated / operations);
+        }
+        Result result = new Result(name, bestNanos, bestBytes);
+        System.out.println(result);
+        return result;
+    }
+
+    private static void run(int operations, Supplier<?> operation) {
+        int accumulated = 0;
+        for (int i = 0; i < operations; i++) {
+            accumulated += System.identityHashCode(operation.get());
+        }
+        sink += accumulated;
+    }
+
+    public record Result(String name, double nanosPerOp, double bytesPerOp) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-45s %12.1f us/op %12.0f B/op", name, nanosPerOp / 1000, bytesPerOp);
+        }
+    }
+}
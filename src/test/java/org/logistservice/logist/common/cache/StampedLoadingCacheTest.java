@@ -0,0 +1,104 @@
+package org.logistservice.logist.common.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StampedLoadingCacheTest {
+
+    private CacheManager cacheManager;
+    private Cache<Long, String> region;
+    private StampedLoadingCache<Long, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        cacheManager = provider.getCacheManager();
+        CaffeineConfiguration<Long, String> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        region = cacheManager.createCache("stamped-" + System.nanoTime(), configuration);
+        cache = new StampedLoadingCache<>(region);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.destroyCache(region.getName());
+    }
+
+    @Test
+    void loadsOnceAndServesFromCache() {
+        assertThat(cache.get(1L, () -> "v1")).isEqualTo("v1");
+        assertThat(cache.get(1L, () -> "other")).isEqualTo("v1");
+    }
+
+    @Test
+    void evictionDuringLoadIsNotPublished() {
+        String loaded = cache.get(1L, () -> {
+            cache.evict(1L);
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(region.get(1L)).isNull();
+        assertThat(cache.get(1L, () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void evictAllDuringLoadIsNotPublished() {
+        cache.get(1L, () -> {
+            cache.evictAll();
+            return "stale";
+        });
+        cache.get(2L, () -> {
+            cache.evictAll(Set.of(2L));
+            return "stale";
+        });
+
+        assertThat(region.get(1L)).isNull();
+        assertThat(region.get(2L)).isNull();
+    }
+
+    // Загрузка одного ключа не держит блокировку: чтение и сброс другого ключа проходят, пока она идет
+    @Test
+    void slowLoadDoesNotBlockOtherKeys() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> cache.get(1L, () -> {
+            loading.countDown();
+            await(release);
+            return "slow";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> other = CompletableFuture.supplyAsync(() -> {
+            cache.evict(2L);
+            return cache.get(2L, () -> "fast");
+        });
+        assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo("fast");
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(region.get(1L)).isEqualTo("slow");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.logistservice.logist.common.imports;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Разбор записей CSV: кавычки, переводы строк внутри поля, BOM, пустые строки и поля
+class CsvRecordReaderTest {
+
+    @Test
+    void splitsRecordsByCommaAndLineBreak() {
+        assertThat(records("a,b,c\r\n1,2,3\n")).containsExactly(List.of("a", "b", "c"), List.of("1", "2", "3"));
+    }
+
+    @Test
+    void quotedFieldKeepsCommasAndLineBreaks() {
+        assertThat(records("name,address\n\"Acme, Inc\",\"Main st. 1\nOffice 2\"\n"))
+                .containsExactly(List.of("name", "address"), List.of("Acme, Inc", "Main st. 1\nOffice 2"));
+    }
+
+    @Test
+    void doubledQuoteInsideQuotedFieldIsOneQuote() {
+        assertThat(records("\"say \"\"hi\"\"\",\"\"\"\"\n")).containsExactly(List.of("say \"hi\"", "\""));
+    }
+
+    @Test
+    void skipsByteOrderMarkAndBlankLines() {
+        assertThat(records("\uFEFFname,phone\n\n1,2\r\n\r\n")).containsExactly(List.of("name", "phone"), List.of("1", "2"));
+    }
+
+    @Test
+    void keepsEmptyFieldsAndLastRecordWithoutLineBreak() {
+        assertThat(records("a,,\n,b,\"\"")).containsExactly(List.of("a", "", ""), List.of("", "b", ""));
+    }
+
+    private static List<List<String>> records(String csv) {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.read()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
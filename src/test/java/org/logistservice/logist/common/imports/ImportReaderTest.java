@@ -0,0 +1,148 @@
+package org.logistservice.logist.common.imports;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.logistservice.logist.common.exception.BadRequestException;
+import org.logistservice.logist.driver.model.dto.DriverCreateUpdateRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Разбор файлов импорта в запросы: заголовок CSV, ошибки отдельных строк и нумерация строк
+class ImportReaderTest {
+
+    private static ValidatorFactory validatorFactory;
+    private static ImportReader reader;
+
+    @BeforeAll
+    static void createReader() {
+        validatorFactory = Validation.byDefaultProvider().configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+        reader = new ImportReader(JsonMapper.builder().build(), validatorFactory.getValidator());
+    }
+
+    @AfterAll
+    static void closeValidatorFactory() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void csvHeaderIsCaseInsensitiveAndMayStartWithByteOrderMark() {
+        List<ImportRow<DriverCreateUpdateRequest>> rows = csv("\uFEFFFullName,DRIVINGLICENSE,experienceYears\n" +
+                "\"Ivanov, Ivan\",AB 123,7\n");
+
+        assertThat(rows).hasSize(1);
+        DriverCreateUpdateRequest request = rows.get(0).getValue();
+        assertThat(request.getFullName()).isEqualTo("Ivanov, Ivan");
+        assertThat(request.getDrivingLicense()).isEqualTo("AB 123");
+        assertThat(request.getExperienceYears()).isEqualTo(7);
+    }
+
+    @Test
+    void quotedValuesKeepLineBreaksAndQuotes() {
+        List<ImportRow<DriverCreateUpdateRequest>> rows = csv("fullName,phone\n" +
+                "\"Petrov \"\"Petya\"\"\nPetrovich\",\"+7 900, ext. 1\"\n" +
+                "Sidorov,\n");
+
+        assertThat(rows).extracting(ImportRow::getNumber).containsExactly(1, 2);
+        assertThat(rows.get(0).getValue().getFullName()).isEqualTo("Petrov \"Petya\"\nPetrovich");
+        assertThat(rows.get(0).getValue().getPhone()).isEqualTo("+7 900, ext. 1");
+        // Пустое значение - null
+        assertThat(rows.get(1).getValue().getPhone()).isNull();
+    }
+
+    @Test
+    void columnCountMismatchFailsOnlyThatRow() {
+        List<ImportRow<DriverCreateUpdateRequest>> rows = csv("fullName,phone\n" +
+                "Ivanov\n" +
+                "Petrov,1,2\n" +
+                "Sidorov,3\n");
+
+        assertThat(rows).extracting(ImportRow::getError)
+                .containsExactly("Expected 2 columns, got 1", "Expected 2 columns, got 3", null);
+        assertThat(rows.get(2).getValue().getFullName()).isEqualTo("Sidorov");
+    }
+
+    @Test
+    void invalidValueAndFailedValidationAreRowErrors() {
+        List<ImportRow<DriverCreateUpdateRequest>> rows = csv("fullName,experienceYears\n" +
+                "Ivanov,many\n" +
+                ",3\n" +
+                "Petrov,-1\n");
+
+        assertThat(rows).allMatch(ImportRow::isFailed);
+        assertThat(rows.get(0).getError()).startsWith("Invalid value for experienceYears");
+        assertThat(rows.get(1).getError()).startsWith("fullName: ");
+        assertThat(rows.get(2).getError()).startsWith("experienceYears: ");
+    }
+
+    @Test
+    void unknownCsvColumnRejectsFile() {
+        assertThatThrownBy(() -> csv("fullName,license\nIvanov,AB 123\n"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Unknown CSV column: license");
+    }
+
+    @Test
+    void duplicateCsvColumnRejectsFile() {
+        assertThatThrownBy(() -> csv("fullName,phone,FULLNAME\nIvanov,1,Petrov\n"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Duplicate CSV column: FULLNAME");
+    }
+
+    @Test
+    void missingCsvHeaderRejectsFile() {
+        assertThatThrownBy(() -> csv("\n\n"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("CSV header is missing");
+    }
+
+    @Test
+    void ndjsonSkipsBlankLinesAndReportsMalformedRow() {
+        List<ImportRow<DriverCreateUpdateRequest>> rows = collect(reader.ndjson(stream(
+                "{\"fullName\":\"Ivanov\"}\n\n{\"fullName\":\n{\"fullName\":\"Petrov\",\"experienceYears\":2}\n"),
+                DriverCreateUpdateRequest.class));
+
+        assertThat(rows).extracting(ImportRow::getNumber).containsExactly(1, 2, 3);
+        assertThat(rows.get(0).getValue().getFullName()).isEqualTo("Ivanov");
+        assertThat(rows.get(1).getError()).startsWith("Invalid row: ");
+        assertThat(rows.get(2).getValue().getExperienceYears()).isEqualTo(2);
+    }
+
+    @Test
+    void forEachChunkSplitsRowsBySize() {
+        List<ImportRow<String>> rows = List.of(ImportRow.of(1, "a"), ImportRow.of(2, "b"), ImportRow.of(3, "c"));
+        List<Integer> sizes = new ArrayList<>();
+
+        ImportReader.forEachChunk(rows.iterator(), 2, chunk -> sizes.add(chunk.size()));
+
+        assertThat(sizes).containsExactly(2, 1);
+    }
+
+    private static List<ImportRow<DriverCreateUpdateRequest>> csv(String content) {
+        return collect(reader.csv(stream(content), DriverCreateUpdateRequest.class));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> List<ImportRow<T>> collect(Iterator<ImportRow<T>> rows) {
+        List<ImportRow<T>> result = new ArrayList<>();
+        rows.forEachRemaining(result::add);
+        return result;
+    }
+}
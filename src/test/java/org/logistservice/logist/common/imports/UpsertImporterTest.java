@@ -0,0 +1,87 @@
+package org.logistservice.logist.common.imports;
+
+import org.junit.jupiter.api.Test;
+import org.logistservice.logist.common.dto.ImportErrorDto;
+import org.logistservice.logist.common.dto.ImportReportDto;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+// Учет строк в отчете: ошибки разбора, повтор ключа в файле (в том числе в другой пачке), ошибки строк
+// из записи пачки и откат пачки. Менеджер транзакций - mock
+class UpsertImporterTest {
+
+    private final UpsertImporter importer = new UpsertImporter(
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), 2);
+
+    @Test
+    void duplicateKeyIsReportedAcrossChunksAndNullKeysAreNotCompared() {
+        List<List<Integer>> written = new ArrayList<>();
+
+        ImportReportDto report = importer.run(List.of(
+                ImportRow.of(1, "a"),
+                ImportRow.<String>failed(2, "Invalid row"),
+                ImportRow.of(3, "b"),
+                ImportRow.of(4, "A"),
+                ImportRow.of(5, ""),
+                ImportRow.of(6, "")).iterator(), "code", UpsertImporterTest::keyOf, (rows, result) -> {
+            written.add(rows.stream().map(ImportRow::getNumber).toList());
+            result.created(rows.size());
+        });
+
+        assertThat(written).containsExactly(List.of(1), List.of(3), List.of(5, 6));
+        assertThat(report.getTotalRows()).isEqualTo(6);
+        assertThat(report.getCreated()).isEqualTo(4);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow, ImportErrorDto::getMessage)
+                .containsExactly(tuple(2, "Invalid row"),
+                        tuple(4, "Duplicate code, first seen in row 1"));
+    }
+
+    @Test
+    void rowErrorsFromChunkAreMergedInRowOrder() {
+        ImportReportDto report = importer.run(List.of(
+                ImportRow.of(1, "a"),
+                ImportRow.of(2, "b"),
+                ImportRow.<String>failed(3, "Invalid row")).iterator(), "code", UpsertImporterTest::keyOf,
+                (rows, result) -> rows.forEach(row -> {
+                    if (row.getValue().equals("a")) {
+                        result.failed(row.getNumber(), "Ambiguous a");
+                    } else {
+                        result.updated();
+                    }
+                }));
+
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow).containsExactly(1, 3);
+    }
+
+    @Test
+    void rolledBackChunkFailsAllItsRowsAndKeepsOtherChunks() {
+        ImportReportDto report = importer.run(List.of(
+                ImportRow.of(1, "a"),
+                ImportRow.of(2, "b"),
+                ImportRow.of(3, "c")).iterator(), "code", UpsertImporterTest::keyOf, (rows, result) -> {
+            result.created(rows.size());
+            if (rows.get(0).getNumber() == 1) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+        });
+
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow, ImportErrorDto::getMessage)
+                .containsExactly(tuple(1, "Chunk rolled back: duplicate key"),
+                        tuple(2, "Chunk rolled back: duplicate key"));
+    }
+
+    private static String keyOf(String value) {
+        return value.isEmpty() ? null : value.toLowerCase();
+    }
+}
@@ -0,0 +1,211 @@
+package org.logistservice.logist.common.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Пулы основной базы и реплик - заглушки: соединение каждого пула узнается по ссылке,
+// а запрос отставания возвращает заданное число секунд (null - отставание неизвестно)
+class ReadReplicaRoutingDataSourceTest {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+    private final AtomicReference<String> session = new AtomicReference<>("alice");
+    private final Connection primaryConnection = mock(Connection.class);
+    private DataSource primary;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void writeTransactionUsesPrimary() throws SQLException {
+        ReplicaPool replica = replica(0.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() throws SQLException {
+        ReplicaPool replica = replica(0.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+
+        readOnly();
+        assertThat(routing.getConnection()).isSameAs(replica.getConnection());
+    }
+
+    @Test
+    void readsRotateAcrossReplicas() throws SQLException {
+        ReplicaPool first = replica(0.0);
+        ReplicaPool second = replica(1.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), first, second);
+
+        readOnly();
+        List<Connection> connections = List.of(routing.getConnection(), routing.getConnection(),
+                routing.getConnection(), routing.getConnection());
+
+        Connection a = first.getConnection();
+        Connection b = second.getConnection();
+        assertThat(connections).containsExactly(a, b, a, b);
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() throws SQLException {
+        ReplicaPool lagging = replica(30.0);
+        ReplicaPool current = replica(2.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), lagging, current);
+
+        readOnly();
+        assertThat(List.of(routing.getConnection(), routing.getConnection()))
+                .containsOnly(current.getConnection());
+    }
+
+    @Test
+    void readsFallBackToPrimaryWithoutUsableReplica() throws SQLException {
+        ReplicaPool lagging = replica(30.0);
+        ReplicaPool unknownLag = replica(null);
+        ReplicaPool down = downReplica();
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), lagging, unknownLag, down);
+
+        readOnly();
+        assertThat(down.isUp()).isFalse();
+        assertThat(List.of(routing.getConnection(), routing.getConnection(), routing.getConnection()))
+                .containsOnly(primaryConnection);
+    }
+
+    @Test
+    void failingReplicaIsMarkedDownAndNextOneIsUsed() throws SQLException {
+        DataSource failingSource = mock(DataSource.class);
+        Connection checkConnection = lagConnection(0.0);
+        when(failingSource.getConnection()).thenReturn(checkConnection).thenThrow(new SQLException("refused"));
+        ReplicaPool failing = new ReplicaPool("failing", failingSource);
+        failing.check();
+        ReplicaPool healthy = replica(0.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), failing, healthy);
+
+        readOnly();
+        assertThat(routing.getConnection()).isSameAs(healthy.getConnection());
+        assertThat(failing.isUp()).isFalse();
+        assertThat(routing.getConnection()).isSameAs(healthy.getConnection());
+    }
+
+    @Test
+    void recentWriterReadsFromPrimaryUntilWindowEnds() throws Exception {
+        ReplicaPool replica = replica(0.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMillis(200), replica);
+
+        routing.getConnection();
+        commit();
+
+        readOnly();
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        session.set("bob");
+        assertThat(routing.getConnection()).isSameAs(replica.getConnection());
+
+        Thread.sleep(300);
+        session.set("alice");
+        assertThat(routing.getConnection()).isSameAs(replica.getConnection());
+    }
+
+    @Test
+    void rolledBackWriteDoesNotPinReads() throws SQLException {
+        ReplicaPool replica = replica(0.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+
+        routing.getConnection();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+
+        readOnly();
+        assertThat(routing.getConnection()).isSameAs(replica.getConnection());
+    }
+
+    @Test
+    void onPrimaryReadsFromPrimary() throws SQLException {
+        ReplicaPool replica = replica(0.0);
+        ReadReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+
+        readOnly();
+        Connection connection = ReadReplicaRoutingDataSource.onPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(routing.getConnection()).isSameAs(replica.getConnection());
+    }
+
+    private ReadReplicaRoutingDataSource routing(Duration readYourWritesWindow, ReplicaPool... replicas) {
+        return new ReadReplicaRoutingDataSource(primary, List.of(replicas), MAX_LAG, readYourWritesWindow, session::get);
+    }
+
+    private static void readOnly() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    // Пул отдает одно и то же соединение и для проверки отставания, и для чтения
+    private static ReplicaPool replica(Double lagSeconds) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = lagConnection(lagSeconds);
+        when(dataSource.getConnection()).thenReturn(connection);
+        ReplicaPool replica = new ReplicaPool("replica", dataSource);
+        replica.check();
+        return replica;
+    }
+
+    private static ReplicaPool downReplica() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("refused"));
+        ReplicaPool replica = new ReplicaPool("down", dataSource);
+        replica.check();
+        return replica;
+    }
+
+    private static Connection lagConnection(Double lagSeconds) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds != null ? lagSeconds : 0.0);
+        when(resultSet.wasNull()).thenReturn(lagSeconds == null);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        return connection;
+    }
+}
@@ -0,0 +1,129 @@
+package org.logistservice.logist.common.jdbc;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.PhysicalNamingStrategySnakeCaseImpl;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernatePersistenceConfiguration;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Временные базы PostgreSQL для тестов: создаются рядом с базой из LOGIST_TEST_POSTGRES_URL (нужно право
+// CREATEDB) перед тестами класса и удаляются после них. Без переменной тесты класса пропускаются.
+// Подключается статическим полем с @RegisterExtension; миграции тест применяет сам через flyway()
+public class TemporaryPostgres implements ExecutionCondition, BeforeAllCallback, AfterAllCallback {
+
+    public static final String URL_VARIABLE = "LOGIST_TEST_POSTGRES_URL";
+
+    private final String prefix;
+    private final int count;
+    private final List<String> databases = new ArrayList<>();
+    private String adminUrl;
+
+    public TemporaryPostgres(String prefix) {
+        this(prefix, 1);
+    }
+
+    public TemporaryPostgres(String prefix, int count) {
+        this.prefix = prefix;
+        this.count = count;
+    }
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        String url = System.getenv(URL_VARIABLE);
+        return url != null && !url.isBlank()
+                ? ConditionEvaluationResult.enabled(URL_VARIABLE + " is set")
+                : ConditionEvaluationResult.disabled(URL_VARIABLE + " is not set");
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws SQLException {
+        adminUrl = System.getenv(URL_VARIABLE);
+        String name = prefix + "_" + System.nanoTime();
+        try (Connection admin = DriverManager.getConnection(adminUrl, user(), password());
+             Statement statement = admin.createStatement()) {
+            for (int i = 0; i < count; i++) {
+                String database = count == 1 ? name : name + "_" + i;
+                statement.execute("CREATE DATABASE " + database);
+                databases.add(database);
+            }
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws SQLException {
+        try (Connection admin = DriverManager.getConnection(adminUrl, user(), password());
+             Statement statement = admin.createStatement()) {
+            for (String database : databases) {
+                statement.execute("DROP DATABASE IF EXISTS " + database + " WITH (FORCE)");
+            }
+        }
+        databases.clear();
+    }
+
+    public String url() {
+        return url(0);
+    }
+
+    // База с тем же сервером и параметрами подключения, что и в LOGIST_TEST_POSTGRES_URL
+    public String url(int index) {
+        return adminUrl.replaceFirst("/[^/?]*(\\?|$)", "/" + databases.get(index) + "$1");
+    }
+
+    public DriverManagerDataSource dataSource() {
+        return dataSource(0);
+    }
+
+    public DriverManagerDataSource dataSource(int index) {
+        return new DriverManagerDataSource(url(index), user(), password());
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url(), user(), password());
+    }
+
+    public Flyway flyway() {
+        return flyway(dataSource());
+    }
+
+    // Hibernate без контекста Spring: имена колонок как в приложении, без кэша второго уровня
+    public EntityManagerFactory entityManagerFactory(Class<?>... entities) {
+        return new HibernatePersistenceConfiguration(databases.get(0))
+                .managedClasses(entities)
+                .jdbcUrl(url())
+                .jdbcCredentials(user(), password())
+                .property(AvailableSettings.PHYSICAL_NAMING_STRATEGY, PhysicalNamingStrategySnakeCaseImpl.class.getName())
+                .property(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+                .createEntityManagerFactory();
+    }
+
+    // Миграции с теми же настройками, что у приложения (application.properties)
+    public static Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load();
+    }
+
+    public static String user() {
+        return System.getenv().getOrDefault("LOGIST_TEST_POSTGRES_USER", "postgres");
+    }
+
+    public static String password() {
+        return System.getenv().getOrDefault("LOGIST_TEST_POSTGRES_PASSWORD", "");
+    }
+}
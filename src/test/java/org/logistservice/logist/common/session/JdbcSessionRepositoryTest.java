@@ -0,0 +1,135 @@
+package org.logistservice.logist.common.session;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.logistservice.logist.common.jdbc.TemporaryPostgres;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Хранилище сессий на временной базе PostgreSQL (TemporaryPostgres). Какие строки перезаписало сохранение,
+// видно по xmin - id транзакции, записавшей версию строки
+class JdbcSessionRepositoryTest {
+
+    @RegisterExtension
+    static final TemporaryPostgres postgres = new TemporaryPostgres("logist_session_test");
+
+    private static JdbcTemplate jdbc;
+    private static JdbcSessionRepository repository;
+
+    @BeforeAll
+    static void createRepository() {
+        DriverManagerDataSource dataSource = postgres.dataSource();
+        TemporaryPostgres.flyway(dataSource).migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        repository = new JdbcSessionRepository(jdbc, new DataSourceTransactionManager(dataSource), Duration.ofHours(1));
+    }
+
+    @AfterAll
+    static void closeRepository() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void saveRewritesOnlyChangedAttributes() {
+        String id = newSession(Map.of("user", "admin", "locale", "ru"));
+        Map<String, String> versionsBefore = attributeVersions(id);
+        String sessionVersionBefore = sessionVersion(id);
+
+        StoredSession untouched = repository.find(id);
+        repository.save(untouched);
+        assertThat(sessionVersion(id)).isEqualTo(sessionVersionBefore);
+        assertThat(attributeVersions(id)).isEqualTo(versionsBefore);
+
+        StoredSession found = repository.find(id);
+        found.setAttribute("locale", "en");
+        repository.save(found);
+
+        Map<String, String> versionsAfter = attributeVersions(id);
+        assertThat(versionsAfter.get("user")).isEqualTo(versionsBefore.get("user"));
+        assertThat(versionsAfter.get("locale")).isNotEqualTo(versionsBefore.get("locale"));
+        StoredSession reread = repository.find(id);
+        assertThat(reread.getAttribute("user")).isEqualTo("admin");
+        assertThat(reread.getAttribute("locale")).isEqualTo("en");
+    }
+
+    @Test
+    void removedAttributeIsDeleted() {
+        String id = newSession(Map.of("user", "admin", "flash", "Сохранено"));
+
+        StoredSession found = repository.find(id);
+        found.removeAttribute("flash");
+        repository.save(found);
+
+        assertThat(attributeVersions(id)).containsOnlyKeys("user");
+        assertThat(repository.find(id).getAttributeNames()).containsExactly("user");
+    }
+
+    @Test
+    void changedIdMovesSessionAndAttributes() {
+        String id = newSession(Map.of("user", "admin"));
+
+        StoredSession found = repository.find(id);
+        String changedId = found.changeId();
+        repository.save(found);
+
+        assertThat(repository.find(id)).isNull();
+        StoredSession moved = repository.find(changedId);
+        assertThat(moved).isNotNull();
+        assertThat(moved.getAttribute("user")).isEqualTo("admin");
+    }
+
+    @Test
+    void expiredSessionIsNotReadBeforeCleanup() {
+        StoredSession session = new StoredSession(Duration.ofSeconds(1));
+        session.setLastAccessedTime(System.currentTimeMillis() - 5_000);
+        session.setAttribute("user", "admin");
+        repository.save(session);
+
+        assertThat(sessionVersion(session.getId())).isNotNull();
+        assertThat(repository.find(session.getId())).isNull();
+    }
+
+    @Test
+    void deleteRemovesSessionWithAttributes() {
+        String id = newSession(Map.of("user", "admin"));
+
+        repository.delete(id);
+
+        assertThat(repository.find(id)).isNull();
+        assertThat(attributeVersions(id)).isEmpty();
+    }
+
+    private static String newSession(Map<String, String> attributes) {
+        StoredSession session = new StoredSession(Duration.ofMinutes(30));
+        attributes.forEach(session::setAttribute);
+        repository.save(session);
+        return session.getId();
+    }
+
+    private static String sessionVersion(String id) {
+        return jdbc.query("SELECT xmin::text FROM ui_sessions WHERE id = ?",
+                rs -> rs.next() ? rs.getString(1) : null, id);
+    }
+
+    private static Map<String, String> attributeVersions(String id) {
+        return jdbc.query("SELECT attribute_name, xmin::text FROM ui_session_attributes WHERE session_id = ?",
+                rs -> {
+                    Map<String, String> versions = new HashMap<>();
+                    while (rs.next()) {
+                        versions.put(rs.getString(1), rs.getString(2));
+                    }
+                    return versions;
+                }, id);
+    }
+}
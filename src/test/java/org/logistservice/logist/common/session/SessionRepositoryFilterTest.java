@@ -0,0 +1,137 @@
+package org.logistservice.logist.common.session;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Хранилище - mock: проверяется, когда фильтр читает, сохраняет и удаляет сессию и какую cookie отправляет
+class SessionRepositoryFilterTest {
+
+    private static final String COOKIE = "LOGIST_SESSION";
+    private static final String STORED_ID = "stored-session-id";
+
+    private SessionRepository repository;
+    private SessionRepositoryFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SessionRepository.class);
+        filter = new SessionRepositoryFilter(repository, COOKIE, Duration.ofMinutes(30));
+        request = new MockHttpServletRequest("GET", "/ui/orders");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void requestWithoutSessionAccessDoesNotReadStore() throws Exception {
+        request.setCookies(new Cookie(COOKIE, STORED_ID));
+
+        filter.doFilter(request, response, (req, res) -> {
+        });
+
+        verifyNoInteractions(repository);
+        assertThat(response.getHeaders(HttpHeaders.SET_COOKIE)).isEmpty();
+    }
+
+    @Test
+    void changeSessionIdOnLoginKeepsStoredIdForUpdateAndSendsNewCookie() throws Exception {
+        request.setCookies(new Cookie(COOKIE, STORED_ID));
+        when(repository.find(STORED_ID)).thenReturn(storedSession());
+        String[] changedId = new String[1];
+
+        filter.doFilter(request, response, (req, res) -> {
+            HttpServletRequest http = (HttpServletRequest) req;
+            http.getSession().setAttribute("user", "admin");
+            changedId[0] = http.changeSessionId();
+        });
+
+        StoredSession saved = savedSession();
+        assertThat(changedId[0]).isNotEqualTo(STORED_ID);
+        assertThat(saved.getId()).isEqualTo(changedId[0]);
+        assertThat(saved.getStoredId()).isEqualTo(STORED_ID);
+        assertThat(saved.getChangedAttributes()).containsExactly(Map.entry("user", "admin"));
+        assertThat(response.getHeaders(HttpHeaders.SET_COOKIE))
+                .singleElement().asString().startsWith(COOKIE + "=" + changedId[0] + ";");
+    }
+
+    @Test
+    void invalidateOnLogoutDeletesStoredSessionAndExpiresCookie() throws Exception {
+        request.setCookies(new Cookie(COOKIE, STORED_ID));
+        when(repository.find(STORED_ID)).thenReturn(storedSession());
+
+        filter.doFilter(request, response, (req, res) -> ((HttpServletRequest) req).getSession(false).invalidate());
+
+        verify(repository).delete(STORED_ID);
+        verify(repository, never()).save(any());
+        assertThat(response.getHeaders(HttpHeaders.SET_COOKIE))
+                .singleElement().asString().startsWith(COOKIE + "=;").contains("Max-Age=0");
+    }
+
+    @Test
+    void expiredRequestedSessionIsReplacedByNewOne() throws Exception {
+        request.setCookies(new Cookie(COOKIE, STORED_ID));
+        HttpSession[] existing = new HttpSession[1];
+        boolean[] requestedValid = new boolean[1];
+
+        filter.doFilter(request, response, (req, res) -> {
+            HttpServletRequest http = (HttpServletRequest) req;
+            existing[0] = http.getSession(false);
+            requestedValid[0] = http.isRequestedSessionIdValid();
+            http.getSession().setAttribute("user", "admin");
+        });
+
+        StoredSession saved = savedSession();
+        assertThat(existing[0]).isNull();
+        assertThat(requestedValid[0]).isFalse();
+        assertThat(saved.isNew()).isTrue();
+        assertThat(saved.getId()).isNotEqualTo(STORED_ID);
+        assertThat(response.getHeaders(HttpHeaders.SET_COOKIE))
+                .singleElement().asString().startsWith(COOKIE + "=" + saved.getId() + ";");
+    }
+
+    @Test
+    void nonSerializableAttributeIsRejectedWhenSet() throws Exception {
+        FilterChain chain = (req, res) -> {
+            HttpSession session = ((HttpServletRequest) req).getSession();
+            session.setAttribute("user", "admin");
+            assertThatThrownBy(() -> session.setAttribute("lock", new Object()))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("lock");
+        };
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(savedSession().getChangedAttributes()).containsExactly(Map.entry("user", "admin"));
+    }
+
+    private StoredSession savedSession() {
+        ArgumentCaptor<StoredSession> captor = ArgumentCaptor.forClass(StoredSession.class);
+        verify(repository).save(captor.capture());
+        return captor.getValue();
+    }
+
+    private static StoredSession storedSession() {
+        long now = System.currentTimeMillis();
+        return new StoredSession(STORED_ID, now - 60_000, now - 60_000, 1800, Map::of, bytes -> null);
+    }
+}
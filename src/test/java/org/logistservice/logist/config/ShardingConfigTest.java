@@ -0,0 +1,102 @@
+package org.logistservice.logist.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.logistservice.logist.common.jdbc.ShardPools;
+import org.logistservice.logist.common.jdbc.TemporaryPostgres;
+import org.logistservice.logist.order.service.OrderShards;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Подготовка схемы шардов на PostgreSQL: две временные базы (TemporaryPostgres) - шард 0 и шард 1;
+// шаг запуска выполняется дважды, как при перезапуске приложения
+class ShardingConfigTest {
+
+    private static final long SHARD_1_BASE = 1L << OrderShards.ID_SHIFT;
+
+    @RegisterExtension
+    static final TemporaryPostgres postgres = new TemporaryPostgres("logist_shard_test", 2);
+
+    private static ShardPools pools;
+    private static JdbcTemplate shard0;
+    private static JdbcTemplate shard1;
+
+    @BeforeAll
+    static void createShards() throws Exception {
+        DriverManagerDataSource shard0Source = postgres.dataSource(0);
+        DriverManagerDataSource shard1Source = postgres.dataSource(1);
+        Flyway flyway = TemporaryPostgres.flyway(shard0Source);
+        flyway.migrate();
+        pools = new ShardPools(List.of(shard1Source), 1);
+
+        ShardingConfig config = new ShardingConfig();
+        config.shardSchemaMigration(flyway, pools).afterPropertiesSet();
+        config.shardSchemaMigration(flyway, pools).afterPropertiesSet();
+
+        shard0 = new JdbcTemplate(shard0Source);
+        shard1 = new JdbcTemplate(shard1Source);
+    }
+
+    @AfterAll
+    static void closePools() throws Exception {
+        if (pools != null) {
+            pools.close();
+        }
+    }
+
+    @Test
+    void shardIdsStartAtTheirRange() {
+        Long orderId = insertOrder(shard1, 1L);
+        Long assignmentId = shard1.queryForObject(
+                "INSERT INTO order_assignments (order_id, vehicle_id, driver_id) VALUES (?, 1, 1) RETURNING id",
+                Long.class, orderId);
+        Long shard0OrderId = insertClientAndOrder(shard0);
+
+        assertThat(orderId).isGreaterThanOrEqualTo(SHARD_1_BASE).isLessThan(2 * SHARD_1_BASE);
+        assertThat(assignmentId).isGreaterThanOrEqualTo(SHARD_1_BASE).isLessThan(2 * SHARD_1_BASE);
+        assertThat(shard0OrderId).isLessThan(SHARD_1_BASE);
+    }
+
+    @Test
+    void shardTablesDoNotReferenceReferenceTables() {
+        List<String> referenced = shard1.queryForList(
+                "SELECT DISTINCT confrelid::regclass::text FROM pg_constraint " +
+                "WHERE contype = 'f' AND conrelid::regclass::text IN ('orders', 'order_assignments', 'order_status_history')",
+                String.class);
+
+        assertThat(referenced).containsExactly("orders");
+    }
+
+    @Test
+    void shardKeepsForeignKeysBetweenOrderTables() {
+        assertThatThrownBy(() -> shard1.update(
+                "INSERT INTO order_assignments (order_id, vehicle_id, driver_id) VALUES (?, 1, 1)", SHARD_1_BASE - 1))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void shardZeroKeepsReferenceForeignKeys() {
+        assertThatThrownBy(() -> insertOrder(shard0, Long.MAX_VALUE))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static Long insertClientAndOrder(JdbcTemplate jdbc) {
+        Long clientId = jdbc.queryForObject("INSERT INTO clients (name, created_at) VALUES ('Клиент', now()) RETURNING id",
+                Long.class);
+        return insertOrder(jdbc, clientId);
+    }
+
+    private static Long insertOrder(JdbcTemplate jdbc, Long clientId) {
+        return jdbc.queryForObject("INSERT INTO orders (order_number, client_id, status, created_at) " +
+                "VALUES (?, ?, 'NEW', now()) RETURNING id", Long.class, "T-" + System.nanoTime(), clientId);
+    }
+}
@@ -0,0 +1,179 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.JoinType;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.logistservice.logist.client.model.Client;
+import org.logistservice.logist.common.benchmark.TimedLoop;
+import org.logistservice.logist.common.jdbc.TemporaryPostgres;
+import org.logistservice.logist.common.repository.StreamingQueries;
+import org.logistservice.logist.driver.model.Driver;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.OrderAssignment;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.OrderStatusHistory;
+import org.logistservice.logist.order.model.dto.OrderDto;
+import org.logistservice.logist.user.model.Role;
+import org.logistservice.logist.user.model.User;
+import org.logistservice.logist.vehicle.model.Vehicle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список заказов проекцией в OrderDto (OrderListRepositoryImpl) против прежнего пути через сущности:
+// заказы с клиентом и менеджером (fetch join) и копирование полей в OrderDto. Оба пути - в read-only
+// транзакции, как OrderShards.read, на временной базе (TemporaryPostgres) с 60 тыс. заказов.
+// Запуск: LOGIST_TEST_POSTGRES_URL=... ./mvnw test -Dtest=OrderListBenchmarkTest -Dlogist.benchmarks=true
+@EnabledIfSystemProperty(named = "logist.benchmarks", matches = "true")
+class OrderListBenchmarkTest {
+
+    private static final int OPERATIONS = 50;
+
+    @RegisterExtension
+    static final TemporaryPostgres postgres = new TemporaryPostgres("logist_list_benchmark");
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void createEntityManagerFactory() throws SQLException {
+        postgres.flyway().migrate();
+        try (Connection connection = postgres.connect()) {
+            seed(connection);
+        }
+        entityManagerFactory = postgres.entityManagerFactory(Order.class, OrderAssignment.class,
+                OrderStatusHistory.class, Client.class, User.class, Role.class, Vehicle.class, Driver.class);
+    }
+
+    @AfterAll
+    static void closeEntityManagerFactory() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    void largePageSortedByCreationTime() {
+        compare("size=500, sort CREATED_AT DESC", OrderSpecifications.filter(null, null, null, null, null),
+                PageRequest.of(0, 500, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+    }
+
+    @Test
+    void smallPageOfNewOrders() {
+        compare("size=50, status=NEW", OrderSpecifications.filter(null, OrderStatus.NEW, null, null, null),
+                PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+    }
+
+    private static void compare(String name, Specification<Order> filter, Pageable pageable) {
+        TimedLoop.Result entities = TimedLoop.measure(name + ", entities", 3, 5, OPERATIONS,
+                () -> readOnly(entityManager -> entityPage(entityManager, filter, pageable)));
+        TimedLoop.Result projection = TimedLoop.measure(name + ", projection", 3, 5, OPERATIONS,
+                () -> readOnly(entityManager -> projectionPage(entityManager, filter, pageable)));
+
+        List<OrderDto> projected = readOnly(entityManager -> projectionPage(entityManager, filter, pageable));
+        List<OrderDto> mapped = readOnly(entityManager -> entityPage(entityManager, filter, pageable));
+        assertThat(projected).hasSize(pageable.getPageSize())
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(mapped);
+        assertThat(projection.bytesPerOp()).isLessThan(entities.bytesPerOp());
+    }
+
+    private static List<OrderDto> projectionPage(EntityManager entityManager, Specification<Order> filter,
+                                                 Pageable pageable) {
+        OrderListRepositoryImpl repository = new OrderListRepositoryImpl(new StreamingQueries(500));
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+        return repository.findOrderList(filter, filter, pageable).getContent();
+    }
+
+    // Как до проекций: OrderSpecifications.withClientAndManager, findAll(spec, countSpec, pageable) и toOrderDto
+    private static List<OrderDto> entityPage(EntityManager entityManager, Specification<Order> filter,
+                                             Pageable pageable) {
+        Specification<Order> withClientAndManager = (root, query, cb) -> {
+            root.fetch("client", JoinType.INNER);
+            root.fetch("manager", JoinType.LEFT);
+            return null;
+        };
+        return new SimpleJpaRepository<>(Order.class, entityManager)
+                .findAll(withClientAndManager.and(filter), filter, pageable)
+                .map(OrderListBenchmarkTest::toOrderDto)
+                .getContent();
+    }
+
+    private static OrderDto toOrderDto(Order order) {
+        return OrderDto.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .clientId(order.getClient().getId())
+                .clientName(order.getClient().getName())
+                .status(order.getStatus())
+                .createdAt(order.getCreatedAt())
+                .plannedPickupDate(order.getPlannedPickupDate())
+                .plannedDeliveryDate(order.getPlannedDeliveryDate())
+                .actualDeliveryDate(order.getActualDeliveryDate())
+                .originCity(order.getOriginCity())
+                .originAddress(order.getOriginAddress())
+                .destinationCity(order.getDestinationCity())
+                .destinationAddress(order.getDestinationAddress())
+                .cargoDescription(order.getCargoDescription())
+                .cargoWeight(order.getCargoWeight())
+                .cargoVolume(order.getCargoVolume())
+                .price(order.getPrice())
+                .managerId(order.getManager() != null ? order.getManager().getId() : null)
+                .managerName(order.getManager() != null ? order.getManager().getFullName() : null)
+                .build();
+    }
+
+    // Read-only транзакция Spring над Hibernate: сущности без снимков для dirty checking, без сброса сессии
+    private static <T> T readOnly(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            entityManager.getTransaction().begin();
+            T result = work.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static void seed(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (username, password, full_name, email, active, created_at, updated_at) " +
+                    "SELECT 'manager' || g, 'x', 'Manager ' || g, 'manager' || g || '@example.com', true, now(), now() " +
+                    "FROM generate_series(1, 20) g");
+            statement.execute("INSERT INTO clients (name, city, active, created_at) " +
+                    "SELECT 'Client ' || g, 'City ' || (g % 50), true, now() FROM generate_series(1, 1000) g");
+            statement.execute("INSERT INTO orders (order_number, client_id, manager_id, origin_city, origin_address, " +
+                    "destination_city, destination_address, cargo_description, cargo_weight, cargo_volume, status, price, " +
+                    "planned_pickup_date, planned_delivery_date, created_at, search_text) " +
+                    "SELECT 'ORD-' || g, 1 + g % 1000, CASE WHEN g % 10 = 0 THEN NULL ELSE 1 + g % 20 END, " +
+                    "'City ' || (g % 50), 'Street ' || g, 'City ' || (g % 37), 'Avenue ' || g, 'Cargo ' || g, " +
+                    "g % 500, g % 40, CASE WHEN g % 10 < 2 THEN 'NEW' WHEN g % 10 < 4 THEN 'IN_PROGRESS' " +
+                    "ELSE 'DELIVERED' END, 100 + g % 900, date '2026-01-01' + g % 365, date '2026-01-03' + g % 365, " +
+                    "timestamp '2026-01-01' + (g % 365) * interval '1 day' + (g % 86400) * interval '1 second', " +
+                    "lower('ORD-' || g || ' client ' || (1 + g % 1000)) " +
+                    "FROM generate_series(1, 60000) g");
+            statement.execute("ANALYZE");
+        }
+    }
+}
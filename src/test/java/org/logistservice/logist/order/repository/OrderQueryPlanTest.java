@@ -0,0 +1,201 @@
+package org.logistservice.logist.order.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.logistservice.logist.common.jdbc.TemporaryPostgres;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы запросов списка заказов, keyset-страниц, статистики и массового удаления на PostgreSQL.
+// Тест применяет миграции к временной базе (TemporaryPostgres) и заполняет ее данными с преобладанием
+// завершенных заказов. SQL повторяет то, что строят OrderSpecifications / Hibernate и репозитории
+// статистики и удаления
+class OrderQueryPlanTest {
+
+    private static final String ORDER_LIST = "select o1_0.id, o1_0.order_number, c1_0.id, c1_0.name, o1_0.status, " +
+            "o1_0.created_at, o1_0.planned_pickup_date, o1_0.planned_delivery_date, o1_0.price, m1_0.id, m1_0.full_name " +
+            "from orders o1_0 join clients c1_0 on c1_0.id=o1_0.client_id " +
+            "left join users m1_0 on m1_0.id=o1_0.manager_id ";
+
+    @RegisterExtension
+    static final TemporaryPostgres postgres = new TemporaryPostgres("logist_plan_test");
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void createDatabase() throws SQLException {
+        postgres.flyway().migrate();
+        connection = postgres.connect();
+        seed();
+    }
+
+    @AfterAll
+    static void closeConnection() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Test
+    void openOrdersByPickupDateUsePartialIndex() throws SQLException {
+        String plan = explain(ORDER_LIST + "where o1_0.status=? order by 7, 1 offset ? rows fetch first ? rows only",
+                "IN_PROGRESS", 0, 20);
+
+        assertThat(plan).contains("idx_orders_open_pickup_date").doesNotContain("Seq Scan on orders");
+    }
+
+    @Test
+    void keysetPageStartsInsideIndex() throws SQLException {
+        String plan = explain(ORDER_LIST + "where o1_0.status=? and (o1_0.planned_pickup_date, o1_0.id)>(?, ?) " +
+                        "order by 7, 1 fetch first ? rows only",
+                "IN_PROGRESS", Date.valueOf(LocalDate.of(2026, 6, 1)), 1000L, 21);
+
+        assertThat(plan).contains("idx_orders_open_pickup_date")
+                .contains("ROW(planned_pickup_date, id) > ROW(")
+                .doesNotContain("Sort");
+    }
+
+    @Test
+    void keysetPageOverAllOrdersStartsInsideIndex() throws SQLException {
+        String plan = explain(ORDER_LIST + "where (o1_0.created_at, o1_0.id)<(?, ?) " +
+                        "order by 6 desc, 1 desc fetch first ? rows only",
+                Timestamp.valueOf("2026-06-01 00:00:00"), 1000L, 21);
+
+        assertThat(plan).contains("idx_orders_created_at_id")
+                .contains("ROW(created_at, id) < ROW(")
+                .doesNotContain("Sort");
+    }
+
+    @Test
+    void ordersOfClientUseClientIndex() throws SQLException {
+        String plan = explain(ORDER_LIST + "where o1_0.client_id=? order by 1 offset ? rows fetch first ? rows only",
+                7L, 0, 20);
+
+        assertThat(plan).contains("idx_orders_client_id_id").doesNotContain("Seq Scan on orders");
+    }
+
+    @Test
+    void searchUsesTrigramIndex() throws SQLException {
+        String plan = explain("select count(o1_0.id) from orders o1_0 where o1_0.search_text like ? escape '\\'",
+                "%client 42 %");
+
+        assertThat(plan).contains("idx_orders_search_text_trgm").doesNotContain("Seq Scan on orders");
+    }
+
+    @Test
+    void statsReadRollupsOnly() throws SQLException {
+        Date fromDate = Date.valueOf(LocalDate.of(2026, 9, 1));
+        Date toDate = Date.valueOf(LocalDate.of(2026, 9, 7));
+        String byStatus = explain("SELECT d.status, sum(d.orders_count) FROM stats_order_status_daily d " +
+                "WHERE d.day >= ? AND d.day <= ? GROUP BY d.status HAVING sum(d.orders_count) > 0 ORDER BY d.status",
+                fromDate, toDate);
+        String topClients = explain("SELECT c.id, c.name, sum(d.orders_count), sum(d.total_price) " +
+                "FROM stats_client_daily d JOIN clients c ON c.id = d.client_id WHERE d.day >= ? AND d.day <= ? " +
+                "GROUP BY c.id, c.name HAVING sum(d.orders_count) > 0 ORDER BY 4 DESC, 3 DESC, c.id LIMIT ?",
+                fromDate, toDate, 10);
+        String vehicleLoad = explain("SELECT v.id, v.registration_number, sum(d.orders_count) " +
+                "FROM stats_vehicle_daily d JOIN vehicles v ON v.id = d.vehicle_id WHERE d.day >= ? AND d.day <= ? " +
+                "GROUP BY v.id, v.registration_number HAVING sum(d.orders_count) > 0 " +
+                "ORDER BY 3 DESC, v.registration_number", fromDate, toDate);
+
+        assertThat(List.of(byStatus, topClients, vehicleLoad))
+                .allSatisfy(plan -> assertThat(plan).doesNotContain(" on orders").doesNotContain(" on order_assignments"));
+        assertThat(topClients).contains("stats_client_daily_pkey").doesNotContain("Seq Scan on stats_client_daily");
+    }
+
+    @Test
+    void bulkDeleteBatchesUseIndexes() throws SQLException {
+        String ids = ids(1000);
+        String lockOrders = explain("SELECT id FROM orders WHERE client_id = ? ORDER BY id LIMIT ? FOR UPDATE", 7L, 500);
+        String history = explain("DELETE FROM order_status_history WHERE order_id IN (" + ids + ")");
+        String assignments = explain("DELETE FROM order_assignments WHERE order_id IN (" + ids + ")");
+        String orders = explain("DELETE FROM orders WHERE id IN (" + ids + ")");
+        String driverAssignments = explain("SELECT id, order_id FROM order_assignments WHERE driver_id = ? " +
+                "ORDER BY id LIMIT ? FOR UPDATE", 3L, 500);
+        String vehicleAssignments = explain("SELECT id, order_id FROM order_assignments WHERE vehicle_id = ? " +
+                "ORDER BY id LIMIT ? FOR UPDATE", 3L, 500);
+
+        assertThat(lockOrders).contains("idx_orders_client_id_id");
+        assertThat(history).contains("idx_order_status_history_order_changed");
+        assertThat(assignments).contains("idx_order_assignments_order_id");
+        assertThat(orders).contains("orders_pkey");
+        assertThat(driverAssignments).contains("idx_order_assignments_driver_id");
+        assertThat(vehicleAssignments).contains("idx_order_assignments_vehicle_start");
+        assertThat(List.of(lockOrders, history, assignments, orders, driverAssignments, vehicleAssignments))
+                .allSatisfy(plan -> assertThat(plan).doesNotContain("Seq Scan"));
+    }
+
+    // 1000 клиентов, 200 машин и водителей, 100 000 заказов за год: 97% доставлены или отменены,
+    // у каждого второго заказа есть назначение, у каждого - три записи истории
+    private static void seed() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (username, password, full_name, email, active, created_at, updated_at) " +
+                    "VALUES ('admin', 'x', 'Admin', 'admin@example.com', true, now(), now())");
+            statement.execute("INSERT INTO clients (name, city, active, created_at) " +
+                    "SELECT 'Client ' || g, 'City ' || (g % 50), true, now() FROM generate_series(1, 1000) g");
+            statement.execute("INSERT INTO vehicles (registration_number, status, created_at) " +
+                    "SELECT 'V' || g, 'ACTIVE', now() FROM generate_series(1, 200) g");
+            statement.execute("INSERT INTO drivers (full_name, active) " +
+                    "SELECT 'Driver ' || g, true FROM generate_series(1, 200) g");
+            statement.execute("INSERT INTO orders (order_number, client_id, manager_id, origin_city, destination_city, " +
+                    "status, price, planned_pickup_date, planned_delivery_date, created_at, search_text) " +
+                    "SELECT 'ORD-' || g, 1 + g % 1000, 1, 'City ' || (g % 50), 'City ' || (g % 37), " +
+                    "CASE WHEN g % 100 < 2 THEN 'NEW' WHEN g % 100 < 3 THEN 'IN_PROGRESS' " +
+                    "     WHEN g % 100 < 10 THEN 'CANCELED' ELSE 'DELIVERED' END, " +
+                    "100 + g % 900, date '2026-01-01' + g % 365, date '2026-01-03' + g % 365, " +
+                    "timestamp '2026-01-01' + (g % 365) * interval '1 day' + (g % 86400) * interval '1 second', " +
+                    "lower('ORD-' || g || ' client ' || (1 + g % 1000) || ' city ' || (g % 50)) " +
+                    "FROM generate_series(1, 100000) g");
+            statement.execute("INSERT INTO order_assignments (order_id, vehicle_id, driver_id, planned_start, planned_end) " +
+                    "SELECT o.id, 1 + o.id % 200, 1 + o.id % 200, o.planned_pickup_date, o.planned_delivery_date " +
+                    "FROM orders o WHERE o.id % 2 = 0");
+            statement.execute("INSERT INTO order_status_history (order_id, old_status, new_status, changed_at) " +
+                    "SELECT o.id, 'NEW', o.status, o.created_at + s * interval '1 hour' " +
+                    "FROM orders o CROSS JOIN generate_series(1, 3) s");
+            statement.execute("INSERT INTO stats_order_status_daily (day, status, orders_count) " +
+                    "SELECT CAST(created_at AS date), status, count(*) FROM orders GROUP BY 1, 2");
+            statement.execute("INSERT INTO stats_client_daily (day, client_id, orders_count, total_price) " +
+                    "SELECT CAST(created_at AS date), client_id, count(*), COALESCE(sum(price), 0) FROM orders GROUP BY 1, 2");
+            statement.execute("INSERT INTO stats_vehicle_daily (day, vehicle_id, orders_count) " +
+                    "SELECT CAST(planned_start AS date), vehicle_id, count(DISTINCT order_id) FROM order_assignments " +
+                    "WHERE planned_start IS NOT NULL GROUP BY 1, 2");
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static String explain(String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    private static String ids(int count) {
+        List<Long> ids = LongStream.rangeClosed(1, count).map(i -> i * 37).boxed().collect(Collectors.toList());
+        Collections.shuffle(ids);
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+}
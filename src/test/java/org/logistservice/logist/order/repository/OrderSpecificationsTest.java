@@ -0,0 +1,150 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.logistservice.logist.client.model.Client;
+import org.logistservice.logist.common.enums.OrderSortField;
+import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.common.jdbc.TemporaryPostgres;
+import org.logistservice.logist.common.repository.StreamingQueries;
+import org.logistservice.logist.driver.model.Driver;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.OrderAssignment;
+import org.logistservice.logist.order.model.OrderStatusHistory;
+import org.logistservice.logist.order.model.dto.OrderDto;
+import org.logistservice.logist.order.service.OrderCursor;
+import org.logistservice.logist.user.model.Role;
+import org.logistservice.logist.user.model.User;
+import org.logistservice.logist.vehicle.model.Vehicle;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Keyset-страницы на PostgreSQL через Hibernate: обход списка курсором (как OrderServiceImpl.getAllByCursor)
+// по каждому полю и направлению сортировки должен вернуть те же строки в том же порядке, что и один запрос
+// всего списка. В данных есть повторяющиеся ключи, NULL-даты и названия в разном регистре
+class OrderSpecificationsTest {
+
+    private static final int PAGE_SIZE = 7;
+
+    @RegisterExtension
+    static final TemporaryPostgres postgres = new TemporaryPostgres("logist_keyset_test");
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void createEntityManagerFactory() throws SQLException {
+        postgres.flyway().migrate();
+        try (Connection connection = postgres.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (username, password, full_name, email, active, created_at, updated_at) " +
+                    "VALUES ('admin', 'x', 'Admin', 'admin@example.com', true, now(), now())");
+            statement.execute("INSERT INTO clients (name, created_at) " +
+                    "SELECT (ARRAY['alfa', 'Bravo', 'charlie', 'ALFA', 'delta'])[g], now() FROM generate_series(1, 5) g");
+            statement.execute("INSERT INTO orders (order_number, client_id, manager_id, status, created_at, " +
+                    "planned_pickup_date, planned_delivery_date) " +
+                    "SELECT CASE WHEN g % 2 = 0 THEN 'ORD-' ELSE 'ord-' END || (g / 2), 1 + g % 5, 1, " +
+                    "(ARRAY['NEW', 'IN_PROGRESS', 'DELIVERED', 'CANCELED'])[1 + g % 4], " +
+                    "timestamp '2026-01-01' + (g % 30) * interval '1 hour', " +
+                    "CASE WHEN g % 4 = 0 THEN NULL ELSE date '2026-01-01' + g % 9 END, " +
+                    "CASE WHEN g % 5 = 0 THEN NULL ELSE date '2026-01-03' + g % 11 END " +
+                    "FROM generate_series(1, 120) g");
+        }
+        entityManagerFactory = postgres.entityManagerFactory(Order.class, OrderAssignment.class,
+                OrderStatusHistory.class, Client.class, User.class, Role.class, Vehicle.class, Driver.class);
+    }
+
+    @AfterAll
+    static void closeEntityManagerFactory() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    static Stream<Arguments> sortOrders() {
+        Stream<OrderSortField> fields = Stream.concat(Stream.of((OrderSortField) null), Arrays.stream(OrderSortField.values()));
+        return fields.flatMap(field -> Stream.of(SortDirection.ASC, SortDirection.DESC)
+                .map(direction -> Arguments.of(field, direction)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("sortOrders")
+    void cursorWalkMatchesWholeList(OrderSortField sortField, SortDirection sortDirection) {
+        Sort sort = toSort(sortField, sortDirection);
+        List<Long> whole = ids(list(Specification.unrestricted(), sort, Integer.MAX_VALUE));
+
+        List<Long> walked = new ArrayList<>();
+        OrderCursor cursor = null;
+        while (true) {
+            List<Specification<Order>> legs = cursor == null
+                    ? List.of(Specification.unrestricted())
+                    : OrderSpecifications.after(cursor.getSortField(), cursor.getSortDirection(),
+                            cursor.getLastKey(), cursor.getLastId());
+            List<OrderDto> page = new ArrayList<>();
+            for (Specification<Order> leg : legs) {
+                page.addAll(list(leg, sort, PAGE_SIZE + 1 - page.size()));
+                if (page.size() > PAGE_SIZE) {
+                    break;
+                }
+            }
+            boolean hasNext = page.size() > PAGE_SIZE;
+            List<OrderDto> content = hasNext ? page.subList(0, PAGE_SIZE) : page;
+            walked.addAll(ids(content));
+            if (!hasNext) {
+                break;
+            }
+            // Курсор проходит через строку, как у клиента
+            cursor = OrderCursor.decode(OrderCursor.after(content.get(PAGE_SIZE - 1), sortField, sortDirection).encode());
+        }
+
+        assertThat(whole).hasSize(120);
+        assertThat(walked).containsExactlyElementsOf(whole);
+    }
+
+    private static List<OrderDto> list(Specification<Order> spec, Sort sort, int limit) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            OrderListRepositoryImpl repository = new OrderListRepositoryImpl(new StreamingQueries(500));
+            ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+            return repository.findOrderList(spec, sort, limit);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    // Как OrderServiceImpl.toSort
+    private static Sort toSort(OrderSortField sortField, SortDirection sortDirection) {
+        if (sortField == null) {
+            return Sort.by(Sort.Direction.ASC, "id");
+        }
+        Sort.Direction direction = sortDirection == SortDirection.DESC ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort.Order order = switch (sortField) {
+            case ORDER_NUMBER -> new Sort.Order(direction, "orderNumber").ignoreCase();
+            case CLIENT_NAME -> new Sort.Order(direction, "client.name").ignoreCase();
+            case STATUS -> new Sort.Order(direction, "status");
+            case CREATED_AT -> new Sort.Order(direction, "createdAt");
+            case PLANNED_PICKUP_DATE -> new Sort.Order(direction, "plannedPickupDate");
+            case PLANNED_DELIVERY_DATE -> new Sort.Order(direction, "plannedDeliveryDate");
+        };
+        return Sort.by(order, new Sort.Order(direction, "id"));
+    }
+
+    private static List<Long> ids(List<OrderDto> orders) {
+        return orders.stream().map(OrderDto::getId).toList();
+    }
+}
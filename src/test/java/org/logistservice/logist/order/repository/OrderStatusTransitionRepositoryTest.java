@@ -0,0 +1,140 @@
+package org.logistservice.logist.order.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.logistservice.logist.client.model.Client;
+import org.logistservice.logist.common.jdbc.TemporaryPostgres;
+import org.logistservice.logist.driver.model.Driver;
+import org.logistservice.logist.order.model.Order;
+import org.logistservice.logist.order.model.OrderAssignment;
+import org.logistservice.logist.order.model.OrderStatus;
+import org.logistservice.logist.order.model.OrderStatusHistory;
+import org.logistservice.logist.order.model.OrderStatusTransition;
+import org.logistservice.logist.user.model.Role;
+import org.logistservice.logist.user.model.User;
+import org.logistservice.logist.vehicle.model.Vehicle;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Массовая смена статусов на временной базе PostgreSQL (TemporaryPostgres): переход применяется только
+// из ожидаемого статуса, история пишется для примененных, строки пачки блокируются по возрастанию id
+class OrderStatusTransitionRepositoryTest {
+
+    @RegisterExtension
+    static final TemporaryPostgres postgres = new TemporaryPostgres("logist_status_transition_test");
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void createEntityManagerFactory() throws SQLException {
+        postgres.flyway().migrate();
+        try (Connection connection = postgres.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (username, password, full_name, email, active, created_at, updated_at) " +
+                    "VALUES ('admin', 'x', 'Admin', 'admin@example.com', true, now(), now())");
+            statement.execute("INSERT INTO clients (name, created_at) VALUES ('Client', now())");
+            statement.execute("INSERT INTO orders (order_number, client_id, manager_id, status, created_at) " +
+                    "SELECT 'ORD-' || g, 1, 1, 'NEW', now() FROM generate_series(1, 6) g");
+            // Новая версия строки - в конце таблицы: порядок чтения таблицы не совпадает с порядком id
+            statement.execute("UPDATE orders SET created_at = created_at WHERE id = 1");
+        }
+        entityManagerFactory = postgres.entityManagerFactory(Order.class, OrderAssignment.class,
+                OrderStatusHistory.class, Client.class, User.class, Role.class, Vehicle.class, Driver.class);
+    }
+
+    @AfterAll
+    static void closeEntityManagerFactory() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    void appliesOnlyTransitionsFromExpectedStatusAndWritesTheirHistory() throws SQLException {
+        Map<Long, LocalDateTime> applied = compareAndSet(List.of(
+                new OrderStatusTransition(5L, OrderStatus.NEW, OrderStatus.IN_PROGRESS),
+                new OrderStatusTransition(4L, OrderStatus.IN_PROGRESS, OrderStatus.DELIVERED)));
+
+        assertThat(applied).containsOnlyKeys(5L);
+        try (Connection connection = postgres.connect(); Statement statement = connection.createStatement()) {
+            assertThat(single(statement, "SELECT status FROM orders WHERE id = 4")).isEqualTo("NEW");
+            assertThat(single(statement, "SELECT status FROM orders WHERE id = 5")).isEqualTo("IN_PROGRESS");
+            assertThat(single(statement, "SELECT string_agg(order_id || ':' || old_status || '>' || new_status, ',') " +
+                    "FROM order_status_history WHERE order_id IN (4, 5)")).isEqualTo("5:NEW>IN_PROGRESS");
+        }
+    }
+
+    @Test
+    void locksRowsInIdOrderWhateverTheBatchOrder() throws Exception {
+        try (Connection holder = postgres.connect(); Connection probe = postgres.connect()) {
+            holder.setAutoCommit(false);
+            try (Statement statement = holder.createStatement()) {
+                statement.execute("SELECT id FROM orders WHERE id = 2 FOR UPDATE");
+            }
+
+            CompletableFuture<Map<Long, LocalDateTime>> batch = CompletableFuture.supplyAsync(() -> compareAndSet(List.of(
+                    new OrderStatusTransition(3L, OrderStatus.NEW, OrderStatus.CANCELED),
+                    new OrderStatusTransition(2L, OrderStatus.NEW, OrderStatus.CANCELED),
+                    new OrderStatusTransition(1L, OrderStatus.NEW, OrderStatus.CANCELED))));
+            awaitLockWait(probe);
+
+            // Пачка ждет заказ 2: заказ 1 уже заблокирован ею, заказ 3 еще нет
+            try (Statement statement = probe.createStatement()) {
+                assertThatThrownBy(() -> statement.execute("SELECT id FROM orders WHERE id = 1 FOR UPDATE NOWAIT"))
+                        .isInstanceOf(SQLException.class);
+                probe.setAutoCommit(false);
+                statement.execute("SELECT id FROM orders WHERE id = 3 FOR UPDATE NOWAIT");
+                probe.rollback();
+            }
+
+            holder.rollback();
+            assertThat(batch.get(30, TimeUnit.SECONDS)).containsOnlyKeys(1L, 2L, 3L);
+        }
+    }
+
+    private static Map<Long, LocalDateTime> compareAndSet(List<OrderStatusTransition> transitions) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            OrderStatusTransitionRepositoryImpl repository = new OrderStatusTransitionRepositoryImpl();
+            ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+            entityManager.getTransaction().begin();
+            Map<Long, LocalDateTime> applied = repository.compareAndSet(transitions, LocalDateTime.now(), 1L);
+            entityManager.getTransaction().commit();
+            return applied;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static void awaitLockWait(Connection connection) throws SQLException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        try (Statement statement = connection.createStatement()) {
+            while ("0".equals(single(statement, "SELECT count(*) FROM pg_locks WHERE NOT granted"))) {
+                assertThat(System.nanoTime()).as("batch waits for a row lock").isLessThan(deadline);
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static String single(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
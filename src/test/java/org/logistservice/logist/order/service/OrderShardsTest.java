@@ -0,0 +1,195 @@
+package org.logistservice.logist.order.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.logistservice.logist.common.jdbc.ShardPools;
+import org.logistservice.logist.common.jdbc.ShardRoutingDataSource;
+import org.logistservice.logist.config.ShardingProperties;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Три шарда - пулы-заглушки, у каждого свое соединение; транзакции ведет DataSourceTransactionManager
+// поверх ShardRoutingDataSource, поэтому соединение транзакции показывает, на какой шард она ушла
+class OrderShardsTest {
+
+    private final List<Connection> connections = new ArrayList<>();
+    private ShardRoutingDataSource routing;
+    private ShardPools pools;
+    private OrderShards shards;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Connection connection = mock(Connection.class);
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            connections.add(connection);
+            dataSources.add(dataSource);
+        }
+        routing = new ShardRoutingDataSource(dataSources);
+        pools = new ShardPools(dataSources.subList(1, 3), 3);
+
+        ShardingProperties properties = new ShardingProperties();
+        properties.setRegions(Map.of(
+                "north", List.of("Санкт-Петербург", "Мурманск"),
+                "east", List.of("Владивосток")));
+        properties.setShards(List.of(shard("north"), shard("east")));
+        properties.setMaxOffsetRows(500);
+        shards = shards(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.getQueryExecutor().shutdownNow();
+    }
+
+    @Test
+    void idRangesRouteToTheirShards() {
+        assertThat(shards.count()).isEqualTo(3);
+        assertThat(shards.ofId(1L)).isZero();
+        assertThat(shards.ofId((1L << OrderShards.ID_SHIFT) - 1)).isZero();
+        assertThat(shards.ofId(1L << OrderShards.ID_SHIFT)).isEqualTo(1);
+        assertThat(shards.ofId((2L << OrderShards.ID_SHIFT) - 1)).isEqualTo(1);
+        assertThat(shards.ofId((2L << OrderShards.ID_SHIFT) + 42)).isEqualTo(2);
+        assertThat(shards.ofId(null)).isZero();
+    }
+
+    @Test
+    void idOutsideConfiguredShardsGoesToShardZero() {
+        assertThat(shards.ofId(3L << OrderShards.ID_SHIFT)).isZero();
+        assertThat(shards.ofId(-1L)).isZero();
+    }
+
+    @Test
+    void withoutShardingEverythingIsOnShardZero() {
+        OrderShards single = shards(null);
+
+        assertThat(single.count()).isEqualTo(1);
+        assertThat(single.ofId(2L << OrderShards.ID_SHIFT)).isZero();
+        assertThat(single.ofNewOrder("Мурманск", () -> "Владивосток")).isZero();
+        assertThat(single.maxOffsetRows()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void newOrderRoutesByOriginCityIgnoringCase() {
+        assertThat(shards.ofNewOrder(" мурманск ", () -> {
+            throw new AssertionError("client city must not be read");
+        })).isEqualTo(1);
+        assertThat(shards.ofNewOrder("ВЛАДИВОСТОК", () -> null)).isEqualTo(2);
+    }
+
+    @Test
+    void newOrderFallsBackToClientCityThenShardZero() {
+        assertThat(shards.ofNewOrder("Казань", () -> "Санкт-Петербург")).isEqualTo(1);
+        assertThat(shards.ofNewOrder(null, () -> "Владивосток")).isEqualTo(2);
+        assertThat(shards.ofNewOrder("Казань", () -> "Москва")).isZero();
+        assertThat(shards.ofNewOrder("Казань", () -> null)).isZero();
+    }
+
+    @Test
+    void unknownRegionIsRejected() {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setShards(List.of(shard("south")));
+
+        assertThatThrownBy(() -> shards(properties))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.sharding.regions.south");
+    }
+
+    @Test
+    void readAllQueriesEveryShardInParallelInShardOrder() {
+        CountDownLatch allStarted = new CountDownLatch(3);
+
+        List<Connection> used = shards.readAll(shard -> {
+            allStarted.countDown();
+            try {
+                assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return DataSourceUtils.getConnection(routing);
+        });
+
+        assertThat(used).containsExactlyElementsOf(connections);
+    }
+
+    @Test
+    void writeGoesToRequestedShard() throws SQLException {
+        Connection used = shards.write(2, () -> DataSourceUtils.getConnection(routing));
+
+        assertThat(used).isSameAs(connections.get(2));
+        InOrder order = inOrder(used);
+        order.verify(used).commit();
+        order.verify(used).close();
+    }
+
+    @Test
+    void referencesStayLockedOnShardZeroUntilShardWriteCommits() throws SQLException {
+        List<Connection> used = new ArrayList<>();
+
+        String result = shards.writeReferencing(2,
+                () -> {
+                    used.add(DataSourceUtils.getConnection(routing));
+                    return "client";
+                },
+                client -> {
+                    used.add(DataSourceUtils.getConnection(routing));
+                    return client + " order";
+                });
+
+        assertThat(result).isEqualTo("client order");
+        assertThat(used).containsExactly(connections.get(0), connections.get(2));
+        InOrder order = inOrder(connections.get(0), connections.get(2));
+        order.verify(connections.get(2)).commit();
+        order.verify(connections.get(0)).commit();
+    }
+
+    @Test
+    void referencesForShardZeroShareOneTransaction() throws SQLException {
+        List<Connection> used = new ArrayList<>();
+
+        shards.writeReferencing(0,
+                () -> used.add(DataSourceUtils.getConnection(routing)),
+                added -> used.add(DataSourceUtils.getConnection(routing)));
+
+        assertThat(used).containsExactly(connections.get(0), connections.get(0));
+        InOrder order = inOrder(connections.get(0));
+        order.verify(connections.get(0)).commit();
+        order.verify(connections.get(0)).close();
+    }
+
+    private OrderShards shards(ShardingProperties properties) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ShardingProperties> propertiesProvider = mock(ObjectProvider.class);
+        when(propertiesProvider.getIfAvailable()).thenReturn(properties);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ShardPools> poolsProvider = mock(ObjectProvider.class);
+        when(poolsProvider.getIfAvailable()).thenReturn(properties != null ? pools : null);
+        return new OrderShards(new DataSourceTransactionManager(routing), propertiesProvider, poolsProvider);
+    }
+
+    private static ShardingProperties.Shard shard(String region) {
+        ShardingProperties.Shard shard = new ShardingProperties.Shard();
+        shard.setRegions(List.of(region));
+        return shard;
+    }
+}
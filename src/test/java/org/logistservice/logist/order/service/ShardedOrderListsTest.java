@@ -0,0 +1,108 @@
+package org.logistservice.logist.order.service;
+
+import org.junit.jupiter.api.Test;
+import org.logistservice.logist.common.enums.OrderSortField;
+import org.logistservice.logist.common.enums.SortDirection;
+import org.logistservice.logist.order.model.dto.OrderDto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Страницы шардов здесь уже упорядочены так, как их вернула бы каждая база; id шарда k начинаются с k << 48
+class ShardedOrderListsTest {
+
+    private static final long SHARD_1 = 1L << OrderShards.ID_SHIFT;
+    private static final long SHARD_2 = 2L << OrderShards.ID_SHIFT;
+
+    @Test
+    void mergeKeepsGlobalOrderWithNullsLastAndIdAsTieBreaker() {
+        List<OrderDto> shard0 = List.of(pickup(1, 3), pickup(2, 5), pickup(3, null));
+        List<OrderDto> shard1 = List.of(pickup(SHARD_1, 1), pickup(SHARD_1 + 1, 5));
+        List<OrderDto> shard2 = List.of(pickup(SHARD_2, 2), pickup(SHARD_2 + 1, null));
+
+        List<OrderDto> merged = ShardedOrderLists.merge(List.of(shard0, shard1, shard2),
+                OrderSortField.PLANNED_PICKUP_DATE, SortDirection.ASC, 10);
+
+        assertThat(ids(merged)).containsExactly(SHARD_1, SHARD_2, 1L, 2L, SHARD_1 + 1, 3L, SHARD_2 + 1);
+    }
+
+    @Test
+    void mergeDescendingPutsNullsFirstAndStopsAtLimit() {
+        List<OrderDto> shard0 = List.of(pickup(3, null), pickup(2, 5), pickup(1, 3));
+        List<OrderDto> shard1 = List.of(pickup(SHARD_1 + 1, 5), pickup(SHARD_1, 1));
+
+        List<OrderDto> merged = ShardedOrderLists.merge(List.of(shard0, shard1),
+                OrderSortField.PLANNED_PICKUP_DATE, SortDirection.DESC, 3);
+
+        assertThat(ids(merged)).containsExactly(3L, SHARD_1 + 1, 2L);
+    }
+
+    @Test
+    void mergeComparesClientNamesIgnoringCase() {
+        List<OrderDto> shard0 = List.of(client(1, "alfa"), client(2, "Charlie"));
+        List<OrderDto> shard1 = List.of(client(SHARD_1, "Bravo"), client(SHARD_1 + 1, "delta"));
+
+        List<OrderDto> merged = ShardedOrderLists.merge(List.of(shard0, shard1),
+                OrderSortField.CLIENT_NAME, SortDirection.ASC, 10);
+
+        assertThat(ids(merged)).containsExactly(1L, SHARD_1, 2L, SHARD_1 + 1);
+    }
+
+    @Test
+    void mergeWithoutSortFieldOrdersById() {
+        List<OrderDto> merged = ShardedOrderLists.merge(
+                List.of(List.of(order(5), order(7)), List.of(order(SHARD_1)), List.of(order(SHARD_2), order(SHARD_2 + 1))),
+                null, null, 10);
+
+        assertThat(ids(merged)).containsExactly(5L, 7L, SHARD_1, SHARD_2, SHARD_2 + 1);
+    }
+
+    @Test
+    void streamingMergeMatchesPageMerge() {
+        List<List<OrderDto>> shardLists = List.of(
+                List.of(pickup(1, 3), pickup(2, 5), pickup(3, null)),
+                List.of(pickup(SHARD_1, 1), pickup(SHARD_1 + 1, 5)),
+                List.of(),
+                List.of(pickup(SHARD_2, 2), pickup(SHARD_2 + 1, null)));
+        List<Iterator<OrderDto>> cursors = shardLists.stream().map(List::iterator).toList();
+        List<OrderDto> streamed = new ArrayList<>();
+
+        ShardedOrderLists.merge(cursors, OrderSortField.PLANNED_PICKUP_DATE, SortDirection.ASC, streamed::add);
+
+        assertThat(streamed).containsExactlyElementsOf(ShardedOrderLists.merge(shardLists,
+                OrderSortField.PLANNED_PICKUP_DATE, SortDirection.ASC, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void interleaveTakesRowsInTurnUntilLimit() {
+        List<List<OrderDto>> shardLists = List.of(
+                List.of(order(1), order(2), order(3)),
+                List.of(order(SHARD_1)),
+                List.of(order(SHARD_2), order(SHARD_2 + 1)));
+
+        assertThat(ids(ShardedOrderLists.interleave(shardLists, 10)))
+                .containsExactly(1L, SHARD_1, SHARD_2, 2L, SHARD_2 + 1, 3L);
+        assertThat(ids(ShardedOrderLists.interleave(shardLists, 4)))
+                .containsExactly(1L, SHARD_1, SHARD_2, 2L);
+    }
+
+    private static OrderDto order(long id) {
+        return OrderDto.builder().id(id).build();
+    }
+
+    private static OrderDto pickup(long id, Integer day) {
+        return OrderDto.builder().id(id).plannedPickupDate(day != null ? LocalDate.of(2026, 10, day) : null).build();
+    }
+
+    private static OrderDto client(long id, String clientName) {
+        return OrderDto.builder().id(id).clientName(clientName).build();
+    }
+
+    private static List<Long> ids(List<OrderDto> orders) {
+        return orders.stream().map(OrderDto::getId).toList();
+    }
+}
@@ -0,0 +1,78 @@
+package org.logistservice.logist.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.logistservice.logist.common.benchmark.TimedLoop;
+import org.logistservice.logist.config.CacheConfig;
+import org.logistservice.logist.config.LocalCacheProperties;
+
+import javax.cache.CacheManager;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Стоимость проверки токена на один запрос (HS256, один и тот же токен): прежняя проверка - два разбора
+// с новым ключом и парсером на каждый, verify с заранее построенным парсером и verify из кэша проверенных
+// токенов (регион verified-tokens настроен так же, как в приложении). Запуск:
+// ./mvnw test -Dtest=JwtVerificationBenchmarkTest -Dlogist.benchmarks=true
+@EnabledIfSystemProperty(named = "logist.benchmarks", matches = "true")
+class JwtVerificationBenchmarkTest {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-0123456789";
+    private static final int OPERATIONS = 50_000;
+
+    private CacheManager cacheManager;
+    private JwtTokenProvider cachedProvider;
+    private JwtTokenProvider uncachedProvider;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        LocalCacheProperties cacheProperties = new LocalCacheProperties();
+        cacheProperties.getRegions().put(JwtTokenProvider.VERIFIED_TOKENS_CACHE, new LocalCacheProperties.Region());
+        cacheManager = new CacheConfig().jcacheManager(cacheProperties);
+        cachedProvider = new JwtTokenProvider(SECRET, 3_600_000, true, cacheManager);
+        uncachedProvider = new JwtTokenProvider(SECRET, 3_600_000, false, cacheManager);
+        token = cachedProvider.generateToken(CustomUserDetails.fromClaims(1L, "admin", List.of("ADMIN")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void perRequestVerificationCost() {
+        // Время печатается для сравнения и не проверяется: на общей машине соотношение замеров нестабильно
+        TimedLoop.measure("two parses with a new key each", 3, 5, OPERATIONS,
+                () -> legacyVerify(token));
+        TimedLoop.measure("verify, prebuilt parser", 3, 5, OPERATIONS,
+                () -> uncachedProvider.verify(token));
+        TimedLoop.measure("verify, verified-token cache hit", 3, 5, OPERATIONS,
+                () -> cachedProvider.verify(token));
+
+        assertThat(legacyVerify(token)).isEqualTo("admin");
+        assertThat(uncachedProvider.verify(token).getSubject()).isEqualTo("admin");
+        assertThat(cachedProvider.verify(token).getSubject()).isEqualTo("admin");
+    }
+
+    // Как до единой проверки: validateToken и затем getUsernameFromToken, каждый со своим ключом и парсером
+    private static String legacyVerify(String token) {
+        Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token);
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return claims.getSubject();
+    }
+}
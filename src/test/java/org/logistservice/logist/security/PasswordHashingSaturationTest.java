@@ -0,0 +1,140 @@
+package org.logistservice.logist.security;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.logistservice.logist.user.model.User;
+import org.logistservice.logist.user.repository.RoleRepository;
+import org.logistservice.logist.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.convention.TestBean;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Вход при заполненной очереди хеширования паролей: пул из одного потока занят, единственное место в очереди
+// тоже, поэтому проверка пароля отклоняется сразу. И API, и вход через форму отвечают 503 с Retry-After
+@WebMvcTest(AuthController.class)
+@Import(SecurityConfig.class)
+class PasswordHashingSaturationTest {
+
+    // Хеширование в пуле ждет, пока тест не отпустит очередь
+    private static final CountDownLatch release = new CountDownLatch(1);
+
+    @TestBean
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private CustomUserDetailsService customUserDetailsService;
+    @MockitoBean
+    private UserRepository userRepository;
+    @MockitoBean
+    private RoleRepository roleRepository;
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+    @MockitoBean
+    private TokenRevocationStore tokenRevocationStore;
+    @MockitoBean
+    private UserStateCache userStateCache;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    static BoundedPasswordEncoder passwordEncoder() {
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                await();
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                await();
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        return new BoundedPasswordEncoder(blocking, 10, 1, 1, Duration.ofSeconds(7));
+    }
+
+    @BeforeEach
+    void fillQueue() throws InterruptedException {
+        when(customUserDetailsService.loadUserByUsername("admin")).thenReturn(CustomUserDetails.fromUser(User.builder()
+                .id(1L)
+                .username("admin")
+                .password("secret")
+                .active(true)
+                .roles(new HashSet<>())
+                .build()));
+        // Очередь остается занятой до конца класса: первый вызов занимает поток пула, второй - место в очереди
+        if (passwordEncoder.getStats().getActiveThreads() == 0) {
+            hashInBackground();
+            awaitStats(() -> passwordEncoder.getStats().getActiveThreads() == 1);
+        }
+        if (passwordEncoder.getStats().getQueueDepth() == 0) {
+            hashInBackground();
+            awaitStats(() -> passwordEncoder.getStats().getQueueDepth() == 1);
+        }
+    }
+
+    @AfterAll
+    static void releaseQueue() {
+        release.countDown();
+    }
+
+    @Test
+    void apiLoginGets503WithRetryAfter() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"admin\",\"password\":\"secret\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"));
+    }
+
+    @Test
+    void formLoginGets503WithRetryAfter() throws Exception {
+        mockMvc.perform(post("/login")
+                        .param("username", "admin")
+                        .param("password", "secret"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"));
+    }
+
+    private void hashInBackground() {
+        Thread thread = new Thread(() -> passwordEncoder.encode("busy"));
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void awaitStats(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("password hashing queue is filled").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await() {
+        try {
+            release.await(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}